@@ -0,0 +1,65 @@
+package benchmarks;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import service.managers.TaskManager;
+import service.snapshot.SnapshotCodecs;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Наполнение менеджеров данными для бенчмарков.
+ * Задачи и подзадачи занимают получасовые интервалы с шагом в час, поэтому между ними остаются свободные окна,
+ * а половина всех элементов приходится на подзадачи эпиков по SUBTASKS_PER_EPIC штук.
+ */
+
+public final class BenchmarkData {
+
+    public static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    public static final Duration SLOT = Duration.ofMinutes(30);
+    public static final int SUBTASKS_PER_EPIC = 100;
+
+    private BenchmarkData() {
+    }
+
+    // Метод создает size элементов: size / 2 задач и столько же подзадач, распределенных по эпикам
+    public static void fill(TaskManager manager, int size) {
+        int tasks = size / 2;
+        int subtasks = size - tasks;
+        int slot = 0;
+
+        for (int i = 0; i < tasks; i++) {
+            manager.createTask(new Task("Задача " + i, "Описание задачи " + i, slotStart(slot++), SLOT));
+        }
+
+        Epic epic = null;
+        for (int i = 0; i < subtasks; i++) {
+            if (i % SUBTASKS_PER_EPIC == 0) {
+                epic = new Epic("Эпик " + i / SUBTASKS_PER_EPIC, "Описание эпика");
+                manager.createEpic(epic);
+            }
+            manager.createSubtask(new Subtask("Подзадача " + i, "Описание подзадачи " + i,
+                    slotStart(slot++), SLOT, epic.getId()));
+        }
+    }
+
+    // Метод записывает доску в снимок FileBackedTaskManager; формат выбирается по расширению файла
+    public static void writeSnapshot(TaskManager manager, File file) throws IOException {
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+            SnapshotCodecs.forFile(file).write(output, manager.getAllTasks(), manager.getAllEpics(),
+                    manager.getAllSubtasks());
+        }
+    }
+
+    // Начало занятого интервала с заданным номером; свободное окно начинается через SLOT после него
+    public static LocalDateTime slotStart(int slot) {
+        return START.plusHours(slot);
+    }
+}
@@ -0,0 +1,128 @@
+package benchmarks;
+
+import enums.Status;
+import model.Epic;
+import model.Subtask;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import service.managers.ConcurrentTaskManager;
+import service.managers.InMemoryTaskManager;
+import service.managers.TaskManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пропускная способность потокобезопасного менеджера при росте числа потоков.
+ * Каждый поток редактирует подзадачи своего эпика, поэтому при блокировках по эпикам
+ * пропускная способность должна расти вместе с числом потоков.
+ * Для сравнения тот же сценарий выполняется на InMemoryTaskManager под одной общей блокировкой.
+ * Запуск серии от 1 до 16 потоков: java -cp benchmarks/target/benchmarks.jar benchmarks.ConcurrentTaskManagerBenchmark
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentTaskManagerBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    @State(Scope.Benchmark)
+    public static class SharedManager {
+
+        @Param({"concurrent", "synchronized"})
+        public String implementation;
+
+        TaskManager manager;
+        final AtomicInteger threadCounter = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            manager = implementation.equals("concurrent") ? new ConcurrentTaskManager() : new InMemoryTaskManager();
+        }
+
+        // Для InMemoryTaskManager вся работа выполняется под монитором менеджера
+        boolean isSynchronized() {
+            return !implementation.equals("concurrent");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OwnEpic {
+
+        Integer epicId;
+        Integer subtaskId;
+        boolean done;
+
+        @Setup(Level.Trial)
+        public void setUp(SharedManager shared) {
+            Epic epic = new Epic("Эпик потока " + shared.threadCounter.incrementAndGet(), "Описание");
+            Subtask subtask = new Subtask("Подзадача", "Описание", null);
+            synchronized (shared.manager) {
+                shared.manager.createEpic(epic);
+                subtask.setEpicId(epic.getId());
+                shared.manager.createSubtask(subtask);
+            }
+            epicId = epic.getId();
+            subtaskId = subtask.getId();
+        }
+    }
+
+    // Создание и удаление подзадачи в своем эпике с пересчетом агрегатов эпика
+    @Benchmark
+    public void createAndDeleteSubtask(SharedManager shared, OwnEpic own) {
+        Subtask subtask = new Subtask("Подзадача", "Описание", own.epicId);
+        if (shared.isSynchronized()) {
+            synchronized (shared.manager) {
+                shared.manager.createSubtask(subtask);
+                shared.manager.deleteSubtask(subtask.getId());
+            }
+        } else {
+            shared.manager.createSubtask(subtask);
+            shared.manager.deleteSubtask(subtask.getId());
+        }
+    }
+
+    // Изменение статуса подзадачи своего эпика
+    @Benchmark
+    public void updateSubtaskStatus(SharedManager shared, OwnEpic own) {
+        own.done = !own.done;
+        Subtask update = new Subtask(own.subtaskId, "Подзадача", "Описание",
+                own.done ? Status.DONE : Status.IN_PROGRESS, own.epicId);
+        if (shared.isSynchronized()) {
+            synchronized (shared.manager) {
+                shared.manager.updateSubtask(update);
+            }
+        } else {
+            shared.manager.updateSubtask(update);
+        }
+    }
+
+    // Чтение подзадач своего эпика
+    @Benchmark
+    public void readEpicSubtasks(SharedManager shared, OwnEpic own, Blackhole blackhole) {
+        if (shared.isSynchronized()) {
+            synchronized (shared.manager) {
+                blackhole.consume(shared.manager.getSubtaskByEpic(own.epicId));
+            }
+        } else {
+            blackhole.consume(shared.manager.getSubtaskByEpic(own.epicId));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(ConcurrentTaskManagerBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
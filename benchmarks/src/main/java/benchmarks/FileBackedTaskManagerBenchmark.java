@@ -0,0 +1,100 @@
+package benchmarks;
+
+import model.Task;
+import org.openjdk.jmh.annotations.*;
+import service.managers.FileBackedTaskManager;
+import service.managers.InMemoryTaskManager;
+import service.snapshot.SnapshotCodecs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сохранение и загрузка FileBackedTaskManager на досках из 1 тыс., 100 тыс. и 1 млн элементов.
+ * Сохранение измеряется через обновление одной задачи, которое в режиме снимков перезаписывает файл целиком,
+ * а в режиме журнала дописывает одну запись. Загрузка сравнивается для CSV и двоичного снимка (.bin).
+ * Запуск: java -jar benchmarks/target/benchmarks.jar FileBackedTaskManagerBenchmark
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class FileBackedTaskManagerBenchmark {
+
+    private static final int JOURNAL_COMPACTION_THRESHOLD = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private Path directory;
+    private File snapshotFile;
+    private File journalFile;
+    private File binaryFile;
+    private FileBackedTaskManager snapshotManager;
+    private FileBackedTaskManager journalManager;
+    private List<Task> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Все поколения файлов (.tmp, .prev, .journal) создаются рядом с основными и удаляются вместе с каталогом
+        directory = Files.createTempDirectory("kanban-benchmark");
+        snapshotFile = directory.resolve("snapshot.csv").toFile();
+        journalFile = directory.resolve("journal.csv").toFile();
+        binaryFile = directory.resolve("snapshot" + SnapshotCodecs.BINARY_EXTENSION).toFile();
+
+        // Доска наполняется в памяти и сохраняется одним снимком, после чего открывается в нужном режиме
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        BenchmarkData.fill(source, size);
+        BenchmarkData.writeSnapshot(source, snapshotFile);
+        BenchmarkData.writeSnapshot(source, binaryFile);
+        Files.copy(snapshotFile.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        snapshotManager = FileBackedTaskManager.loadFromFile(snapshotFile);
+        journalManager = FileBackedTaskManager.loadFromFile(journalFile, JOURNAL_COMPACTION_THRESHOLD);
+        tasks = snapshotManager.getAllTasks();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Task saveSnapshot() {
+        return update(snapshotManager);
+    }
+
+    @Benchmark
+    public Task saveJournal() {
+        return update(journalManager);
+    }
+
+    @Benchmark
+    public FileBackedTaskManager load() {
+        return FileBackedTaskManager.loadFromFile(snapshotFile);
+    }
+
+    @Benchmark
+    public FileBackedTaskManager loadBinary() {
+        return FileBackedTaskManager.loadFromFile(binaryFile);
+    }
+
+    private Task update(FileBackedTaskManager manager) {
+        Task task = tasks.get(ThreadLocalRandom.current().nextInt(tasks.size()));
+        manager.updateTask(task);
+        return task;
+    }
+}
@@ -0,0 +1,93 @@
+package benchmarks;
+
+import enums.Status;
+import model.Task;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import service.managers.ArrayHistoryManager;
+import service.managers.HistoryManager;
+import service.managers.InMemoryHistoryManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скорость и интенсивность выделения памяти истории просмотров:
+ * списочная реализация на узлах TaskNode против реализации на массивах ячеек.
+ * Интересует метрика gc.alloc.rate.norm (байт на операцию), поэтому запуск идет с профилировщиком GC:
+ * java -cp benchmarks/target/benchmarks.jar benchmarks.HistoryManagerBenchmark
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryManagerBenchmark {
+
+    @Param({"linked", "array"})
+    public String implementation;
+
+    @Param({"1000", "10000"})
+    public int capacity;
+
+    private HistoryManager history;
+    private Task[] tasks;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = implementation.equals("array")
+                ? new ArrayHistoryManager(capacity)
+                : new InMemoryHistoryManager(capacity, null);
+
+        // Задач вдвое больше емкости, чтобы в установившемся режиме работало вытеснение
+        tasks = new Task[capacity * 2];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new Task(i + 1, "Задача " + i, "Описание", Status.NEW);
+        }
+        for (int i = 0; i < capacity; i++) {
+            history.add(tasks[i]);
+        }
+    }
+
+    // Повторный просмотр задачи, которая уже есть в истории (GET /tasks/{id} по популярной задаче)
+    @Benchmark
+    public void reviewExisting() {
+        cursor = cursor + 1 == capacity ? 0 : cursor + 1;
+        history.add(tasks[cursor]);
+    }
+
+    // Просмотр задач по кругу: каждое добавление вытесняет самую старую запись
+    @Benchmark
+    public void addWithEviction() {
+        cursor = cursor + 1 == tasks.length ? 0 : cursor + 1;
+        history.add(tasks[cursor]);
+    }
+
+    // Удаление задачи из истории и возврат ее обратно
+    @Benchmark
+    public void removeAndAdd() {
+        cursor = cursor + 1 == capacity ? 0 : cursor + 1;
+        history.remove(tasks[cursor].getId());
+        history.add(tasks[cursor]);
+    }
+
+    @Benchmark
+    public void getHistory(Blackhole blackhole) {
+        blackhole.consume(history.getHistory());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HistoryManagerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,130 @@
+package benchmarks;
+
+import enums.Status;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import service.managers.InMemoryTaskManager;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Основные операции InMemoryTaskManager на досках из 1 тыс., 100 тыс. и 1 млн элементов.
+ * Запуск: java -jar benchmarks/target/benchmarks.jar TaskManagerBenchmark
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class TaskManagerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private InMemoryTaskManager manager;
+    private List<Epic> epics;
+    private int occupiedSlots;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        BenchmarkData.fill(manager, size);
+        epics = manager.getAllEpics();
+        occupiedSlots = manager.getPrioritizedTasks().size();
+
+        // История просмотров заполняется всеми задачами доски
+        manager.getAllTasks().forEach(task -> manager.getTaskById(task.getId()));
+    }
+
+    // Создание задачи в свободном окне расписания с проверкой пересечений и последующее удаление
+    @Benchmark
+    public Task createTaskWithOverlapCheck() {
+        int slot = ThreadLocalRandom.current().nextInt(occupiedSlots);
+        Task task = new Task("Новая задача", "Описание",
+                BenchmarkData.slotStart(slot).plus(BenchmarkData.SLOT), BenchmarkData.SLOT);
+        manager.createTask(task);
+        manager.deleteTask(task.getId());
+        return task;
+    }
+
+    @Benchmark
+    public void getPrioritizedTasks(Blackhole blackhole) {
+        blackhole.consume(manager.getPrioritizedTasks());
+    }
+
+    @Benchmark
+    public void getHistory(Blackhole blackhole) {
+        blackhole.consume(manager.getHistory());
+    }
+
+    // Поиск по редкому и частому слову одновременно: частое слово входит в половину задач доски
+    @Benchmark
+    public List<Task> searchFirstPage() {
+        return manager.search("задача " + ThreadLocalRandom.current().nextInt(size), 0, 20);
+    }
+
+    // Инкрементальный пересчет эпика при смене статуса одной подзадачи
+    @Benchmark
+    public Epic updateSubtaskStatus() {
+        Epic epic = epics.get(ThreadLocalRandom.current().nextInt(epics.size()));
+        Subtask subtask = manager.getSubtaskByEpic(epic.getId()).getFirst();
+        Status status = subtask.getStatus() == Status.DONE ? Status.IN_PROGRESS : Status.DONE;
+        manager.updateSubtask(new Subtask(subtask.getId(), subtask.getTitle(), subtask.getDescription(), status,
+                subtask.getStartTime(), subtask.getDuration(), epic.getId()));
+        return epic;
+    }
+
+    // Полный пересчет статуса и времени эпика по всем его подзадачам
+    @Benchmark
+    public Epic recalculateEpicStatus() {
+        Epic epic = epics.get(ThreadLocalRandom.current().nextInt(epics.size()));
+        manager.checkEpicStatus(epic.getId());
+        return epic;
+    }
+
+    /**
+     * Удаление всех эпиков разрушает доску, поэтому она пересоздается перед каждым замером.
+     */
+    @State(Scope.Benchmark)
+    public static class FilledBoard {
+
+        @Param({"1000", "100000", "1000000"})
+        public int size;
+
+        InMemoryTaskManager manager;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            manager = new InMemoryTaskManager();
+            BenchmarkData.fill(manager, size);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public InMemoryTaskManager deleteAllEpics(FilledBoard board) {
+        board.manager.deleteAllEpics();
+        return board.manager;
+    }
+
+    // Массовое удаление задач с общими словами: каждый список поискового индекса должен сжиматься один раз
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public InMemoryTaskManager deleteAllTasks(FilledBoard board) {
+        board.manager.deleteAllTasks();
+        return board.manager;
+    }
+}
@@ -0,0 +1,8 @@
+package enums;
+
+// Режимы обработки HTTP-запросов сервером
+public enum ExecutorMode {
+    DISPATCHER_THREAD,
+    VIRTUAL_THREADS,
+    FIXED_POOL
+}
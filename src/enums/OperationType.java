@@ -0,0 +1,7 @@
+package enums;
+
+public enum OperationType {
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -3,36 +3,44 @@ package model;
 import enums.*;
 
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 
 public class Epic extends Task {
 
-    private List<Integer> subtasksId;
+    // Подзадачи в порядке добавления; множество дает добавление, удаление и проверку за O(1)
+    private Set<Integer> subtasksId;
     private LocalDateTime endTime;
+    // Агрегаты по подзадачам для пересчета статуса и времени эпика без обхода всех подзадач
+    private transient Rollup rollup;
 
     public Epic(String title, String description) {
         super(title, description);
-        this.subtasksId = new ArrayList<>();
+        this.subtasksId = new LinkedHashSet<>();
     }
 
     public Epic(Integer id, String title, String description, Status status) {
         super(id, title, description, status);
-        this.subtasksId = new ArrayList<>();
+        this.subtasksId = new LinkedHashSet<>();
     }
 
     public Epic(Integer id, String title, String description) {
         super(id, title, description);
-        this.subtasksId = new ArrayList<>();
+        this.subtasksId = new LinkedHashSet<>();
     }
 
     public Epic(String title, String description, LocalDateTime startTime, Duration duration) {
         super(title, description, startTime, duration);
-        this.subtasksId = new ArrayList<>();
+        this.subtasksId = new LinkedHashSet<>();
     }
 
     public void addSubtask(Integer subtaskId) {
@@ -40,40 +48,66 @@ public class Epic extends Task {
             return;
         }
         if (subtasksId == null) {
-            subtasksId = new ArrayList<>(); // Инициализация, если список null
-        }
-        if (!subtasksId.contains(subtaskId)) {
-            subtasksId.add(subtaskId);
+            subtasksId = new LinkedHashSet<>(); // Инициализация, если список null
         }
+        subtasksId.add(subtaskId);
     }
 
+    // Копия списка подзадач в порядке добавления; изменять подзадачи эпика нужно его методами
     public List<Integer> getSubtasksId() {
         if (subtasksId == null) {
-            return Collections.emptyList();
+            return List.of();
         }
-        return subtasksId;
+        return List.copyOf(subtasksId);
     }
 
     public void clearSubtasksId() {
-        subtasksId.clear();
+        if (subtasksId != null) {
+            subtasksId.clear();
+        }
     }
 
     public void deleteSubtaskById(Integer id) {
-        subtasksId.remove(id);
+        if (subtasksId != null) {
+            subtasksId.remove(id);
+        }
     }
 
     public void deleteAllSubtasks() {
-        subtasksId.clear();
+        clearSubtasksId();
     }
 
-    public void setSubtasksId(List<Integer> subtasksId) {
-        this.subtasksId = subtasksId;
+    public void setSubtasksId(Collection<Integer> subtasksId) {
+        this.subtasksId = new LinkedHashSet<>(subtasksId);
     }
 
     public TaskType getTaskType() {
         return TaskType.EPIC;
     }
 
+    // Метод учитывает состояние подзадачи в агрегатах эпика и пересчитывает статус и время эпика
+    public void applySubtask(Subtask subtask) {
+        if (subtask == null || subtask.getId() == null) {
+            return;
+        }
+        Rollup rollup = getRollup();
+        rollup.withdraw(subtask.getId());
+        rollup.apply(subtask);
+        refreshRollup();
+    }
+
+    // Метод исключает подзадачу из агрегатов эпика и пересчитывает статус и время эпика
+    public void withdrawSubtask(Integer subtaskId) {
+        getRollup().withdraw(subtaskId);
+        refreshRollup();
+    }
+
+    // Метод сбрасывает агрегаты эпика, как будто у него нет подзадач
+    public void resetSubtaskStates() {
+        rollup = new Rollup();
+        refreshRollup();
+    }
+
     public LocalDateTime getEndTime() {
         return this.endTime;
     }
@@ -82,6 +116,93 @@ public class Epic extends Task {
         this.endTime = endTime;
     }
 
+    private Rollup getRollup() {
+        if (rollup == null) {
+            rollup = new Rollup();
+        }
+        return rollup;
+    }
+
+    // Статус и время эпика берутся из счетчиков и крайних ключей отсортированных мультимножеств за O(log n)
+    private void refreshRollup() {
+        Rollup rollup = getRollup();
+        int total = rollup.states.size();
+
+        if (total == 0 || rollup.countOf(Status.NEW) == total) {
+            setStatus(Status.NEW);
+        } else if (rollup.countOf(Status.DONE) == total) {
+            setStatus(Status.DONE);
+        } else {
+            setStatus(Status.IN_PROGRESS);
+        }
+
+        if (rollup.startTimes.isEmpty()) {
+            setStartTime(null);
+            setEndTime(null);
+            setDuration(Duration.ZERO);
+            return;
+        }
+
+        LocalDateTime startTime = rollup.startTimes.firstKey();
+        LocalDateTime endTime = rollup.endTimes.lastKey();
+        setStartTime(startTime);
+        setEndTime(endTime);
+        setDuration(Duration.between(startTime, endTime));
+    }
+
+    // Вспомогательный класс с агрегатами подзадач: счетчики статусов и мультимножества времени начала и окончания
+    private static class Rollup {
+
+        private final Map<Integer, SubtaskState> states = new HashMap<>();
+        private final Map<Status, Integer> statusCounts = new EnumMap<>(Status.class);
+        private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+        private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+
+        private void apply(Subtask subtask) {
+            SubtaskState state = SubtaskState.of(subtask);
+            states.put(subtask.getId(), state);
+            statusCounts.merge(state.status(), 1, Integer::sum);
+            if (state.startTime() != null) {
+                startTimes.merge(state.startTime(), 1, Integer::sum);
+                endTimes.merge(state.endTime(), 1, Integer::sum);
+            }
+        }
+
+        private void withdraw(Integer subtaskId) {
+            SubtaskState state = states.remove(subtaskId);
+            if (state == null) {
+                return;
+            }
+            decrement(statusCounts, state.status());
+            if (state.startTime() != null) {
+                decrement(startTimes, state.startTime());
+                decrement(endTimes, state.endTime());
+            }
+        }
+
+        private int countOf(Status status) {
+            return statusCounts.getOrDefault(status, 0);
+        }
+
+        private static <K> void decrement(Map<K, Integer> counts, K key) {
+            counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    // Снимок подзадачи на момент учета: позволяет корректно вычесть ее вклад, даже если объект изменили
+    private record SubtaskState(Status status, LocalDateTime startTime, LocalDateTime endTime) {
+
+        private static SubtaskState of(Subtask subtask) {
+            Status status = subtask.getStatus() != null ? subtask.getStatus() : Status.NEW;
+            LocalDateTime startTime = subtask.getStartTime();
+            if (startTime == null) {
+                return new SubtaskState(status, null, null);
+            }
+            Duration duration = subtask.getDuration() != null ? subtask.getDuration() : Duration.ZERO;
+            return new SubtaskState(status, startTime, startTime.plus(duration));
+        }
+    }
+
     @Override
     public String toString() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd|HH:mm");
@@ -0,0 +1,56 @@
+package model;
+
+import enums.OperationType;
+import enums.TaskType;
+
+/**
+ * Одна операция пакетного изменения менеджера.
+ * Создание и обновление несут задачу целиком, тип берется из самой задачи;
+ * удаление задается типом и id.
+ */
+
+public class Operation {
+
+    private final OperationType type;
+    private final TaskType taskType;
+    private final Integer id;
+    private final Task item;
+
+    // Операция создания или обновления задачи, эпика или подзадачи
+    public Operation(OperationType type, Task item) {
+        this(type, item == null ? null : item.getTaskType(), item == null ? null : item.getId(), item);
+    }
+
+    // Операция удаления по типу и id
+    public Operation(OperationType type, TaskType taskType, Integer id) {
+        this(type, taskType, id, null);
+    }
+
+    private Operation(OperationType type, TaskType taskType, Integer id, Task item) {
+        this.type = type;
+        this.taskType = taskType;
+        this.id = id;
+        this.item = item;
+    }
+
+    public OperationType getType() {
+        return type;
+    }
+
+    public TaskType getTaskType() {
+        return taskType;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Task getItem() {
+        return item;
+    }
+
+    @Override
+    public String toString() {
+        return type + "," + taskType + "," + id;
+    }
+}
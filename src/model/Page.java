@@ -0,0 +1,90 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.function.Function;
+
+/**
+ * Страница списка, упорядоченного по id, и курсор для запроса следующей страницы.
+ * Курсор непрозрачен для клиента: внутри закодирован id последнего элемента страницы.
+ * Пустой nextCursor означает, что страница последняя.
+ */
+
+public class Page<T> {
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /* Метод выбирает из хранилища до limit элементов с id больше закодированного в курсоре.
+    Стоимость O(log N + limit): обход начинается сразу с нужного места упорядоченного хранилища
+     */
+    public static <T> Page<T> of(NavigableMap<Integer, T> storage, String cursor, int limit) {
+        return of(storage.navigableKeySet(), storage::get, cursor, limit);
+    }
+
+    /* Вариант для хранилища без порядка: id обходятся по отдельному упорядоченному индексу,
+    а элементы берутся из хранилища по id. Id, которого уже нет в хранилище, пропускается
+     */
+    public static <T> Page<T> of(NavigableSet<Integer> ids, Function<Integer, T> storage, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+
+        Integer after = decodeCursor(cursor);
+        NavigableSet<Integer> tail = after == null ? ids : ids.tailSet(after, false);
+        List<T> items = new ArrayList<>();
+        Integer lastId = null;
+        for (Integer id : tail) {
+            T item = storage.apply(id);
+            if (item == null) {
+                continue;
+            }
+            if (items.size() == limit) {
+                return new Page<>(items, encodeCursor(lastId));
+            }
+            items.add(item);
+            lastId = id;
+        }
+        return new Page<>(items, null);
+    }
+
+    public static String encodeCursor(int id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Пустой курсор означает начало списка
+    public static Integer decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException("Неверный курсор: " + cursor);
+            }
+            return Integer.parseInt(value.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неверный курсор: " + cursor);
+        }
+    }
+}
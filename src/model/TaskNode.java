@@ -7,6 +7,7 @@ public class TaskNode {
     private Task task;
     private TaskNode prev;
     private TaskNode next;
+    private long viewedAt;
 
     public TaskNode(Task task, TaskNode prev) {
         this.task = task;
@@ -37,4 +38,12 @@ public class TaskNode {
     public void setNext(TaskNode next) {
         this.next = next;
     }
+
+    public long getViewedAt() {
+        return viewedAt;
+    }
+
+    public void setViewedAt(long viewedAt) {
+        this.viewedAt = viewedAt;
+    }
 }
\ No newline at end of file
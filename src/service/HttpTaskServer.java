@@ -1,42 +1,117 @@
 package service;
 
 import com.sun.net.httpserver.HttpServer;
+import enums.ExecutorMode;
 import service.handlers.*;
 import service.managers.Managers;
 import service.managers.TaskManager;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.*;
 
 public class HttpTaskServer {
-    private static final int PORT = 8080;
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_BACKLOG = 0;
+    private static final int DEFAULT_DRAIN_SECONDS = 1;
+    private static final int QUEUE_CAPACITY_PER_THREAD = 64;
+
     private final TaskManager manager;
+    private final int port;
+    private final int backlog;
+    private final ExecutorMode executorMode;
+    private final int poolSize;
     private HttpServer server;
+    private ExecutorService executor;
 
     public HttpTaskServer(TaskManager manager) {
+        this(manager, DEFAULT_PORT);
+    }
+
+    public HttpTaskServer(TaskManager manager, int port) {
+        this(manager, port, DEFAULT_BACKLOG, ExecutorMode.DISPATCHER_THREAD, 0);
+    }
+
+    /* Многопоточные режимы требуют потокобезопасного менеджера (Managers.getConcurrent()):
+    VIRTUAL_THREADS - отдельный виртуальный поток на каждый запрос,
+    FIXED_POOL - пул из poolSize платформенных потоков с ограниченной очередью.
+    InMemoryTaskManager, FileBackedTaskManager и MappedTaskManager работают только с DISPATCHER_THREAD
+     */
+    public HttpTaskServer(TaskManager manager, int port, int backlog, ExecutorMode executorMode, int poolSize) {
+        if (executorMode == ExecutorMode.FIXED_POOL && poolSize <= 0) {
+            throw new IllegalArgumentException("Размер пула потоков должен быть положительным");
+        }
+        if (executorMode != ExecutorMode.DISPATCHER_THREAD && !manager.isThreadSafe()) {
+            throw new IllegalArgumentException("Режим " + executorMode + " требует потокобезопасного менеджера");
+        }
         this.manager = manager;
+        this.port = port;
+        this.backlog = backlog;
+        this.executorMode = executorMode;
+        this.poolSize = poolSize;
     }
 
     public static void main(String[] args) throws IOException {
-        TaskManager manager = Managers.getDefault();
-        HttpTaskServer server = new HttpTaskServer(manager);
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        TaskManager manager = Managers.getConcurrent();
+        HttpTaskServer server = new HttpTaskServer(manager, port, DEFAULT_BACKLOG, ExecutorMode.VIRTUAL_THREADS, 0);
         server.start();
     }
 
     public void start() throws IOException {
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        server = HttpServer.create(new InetSocketAddress(port), backlog);
         server.createContext("/tasks", new TaskHandler(manager));
         server.createContext("/subtasks", new SubtaskHandler(manager));
         server.createContext("/epics", new EpicHandler(manager));
         server.createContext("/history", new HistoryHandler(manager));
         server.createContext("/prioritized", new PrioritizedHandler(manager));
+        server.createContext("/search", new SearchHandler(manager));
+        server.createContext("/batch", new BatchHandler(manager));
 
+        executor = createExecutor();
+        server.setExecutor(executor);
         server.start();
-        System.out.println("HTTP-сервер запущен на " + PORT + " порту!");
+        System.out.println("HTTP-сервер запущен на " + getPort() + " порту!");
     }
 
     public void stop() {
-        server.stop(1);
+        stop(DEFAULT_DRAIN_SECONDS);
+    }
+
+    /* Остановка сервера: новые соединения не принимаются, начатые запросы дорабатываются не дольше drainSeconds.
+    Срок общий: исполнитель ждет только время, оставшееся после остановки самого сервера
+     */
+    public void stop(int drainSeconds) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(drainSeconds);
+        server.stop(drainSeconds);
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                if (!executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
         System.out.println("HTTP-сервер остановлен");
     }
-}
\ No newline at end of file
+
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    // Метод создает исполнителя запросов; null означает обработку в единственном потоке-диспетчере сервера
+    private ExecutorService createExecutor() {
+        return switch (executorMode) {
+            case DISPATCHER_THREAD -> null;
+            case VIRTUAL_THREADS -> Executors.newVirtualThreadPerTaskExecutor();
+            // При заполненной очереди запрос выполняет поток-диспетчер, что притормаживает прием новых соединений
+            case FIXED_POOL -> new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(poolSize * QUEUE_CAPACITY_PER_THREAD),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+        };
+    }
+}
@@ -2,13 +2,22 @@ package service.handlers;
 
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
+import enums.Status;
+import model.Page;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpHandler;
@@ -23,6 +32,10 @@ import service.typeadapters.LocalDateTimeAdapter;
 
 public abstract class BaseHttpHandler implements HttpHandler {
 
+    protected static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_LIST_PAGE_SIZE = 100;
+    private static final int MAX_LIST_PAGE_SIZE = 1000;
+
     protected final Gson gson;
     protected final TaskManager taskManager;
 
@@ -40,6 +53,42 @@ public abstract class BaseHttpHandler implements HttpHandler {
         sendMessage(exchange, jsonResponse, 200);
     }
 
+    /* Потоковая отправка JSON-массива: элементы сериализуются прямо в тело ответа по одному,
+    без промежуточной строки и массива байт; длина заранее неизвестна, поэтому ответ передается по частям.
+    Заголовки 200 к этому моменту уже отправлены, поэтому при ошибке сериализации обмен просто закрывается:
+    клиент получает оборванный JSON, а повторные заголовки с кодом ошибки не отправляются
+     */
+    protected void sendJsonStream(HttpExchange exchange, Iterable<?> items) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+
+        JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)));
+        try {
+            writer.beginArray();
+            for (Object item : items) {
+                if (item == null) {
+                    writer.nullValue();
+                } else {
+                    gson.toJson(item, item.getClass(), writer);
+                }
+            }
+            writer.endArray();
+        } catch (IOException | RuntimeException e) {
+            exchange.close();
+            throw e;
+        }
+        writer.close();
+    }
+
+    // Отправка страницы списка: элементы в теле ответа, курсор следующей страницы в заголовке X-Next-Cursor
+    protected void sendJsonPage(HttpExchange exchange, Page<?> page) throws IOException {
+        if (page.getNextCursor() != null) {
+            exchange.getResponseHeaders().set(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        sendJsonStream(exchange, page.getItems());
+    }
+
     // Отправка общего ответа в случае успеха без данных
     protected void sendCreateOrUpdateItem(HttpExchange exchange) throws IOException {
         sendMessage(exchange, "", 201);
@@ -92,8 +141,85 @@ public abstract class BaseHttpHandler implements HttpHandler {
         }
     }
 
-    // Базовый метод для отправки HTTP-ответа в формате JSON
+    // Разбор параметров строки запроса вида ?from=...&to=...
+    protected Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int separator = pair.indexOf('=');
+            String name = separator < 0 ? pair : pair.substring(0, separator);
+            String value = separator < 0 ? "" : pair.substring(separator + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    // Чтение необязательного параметра с датой и временем в формате ISO, например 2025-01-01T10:00
+    protected LocalDateTime parseDateTimeParam(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Неверный формат параметра " + name + ": " + value);
+        }
+    }
+
+    // Чтение необязательного целочисленного параметра со значением по умолчанию
+    protected int parseIntParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Неверный формат параметра " + name + ": " + value);
+        }
+    }
+
+    // Постраничная выдача запрашивается параметрами limit и/или cursor
+    protected boolean isPageRequested(Map<String, String> params) {
+        return params.containsKey("limit") || params.containsKey("cursor");
+    }
+
+    // Размер страницы списка: по умолчанию 100, не больше 1000
+    protected int parseListLimit(Map<String, String> params) {
+        return Math.min(parseIntParam(params, "limit", DEFAULT_LIST_PAGE_SIZE), MAX_LIST_PAGE_SIZE);
+    }
+
+    // Чтение необязательного параметра status (NEW, IN_PROGRESS, DONE)
+    protected Status parseStatusParam(HttpExchange exchange) {
+        String value = parseQuery(exchange).get("status");
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Status.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный статус: " + value);
+        }
+    }
+
+    /* Базовый метод для отправки HTTP-ответа в формате JSON.
+    Если заголовки уже ушли (ошибка посреди потоковой отправки), повторно их не отправить:
+    обмен только закрывается
+     */
     private void sendMessage(HttpExchange exchange, String json, int statusCode) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            exchange.close();
+            return;
+        }
         byte[] responseBytes = json.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
 
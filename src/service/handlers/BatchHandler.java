@@ -0,0 +1,104 @@
+package service.handlers;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import enums.OperationType;
+import enums.TaskType;
+import model.Epic;
+import model.Operation;
+import model.Subtask;
+import model.Task;
+import service.exeptions.ManagerSaveException;
+import service.exeptions.NotFoundException;
+import service.exeptions.TimeOverlapException;
+import service.managers.TaskManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchHandler extends BaseHttpHandler {
+
+    public BatchHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+
+        try {
+            if ("POST".equals(method)) {
+                taskManager.applyBatch(parseOperations(exchange));
+                sendCreateOrUpdateItem(exchange);
+            } else {
+                sendMethodNotAllowed(exchange, path);
+            }
+        } catch (JsonParseException | IllegalStateException e) {
+            sendErrorRequest(exchange, "Неверный формат JSON");
+        } catch (NotFoundException e) {
+            sendNotFound(exchange, e.getMessage());
+        } catch (TimeOverlapException e) {
+            sendHasInteractions(exchange, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendErrorRequest(exchange, e.getMessage());
+        } catch (ManagerSaveException e) {
+            sendServerErrorResponse(exchange, e.getMessage());
+        } catch (Exception e) {
+            sendServerErrorResponse(exchange, "Ошибка сервера: " + e.getMessage());
+        }
+    }
+
+    /* Тело запроса - массив операций вида {"operation": "CREATE", "type": "SUBTASK", "item": {...}}.
+    Для UPDATE id берется из item, для DELETE вместо item указывается "id"
+     */
+    private List<Operation> parseOperations(HttpExchange exchange) throws IOException {
+        JsonArray array = parseRequestBody(exchange, JsonArray.class);
+        List<Operation> operations = new ArrayList<>(array.size());
+
+        for (JsonElement element : array) {
+            JsonObject object = element.getAsJsonObject();
+            OperationType type = parseEnum(object, "operation", OperationType.class);
+            TaskType taskType = parseEnum(object, "type", TaskType.class);
+
+            if (type == OperationType.DELETE) {
+                JsonElement id = object.get("id");
+                if (id == null || id.isJsonNull()) {
+                    throw new IllegalArgumentException("Для удаления не указан id");
+                }
+                operations.add(new Operation(type, taskType, id.getAsInt()));
+            } else {
+                JsonElement item = object.get("item");
+                if (item == null || item.isJsonNull()) {
+                    throw new IllegalArgumentException("Операция " + type + " не содержит item");
+                }
+                operations.add(new Operation(type, gson.fromJson(item, itemClass(taskType))));
+            }
+        }
+        return operations;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(JsonObject object, String name, Class<E> type) {
+        JsonElement value = object.get(name);
+        if (value == null || value.isJsonNull()) {
+            throw new IllegalArgumentException("Не указано поле " + name);
+        }
+        try {
+            return Enum.valueOf(type, value.getAsString().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестное значение поля " + name + ": " + value.getAsString());
+        }
+    }
+
+    private static Class<? extends Task> itemClass(TaskType taskType) {
+        return switch (taskType) {
+            case TASK -> Task.class;
+            case EPIC -> Epic.class;
+            case SUBTASK -> Subtask.class;
+        };
+    }
+}
@@ -2,12 +2,14 @@ package service.handlers;
 
 import com.google.gson.*;
 import com.sun.net.httpserver.HttpExchange;
+import enums.Status;
 import model.*;
 import service.exeptions.ManagerSaveException;
 import service.exeptions.NotFoundException;
 import service.managers.TaskManager;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.List;
 
 public class EpicHandler extends BaseHttpHandler {
@@ -52,12 +54,15 @@ public class EpicHandler extends BaseHttpHandler {
     private void handleGetRequest(HttpExchange exchange, String path) throws IOException {
         try {
             if (path.equals("/epics")) {
-                List<Epic> epics = taskManager.getAllEpics();
-                sendText(exchange, epics);
+                handleListRequest(exchange);
             } else if (path.startsWith("/epics/") && path.endsWith("/subtasks")) {
                 int epicId = parseIdFromPath(path.replace("/subtasks", ""));
                 List<Subtask> subtasks = taskManager.getSubtaskByEpic(epicId);
-                sendText(exchange, subtasks);
+                if (subtasks == null) {
+                    sendText(exchange, null);
+                } else {
+                    sendJsonStream(exchange, subtasks);
+                }
             } else {
                 int epicId = parseIdFromPath(path);
                 Epic epic = taskManager.getEpicById(epicId);
@@ -65,6 +70,8 @@ public class EpicHandler extends BaseHttpHandler {
             }
         } catch (NumberFormatException e) {
             sendErrorRequest(exchange, "Неверный формат ID эпика");
+        } catch (IllegalArgumentException e) {
+            sendErrorRequest(exchange, e.getMessage());
         } catch (NotFoundException e) {
             sendNotFound(exchange, e.getMessage());
         } catch (Exception e) {
@@ -72,6 +79,26 @@ public class EpicHandler extends BaseHttpHandler {
         }
     }
 
+    /* Список целиком, отфильтрованный по status или постранично в порядке id (limit и cursor);
+    курсор следующей страницы передается в заголовке X-Next-Cursor
+     */
+    private void handleListRequest(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange);
+        Status status = parseStatusParam(exchange);
+
+        if (isPageRequested(params)) {
+            if (status != null) {
+                throw new IllegalArgumentException("Параметр status нельзя сочетать с постраничной выдачей");
+            }
+            sendJsonPage(exchange, taskManager.getEpicsPage(params.get("cursor"), parseListLimit(params)));
+        } else if (status != null) {
+            sendJsonStream(exchange, taskManager.getEpicsByStatus(status));
+        } else {
+            sendJsonStream(exchange, taskManager.isThreadSafe()
+                    ? taskManager.viewAllEpics() : taskManager.getAllEpics());
+        }
+    }
+
     // Метод для обработки создания или обновления эпиков
     private void handlePostRequest(HttpExchange exchange) throws IOException {
         try {
@@ -1,11 +1,9 @@
 package service.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
-import model.Task;
 import service.managers.TaskManager;
 
 import java.io.IOException;
-import java.util.List;
 
 public class HistoryHandler extends BaseHttpHandler {
 
@@ -20,8 +18,7 @@ public class HistoryHandler extends BaseHttpHandler {
 
         try {
             if ("GET".equals(method)) {
-                List<Task> history = taskManager.getHistory();
-                sendText(exchange, history);
+                sendJsonStream(exchange, taskManager.getHistory());
             } else {
                 sendMethodNotAllowed(exchange, path);
             }
@@ -1,14 +1,19 @@
 package service.handlers;
 
 import com.sun.net.httpserver.HttpExchange;
-import model.Task;
 import service.managers.TaskManager;
 
 import java.io.IOException;
-import java.util.List;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
 
 public class PrioritizedHandler extends BaseHttpHandler {
 
+    private static final String FREE_SLOTS_PATH = "/prioritized/free-slots";
+    private static final int DEFAULT_FREE_SLOTS = 5;
+
     public PrioritizedHandler(TaskManager taskManager) {
         super(taskManager);
     }
@@ -19,14 +24,54 @@ public class PrioritizedHandler extends BaseHttpHandler {
         String path = exchange.getRequestURI().getPath();
 
         try {
-            if ("GET".equals(method)) {
-                List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
-                sendText(exchange, prioritizedTasks);
+            if ("GET".equals(method) && path.equals(FREE_SLOTS_PATH)) {
+                handleFreeSlotsRequest(exchange);
+            } else if ("GET".equals(method)) {
+                handleGetRequest(exchange);
             } else {
                 sendMethodNotAllowed(exchange, path);
             }
+        } catch (IllegalArgumentException e) {
+            sendErrorRequest(exchange, e.getMessage());
         } catch (Exception e) {
             sendServerErrorResponse(exchange, "Ошибка сервера: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Без параметров отдается все расписание, с параметрами from и to - только задачи, пересекающиеся с окном
+    private void handleGetRequest(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange);
+        LocalDateTime from = parseDateTimeParam(params, "from");
+        LocalDateTime to = parseDateTimeParam(params, "to");
+
+        if (from == null && to == null) {
+            sendJsonStream(exchange, taskManager.isThreadSafe()
+                    ? taskManager.viewPrioritizedTasks() : taskManager.getPrioritizedTasks());
+        } else {
+            sendJsonStream(exchange, taskManager.getPrioritizedTasks(from, to));
+        }
+    }
+
+    /* Поиск свободных промежутков: duration - продолжительность в формате ISO (PT30M),
+    after - начало поиска (по умолчанию текущий момент), limit - число промежутков
+     */
+    private void handleFreeSlotsRequest(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange);
+        String durationParam = params.get("duration");
+        if (durationParam == null || durationParam.isEmpty()) {
+            throw new IllegalArgumentException("Не указан параметр duration");
+        }
+
+        Duration duration;
+        try {
+            duration = Duration.parse(durationParam);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Неверный формат продолжительности. Ожидается PTnHnMnS");
+        }
+        LocalDateTime after = parseDateTimeParam(params, "after");
+        int limit = parseIntParam(params, "limit", DEFAULT_FREE_SLOTS);
+
+        sendJsonStream(exchange, taskManager.findFreeSlots(after == null ? LocalDateTime.now() : after,
+                duration, limit));
+    }
+}
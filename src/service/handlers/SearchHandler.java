@@ -0,0 +1,48 @@
+package service.handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+import service.managers.TaskManager;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class SearchHandler extends BaseHttpHandler {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    public SearchHandler(TaskManager taskManager) {
+        super(taskManager);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+
+        try {
+            if ("GET".equals(method)) {
+                handleGetRequest(exchange);
+            } else {
+                sendMethodNotAllowed(exchange, path);
+            }
+        } catch (IllegalArgumentException e) {
+            sendErrorRequest(exchange, e.getMessage());
+        } catch (Exception e) {
+            sendServerErrorResponse(exchange, "Ошибка сервера: " + e.getMessage());
+        }
+    }
+
+    // Поиск по строке q: результаты по убыванию релевантности, страница задается offset и limit
+    private void handleGetRequest(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange);
+        String query = params.get("q");
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Не указан параметр q");
+        }
+
+        int offset = parseIntParam(params, "offset", 0);
+        int limit = Math.min(parseIntParam(params, "limit", DEFAULT_PAGE_SIZE), MAX_PAGE_SIZE);
+        sendJsonStream(exchange, taskManager.search(query, offset, limit));
+    }
+}
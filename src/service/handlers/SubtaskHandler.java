@@ -2,6 +2,7 @@ package service.handlers;
 
 import com.google.gson.*;
 import com.sun.net.httpserver.HttpExchange;
+import enums.Status;
 import model.Subtask;
 import service.exeptions.ManagerSaveException;
 import service.exeptions.NotFoundException;
@@ -9,7 +10,7 @@ import service.exeptions.TimeOverlapException;
 import service.managers.TaskManager;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.Map;
 
 public class SubtaskHandler extends BaseHttpHandler {
 
@@ -55,8 +56,7 @@ public class SubtaskHandler extends BaseHttpHandler {
     private void handleGetRequest(HttpExchange exchange, String path) throws IOException {
         try {
             if (path.equals("/subtasks")) {
-                List<Subtask> subtasks = taskManager.getAllSubtasks();
-                sendText(exchange, subtasks);
+                handleListRequest(exchange);
             } else {
                 int subtaskId = parseIdFromPath(path);
                 Subtask subtask = taskManager.getSubtaskById(subtaskId);
@@ -64,6 +64,8 @@ public class SubtaskHandler extends BaseHttpHandler {
             }
         } catch (NumberFormatException e) {
             sendErrorRequest(exchange, "Неверный формат ID подзадачи");
+        } catch (IllegalArgumentException e) {
+            sendErrorRequest(exchange, e.getMessage());
         } catch (NotFoundException e) {
             sendNotFound(exchange, e.getMessage());
         } catch (Exception e) {
@@ -71,6 +73,26 @@ public class SubtaskHandler extends BaseHttpHandler {
         }
     }
 
+    /* Список целиком, отфильтрованный по status или постранично в порядке id (limit и cursor);
+    курсор следующей страницы передается в заголовке X-Next-Cursor
+     */
+    private void handleListRequest(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange);
+        Status status = parseStatusParam(exchange);
+
+        if (isPageRequested(params)) {
+            if (status != null) {
+                throw new IllegalArgumentException("Параметр status нельзя сочетать с постраничной выдачей");
+            }
+            sendJsonPage(exchange, taskManager.getSubtasksPage(params.get("cursor"), parseListLimit(params)));
+        } else if (status != null) {
+            sendJsonStream(exchange, taskManager.getSubtasksByStatus(status));
+        } else {
+            sendJsonStream(exchange, taskManager.isThreadSafe()
+                    ? taskManager.viewAllSubtasks() : taskManager.getAllSubtasks());
+        }
+    }
+
     // Метод для обработки создания или обновления подзадач
     private void handlePostRequest(HttpExchange exchange) throws IOException {
         try {
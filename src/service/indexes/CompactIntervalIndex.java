@@ -0,0 +1,197 @@
+package service.indexes;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Компактный индекс интервалов для менеджеров, не удерживающих объекты задач в памяти.
+ * Интервал - три числа: начало и конец в секундах от начала эпохи и номер записи задачи.
+ * Интервалы хранятся в блоках из параллельных массивов long и int, упорядоченных по началу и номеру записи;
+ * блоки лежат в TreeMap по наименьшему началу. Вставка и удаление сдвигают элементы только внутри блока
+ * и стоят O(log n + BUCKET_SIZE), а один интервал занимает около 20 байт.
+ * Пересечения ищутся среди интервалов, начинающихся не раньше начала запроса минус наибольшая длина
+ * интервала, поэтому проверка не зависит от размера расписания, пока в нем нет очень длинных задач.
+ * Границы в целых секундах приблизительные: вызывающий код уточняет найденные записи по точному времени.
+ */
+
+public class CompactIntervalIndex {
+
+    public static final int NONE = -1;
+
+    private static final int BUCKET_SIZE = 512;
+
+    private final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+    private long maxLength;
+    private int size;
+
+    // Метод добавляет интервал [start, end] записи slot
+    public void add(long start, long end, int slot) {
+        maxLength = Math.max(maxLength, end - start);
+        size++;
+
+        Map.Entry<Long, Bucket> entry = buckets.floorEntry(start);
+        Bucket bucket;
+        if (entry == null) {
+            // Интервал начинается раньше всех: первый блок (или новый) получает его начало ключом
+            entry = buckets.pollFirstEntry();
+            bucket = entry == null ? new Bucket(BUCKET_SIZE + 1) : entry.getValue();
+            buckets.put(start, bucket);
+        } else {
+            bucket = entry.getValue();
+        }
+        bucket.insert(bucket.position(start, slot), start, end, slot);
+        if (bucket.size > BUCKET_SIZE) {
+            split(bucket);
+        }
+    }
+
+    // Метод удаляет интервал записи slot, начинающийся в start; возвращает false, если его нет
+    public boolean remove(long start, int slot) {
+        Map.Entry<Long, Bucket> entry = buckets.floorEntry(start);
+        if (entry == null) {
+            return false;
+        }
+        Bucket bucket = entry.getValue();
+        int position = bucket.position(start, slot);
+        if (position == bucket.size || bucket.starts[position] != start || bucket.slots[position] != slot) {
+            return false;
+        }
+
+        bucket.delete(position);
+        size--;
+        if (bucket.size == 0) {
+            buckets.remove(entry.getKey());
+        }
+        return true;
+    }
+
+    /* Метод возвращает первую по началу запись, интервал которой пересекается с [from, to]
+    и которая удовлетворяет условию match, или NONE
+     */
+    public int findOverlapping(long from, long to, IntPredicate match) {
+        long lowest = from - maxLength;
+        return scan(lowest > from ? Long.MIN_VALUE : lowest, to, from, match);
+    }
+
+    // Метод передает записи с началом в [from, to] в порядке начала и номера записи
+    public void forEachStarting(long from, long to, IntConsumer action) {
+        scan(from, to, Long.MIN_VALUE, slot -> {
+            action.accept(slot);
+            return false;
+        });
+    }
+
+    public void clear() {
+        buckets.clear();
+        maxLength = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Обход интервалов с началом в [from, to] и концом не раньше minEnd до первого совпадения
+    private int scan(long from, long to, long minEnd, IntPredicate match) {
+        Long firstKey = buckets.floorKey(from);
+        NavigableMap<Long, Bucket> tail = firstKey == null ? buckets : buckets.tailMap(firstKey, true);
+        for (Bucket bucket : tail.values()) {
+            for (int i = bucket.position(from, Integer.MIN_VALUE); i < bucket.size; i++) {
+                if (bucket.starts[i] > to) {
+                    return NONE;
+                }
+                if (bucket.ends[i] >= minEnd && match.test(bucket.slots[i])) {
+                    return bucket.slots[i];
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /* Разделение переполненного блока пополам. Интервалы с одинаковым началом не разносятся по разным блокам,
+    иначе ключи блоков совпали бы; блок из одинаковых начал остается целым и просто растет
+     */
+    private void split(Bucket bucket) {
+        int middle = bucket.size / 2;
+        while (middle < bucket.size && bucket.starts[middle] == bucket.starts[middle - 1]) {
+            middle++;
+        }
+        if (middle == bucket.size) {
+            middle = bucket.size / 2;
+            while (middle > 0 && bucket.starts[middle] == bucket.starts[middle - 1]) {
+                middle--;
+            }
+            if (middle == 0) {
+                return;
+            }
+        }
+        buckets.put(bucket.starts[middle], bucket.splitFrom(middle));
+    }
+
+    // Блок интервалов: параллельные массивы начала, конца и номера записи
+    private static final class Bucket {
+        private long[] starts;
+        private long[] ends;
+        private int[] slots;
+        private int size;
+
+        private Bucket(int capacity) {
+            starts = new long[capacity];
+            ends = new long[capacity];
+            slots = new int[capacity];
+        }
+
+        // Позиция первого интервала, не меньшего (start, slot)
+        private int position(long start, int slot) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] < start || starts[middle] == start && slots[middle] < slot) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private void insert(int position, long start, long end, int slot) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(starts, position, starts, position + 1, size - position);
+            System.arraycopy(ends, position, ends, position + 1, size - position);
+            System.arraycopy(slots, position, slots, position + 1, size - position);
+            starts[position] = start;
+            ends[position] = end;
+            slots[position] = slot;
+            size++;
+        }
+
+        private void delete(int position) {
+            System.arraycopy(starts, position + 1, starts, position, size - position - 1);
+            System.arraycopy(ends, position + 1, ends, position, size - position - 1);
+            System.arraycopy(slots, position + 1, slots, position, size - position - 1);
+            size--;
+        }
+
+        // Перенос интервалов начиная с from в новый блок
+        private Bucket splitFrom(int from) {
+            int moved = size - from;
+            Bucket tail = new Bucket(Math.max(BUCKET_SIZE + 1, moved));
+            System.arraycopy(starts, from, tail.starts, 0, moved);
+            System.arraycopy(ends, from, tail.ends, 0, moved);
+            System.arraycopy(slots, from, tail.slots, 0, moved);
+            tail.size = moved;
+            size = from;
+            return tail;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package service.indexes;
+
+import model.Task;
+import model.TimeSlot;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Поиск свободных промежутков расписания за один проход по задачам, упорядоченным по времени начала.
+ * Задачи без продолжительности занимают только момент начала и, как и при проверке пересечений,
+ * промежутки не разрывают.
+ */
+
+public final class FreeSlotFinder {
+
+    private FreeSlotFinder() {
+    }
+
+    /* Метод возвращает не более limit промежутков, в которые помещается задача продолжительностью duration.
+    tasks - задачи, начинающиеся не раньше from, в порядке времени начала; from - момент, с которого
+    расписание свободно (конец задачи, идущей в момент начала поиска, либо сам момент начала).
+    Последний промежуток может быть открытым, если расписание после него пусто
+     */
+    public static List<TimeSlot> find(Iterable<Task> tasks, LocalDateTime from, Duration duration, int limit) {
+        List<TimeSlot> slots = new ArrayList<>();
+        LocalDateTime cursor = from;
+
+        for (Task task : tasks) {
+            if (task.getDuration() == null) {
+                continue;
+            }
+            TimeSlot gap = new TimeSlot(cursor, task.getStartTime());
+            if (task.getStartTime().isAfter(cursor) && gap.fits(duration)) {
+                slots.add(gap);
+                if (slots.size() == limit) {
+                    return slots;
+                }
+            }
+            if (task.getEndTime().isAfter(cursor)) {
+                cursor = task.getEndTime();
+            }
+        }
+
+        slots.add(new TimeSlot(cursor, null));
+        return slots;
+    }
+
+    // Проверка параметров поиска, общая для всех менеджеров
+    public static void validate(LocalDateTime after, Duration duration, int limit) {
+        if (after == null) {
+            throw new IllegalArgumentException("Не задано время начала поиска");
+        }
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Продолжительность должна быть положительной");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Число промежутков должно быть положительным");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package service.indexes;
+
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Список задач, упорядоченных по времени начала (при равном времени - по id).
+ * Рядом с упорядоченным деревом хранится индекс id -> ключ дерева, поэтому задача удаляется
+ * по id за O(log N) без обхода всего списка и даже после того, как ее время изменили в обход менеджера.
+ * Массовое удаление k задач стоит O(k log N); если удаляется заметная доля списка,
+ * дерево вместо этого проходится один раз целиком.
+ * Задачи без времени начала в список не попадают.
+ * Для многопоточного менеджера список строится на конкурентных коллекциях: изменения по-прежнему
+ * выполняются одним потоком под блокировкой записи, а чтение идет без блокировок и слабо согласовано.
+ */
+
+public class PriorityIndex {
+
+    // Начиная с этой доли удаляемых задач выгоднее один проход по дереву, чем k отдельных удалений
+    private static final int SWEEP_DIVISOR = 4;
+
+    private final NavigableMap<Key, Task> entries;
+    private final Map<Integer, Key> keysById;
+
+    public PriorityIndex() {
+        this(false);
+    }
+
+    public PriorityIndex(boolean concurrentReads) {
+        this.entries = concurrentReads ? new ConcurrentSkipListMap<>() : new TreeMap<>();
+        this.keysById = concurrentReads ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    // Метод добавляет задачу в список; прежняя запись с тем же id заменяется
+    public void add(Task task) {
+        if (task == null || task.getStartTime() == null || task.getId() == null) {
+            return;
+        }
+        remove(task.getId());
+        Key key = new Key(task.getStartTime(), task.getId());
+        entries.put(key, task);
+        keysById.put(task.getId(), key);
+    }
+
+    // Метод удаляет задачу по id
+    public void remove(Integer id) {
+        if (id == null) {
+            return;
+        }
+        Key key = keysById.remove(id);
+        if (key != null) {
+            entries.remove(key);
+        }
+    }
+
+    // Метод удаляет все задачи с указанными id
+    public void removeAll(Collection<Integer> ids) {
+        if (ids.isEmpty() || keysById.isEmpty()) {
+            return;
+        }
+        if ((long) ids.size() * SWEEP_DIVISOR < entries.size()) {
+            ids.forEach(this::remove);
+            return;
+        }
+
+        Set<Integer> removed = ids instanceof Set<Integer> set ? set : new HashSet<>(ids);
+        entries.keySet().removeIf(key -> removed.contains(key.id()));
+        keysById.keySet().removeIf(removed::contains);
+    }
+
+    public void clear() {
+        entries.clear();
+        keysById.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Метод проверяет, есть ли в списке задача с указанным id
+    public boolean contains(Integer id) {
+        return id != null && keysById.containsKey(id);
+    }
+
+    /* Метод возвращает задачи, которые начинаются в окне [from, to), в порядке времени начала.
+    Граница null означает отсутствие ограничения; стоимость пропорциональна размеру результата
+     */
+    public List<Task> startingBetween(LocalDateTime from, LocalDateTime to) {
+        NavigableMap<Key, Task> window = entries;
+        if (from != null) {
+            window = window.tailMap(new Key(from, Integer.MIN_VALUE), true);
+        }
+        if (to != null) {
+            window = window.headMap(new Key(to, Integer.MIN_VALUE), false);
+        }
+        return new ArrayList<>(window.values());
+    }
+
+    // Представление задач, начинающихся не раньше from, в порядке времени начала
+    public Collection<Task> startingFrom(LocalDateTime from) {
+        return Collections.unmodifiableCollection(entries.tailMap(new Key(from, Integer.MIN_VALUE), true).values());
+    }
+
+    // Упорядоченное представление списка только для чтения
+    public Collection<Task> values() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    // Ключ дерева: время начала и id на момент добавления задачи
+    private record Key(LocalDateTime start, int id) implements Comparable<Key> {
+
+        @Override
+        public int compareTo(Key other) {
+            int byStart = start.compareTo(other.start);
+            return byStart != 0 ? byStart : Integer.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package service.indexes;
+
+import model.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Карта занятости расписания для досок, где время задач кратно шагу сетки (например, 15 минут).
+ * Каждый месяц - отдельная страница BitSet, один бит на ячейку сетки; страницы создаются
+ * только для месяцев, в которых есть задачи, и освобождаются, когда месяц пустеет.
+ * Проверка пересечения и бронирование сводятся к операциям над словами битовой карты
+ * и не зависят от числа задач в расписании.
+ * Задачи без времени начала или продолжительности в карту не попадают.
+ */
+
+public class SlotOccupancyIndex {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int slotMinutes;
+    private final Map<YearMonth, BitSet> pages = new HashMap<>();
+    private final Map<Integer, Reservation> reservations = new HashMap<>();
+
+    public SlotOccupancyIndex(Duration slot) {
+        if (slot == null || slot.toMinutes() <= 0 || !slot.equals(Duration.ofMinutes(slot.toMinutes()))
+                || MINUTES_PER_DAY % slot.toMinutes() != 0) {
+            throw new IllegalArgumentException("Шаг сетки должен быть целым числом минут, на которое делятся сутки");
+        }
+        this.slotMinutes = (int) slot.toMinutes();
+    }
+
+    // Метод проверяет, что время начала и продолжительность задачи кратны шагу сетки
+    public boolean isAligned(Task task) {
+        if (task.getStartTime() == null || task.getDuration() == null) {
+            return true;
+        }
+        LocalDateTime start = task.getStartTime();
+        Duration duration = task.getDuration();
+        int minuteOfDay = start.getHour() * 60 + start.getMinute();
+        return start.getSecond() == 0 && start.getNano() == 0 && minuteOfDay % slotMinutes == 0
+                && duration.equals(Duration.ofMinutes(duration.toMinutes())) && duration.toMinutes() % slotMinutes == 0;
+    }
+
+    // Метод проверяет, занята ли хотя бы одна ячейка, которую займет задача
+    public boolean hasIntersection(Task task) {
+        return hasIntersection(task, null);
+    }
+
+    /* Проверка пересечения без учета брони задачи ignoredId (например, изменяемой): ячейки, попадающие
+    в ее бронь, пропускаются. Брони не пересекаются, поэтому все такие ячейки принадлежат ей
+     */
+    public boolean hasIntersection(Task task, Integer ignoredId) {
+        Reservation reservation = Reservation.of(task);
+        if (reservation == null) {
+            return false;
+        }
+        Reservation ignored = ignoredId == null ? null : reservations.get(ignoredId);
+
+        LocalDateTime cursor = reservation.start();
+        while (cursor.isBefore(reservation.end())) {
+            YearMonth month = YearMonth.from(cursor);
+            LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+            BitSet page = pages.get(month);
+            if (page != null) {
+                int from = slotOf(cursor);
+                int to = slotOf(min(reservation.end(), monthEnd), month);
+                int occupied = page.nextSetBit(from);
+                while (occupied >= 0 && occupied < to) {
+                    if (ignored == null || !ignored.covers(slotStart(month, occupied))) {
+                        return true;
+                    }
+                    occupied = page.nextSetBit(occupied + 1);
+                }
+            }
+            cursor = monthEnd;
+        }
+        return false;
+    }
+
+    // Метод бронирует ячейки задачи; время задачи должно быть выровнено по сетке
+    public void add(Task task) {
+        Reservation reservation = Reservation.of(task);
+        if (reservation == null) {
+            return;
+        }
+        if (!isAligned(task)) {
+            throw new IllegalArgumentException("Время задачи не совпадает с сеткой расписания");
+        }
+
+        remove(task);
+        reservations.put(task.getId(), reservation);
+        LocalDateTime cursor = reservation.start();
+        while (cursor.isBefore(reservation.end())) {
+            YearMonth month = YearMonth.from(cursor);
+            LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+            BitSet page = pages.computeIfAbsent(month, key -> new BitSet(slotsIn(key)));
+            page.set(slotOf(cursor), slotOf(min(reservation.end(), monthEnd), month));
+            cursor = monthEnd;
+        }
+    }
+
+    // Метод снимает бронь задачи по id, поэтому не зависит от последующих изменений ее времени
+    public void remove(Task task) {
+        if (task == null || task.getId() == null) {
+            return;
+        }
+        Reservation reservation = reservations.remove(task.getId());
+        if (reservation == null) {
+            return;
+        }
+
+        LocalDateTime cursor = reservation.start();
+        while (cursor.isBefore(reservation.end())) {
+            YearMonth month = YearMonth.from(cursor);
+            LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+            BitSet page = pages.get(month);
+            if (page != null) {
+                page.clear(slotOf(cursor), slotOf(min(reservation.end(), monthEnd), month));
+                if (page.isEmpty()) {
+                    pages.remove(month);
+                }
+            }
+            cursor = monthEnd;
+        }
+    }
+
+    public void clear() {
+        pages.clear();
+        reservations.clear();
+    }
+
+    // Число выделенных страниц-месяцев
+    public int pageCount() {
+        return pages.size();
+    }
+
+    // Номер ячейки внутри месяца, к которому относится момент
+    private int slotOf(LocalDateTime moment) {
+        return slotOf(moment, YearMonth.from(moment));
+    }
+
+    // Номер ячейки относительно начала месяца; для начала следующего месяца - число ячеек месяца
+    private int slotOf(LocalDateTime moment, YearMonth month) {
+        long minutes = Duration.between(month.atDay(1).atStartOfDay(), moment).toMinutes();
+        return (int) (minutes / slotMinutes);
+    }
+
+    // Момент начала ячейки slot в месяце
+    private LocalDateTime slotStart(YearMonth month, int slot) {
+        return month.atDay(1).atStartOfDay().plusMinutes((long) slot * slotMinutes);
+    }
+
+    private int slotsIn(YearMonth month) {
+        return month.lengthOfMonth() * (MINUTES_PER_DAY / slotMinutes);
+    }
+
+    private static LocalDateTime min(LocalDateTime first, LocalDateTime second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    // Забронированный интервал [start, end) на момент добавления задачи
+    private record Reservation(LocalDateTime start, LocalDateTime end) {
+
+        static Reservation of(Task task) {
+            if (task == null || task.getStartTime() == null || task.getDuration() == null
+                    || task.getDuration().isZero()) {
+                return null;
+            }
+            return new Reservation(task.getStartTime(), task.getEndTime());
+        }
+
+        boolean covers(LocalDateTime moment) {
+            return !moment.isBefore(start) && moment.isBefore(end);
+        }
+    }
+}
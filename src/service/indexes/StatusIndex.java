@@ -0,0 +1,63 @@
+package service.indexes;
+
+import enums.Status;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Вторичный индекс id задач по статусу.
+ * Перенос id между множествами статусов выполняется атомарно для каждого id,
+ * поэтому индекс можно обновлять из нескольких потоков без общей блокировки.
+ * Индекс отражает статусы на момент последней операции менеджера с задачей.
+ */
+
+public class StatusIndex {
+
+    private final Map<Integer, Status> statusById = new ConcurrentHashMap<>();
+    private final Map<Status, Set<Integer>> idsByStatus = new EnumMap<>(Status.class);
+
+    public StatusIndex() {
+        for (Status status : Status.values()) {
+            idsByStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    // Метод запоминает текущий статус задачи, перенося ее id из множества прежнего статуса
+    public void put(Integer id, Status status) {
+        if (id == null || status == null) {
+            return;
+        }
+        statusById.compute(id, (key, previous) -> {
+            if (previous != null && previous != status) {
+                idsByStatus.get(previous).remove(key);
+            }
+            idsByStatus.get(status).add(key);
+            return status;
+        });
+    }
+
+    // Метод удаляет задачу из индекса
+    public void remove(Integer id) {
+        if (id == null) {
+            return;
+        }
+        statusById.computeIfPresent(id, (key, previous) -> {
+            idsByStatus.get(previous).remove(key);
+            return null;
+        });
+    }
+
+    public void clear() {
+        statusById.clear();
+        idsByStatus.values().forEach(Set::clear);
+    }
+
+    // Представление id задач с указанным статусом только для чтения
+    public Set<Integer> ids(Status status) {
+        return Collections.unmodifiableSet(idsByStatus.get(status));
+    }
+}
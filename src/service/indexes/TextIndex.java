@@ -0,0 +1,226 @@
+package service.indexes;
+
+import model.Task;
+
+import java.util.*;
+
+/**
+ * Инвертированный индекс по названию и описанию задач.
+ * Текст разбивается на слова из букв и цифр в нижнем регистре; для каждого слова хранится
+ * список id задач (упорядоченный массив int) с числом вхождений слова в задачу.
+ * Поиск ранжирует задачи по сумме весов tf-idf найденных слов, при равном весе - по id.
+ * Индекс отражает название и описание на момент последней операции менеджера с задачей.
+ * Массовое удаление сжимает каждый затронутый список за один проход, а удаление всех задач очищает индекс.
+ */
+
+public class TextIndex {
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, String[]> termsById = new HashMap<>();
+
+    // Метод индексирует задачу, заменяя прежние слова задачи с тем же id
+    public void put(Task task) {
+        if (task == null || task.getId() == null) {
+            return;
+        }
+        index(Terms.of(task));
+    }
+
+    /* Массовое индексирование: слова задач выделяются параллельно, затем задачи заносятся в списки
+    по возрастанию id, так что каждый список только дописывается в конец
+     */
+    public void putAll(Collection<? extends Task> tasks) {
+        List<Terms> indexed = tasks.parallelStream()
+                .filter(task -> task != null && task.getId() != null)
+                .map(Terms::of)
+                .sorted(Comparator.comparingInt(Terms::id))
+                .toList();
+        indexed.forEach(this::index);
+    }
+
+    private void index(Terms terms) {
+        int id = terms.id();
+        remove(id);
+        terms.frequencies().forEach((term, frequency) -> postings.computeIfAbsent(term, key -> new Postings())
+                .put(id, frequency));
+        termsById.put(id, terms.frequencies().keySet().toArray(new String[0]));
+    }
+
+    // Метод удаляет задачу из индекса
+    public void remove(Integer id) {
+        String[] terms = id == null ? null : termsById.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            list.remove(id);
+            if (list.size == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /* Метод удаляет задачи с указанными id. Удаление по одной сдвигало бы хвост списка слова на каждую задачу,
+    что для k задач с общим словом стоит O(k * n); здесь каждый затронутый список сжимается один раз
+     */
+    public void removeAll(Collection<Integer> ids) {
+        if (ids.isEmpty() || termsById.isEmpty()) {
+            return;
+        }
+        Set<Integer> removed = new HashSet<>(ids);
+        if (removed.size() >= termsById.size() && removed.containsAll(termsById.keySet())) {
+            clear();
+            return;
+        }
+
+        Set<String> touched = new HashSet<>();
+        for (Integer id : removed) {
+            String[] terms = id == null ? null : termsById.remove(id);
+            if (terms != null) {
+                touched.addAll(Arrays.asList(terms));
+            }
+        }
+        for (String term : touched) {
+            Postings list = postings.get(term);
+            list.removeAll(removed);
+            if (list.size == 0) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        termsById.clear();
+    }
+
+    public int size() {
+        return termsById.size();
+    }
+
+    /* Метод возвращает id задач, содержащих хотя бы одно слово запроса, по убыванию релевантности.
+    Страница задается смещением offset и размером limit; в памяти держится только offset + limit лучших задач
+     */
+    public List<Integer> search(String query, int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Смещение не может быть отрицательным, а размер страницы - нулевым");
+        }
+
+        Map<Integer, Double> scores = new HashMap<>();
+        int documents = termsById.size();
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            double idf = Math.log(1.0 + (double) documents / list.size);
+            for (int i = 0; i < list.size; i++) {
+                scores.merge(list.ids[i], (1.0 + Math.log(list.frequencies[i])) * idf, Double::sum);
+            }
+        }
+
+        Comparator<Map.Entry<Integer, Double>> ranking = Map.Entry.<Integer, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        long keep = (long) offset + limit;
+        PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<>(ranking.reversed());
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            best.add(entry);
+            if (best.size() > keep) {
+                best.poll();
+            }
+        }
+
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(best);
+        ranked.sort(ranking);
+        return ranked.stream()
+                .skip(offset)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    // Разбиение текста на слова из букв и цифр в нижнем регистре
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    // Слова задачи с числом вхождений в название и описание
+    private record Terms(int id, Map<String, Integer> frequencies) {
+
+        private static Terms of(Task task) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String term : tokenize(task.getTitle())) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            for (String term : tokenize(task.getDescription())) {
+                frequencies.merge(term, 1, Integer::sum);
+            }
+            return new Terms(task.getId(), frequencies);
+        }
+    }
+
+    // Упорядоченный по id список задач, содержащих слово, с числом вхождений
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void put(int id, int frequency) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                frequencies[position] = frequency;
+                return;
+            }
+
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+            ids[position] = id;
+            frequencies[position] = frequency;
+            size++;
+        }
+
+        void remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+            size--;
+        }
+
+        // Сжатие списка за один проход: оставшиеся записи сдвигаются к началу с сохранением порядка
+        void removeAll(Set<Integer> removed) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed.contains(ids[i])) {
+                    ids[kept] = ids[i];
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package service.indexes;
+
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Индекс временных интервалов задач.
+ * Интервалы [startTime, endTime) хранятся упорядоченными по времени начала.
+ * Так как менеджер не допускает пересечений, проверка нового интервала сводится
+ * к просмотру его ближайших соседей за O(log N) вместо обхода всего расписания.
+ * Рядом с деревом хранится индекс id -> интервал, поэтому задача удаляется по id
+ * даже после того, как ее время изменили на месте до вызова обновления.
+ * Задачи без времени начала или продолжительности в индекс не попадают.
+ */
+
+public class TimeIntervalIndex {
+
+    private final NavigableMap<Interval, Task> intervals = new TreeMap<>();
+    private final Map<Integer, Interval> intervalsById = new HashMap<>();
+
+    // Метод добавляет задачу в индекс; прежний интервал задачи с тем же id заменяется
+    public void add(Task task) {
+        if (task == null || task.getId() == null) {
+            return;
+        }
+        remove(task.getId());
+        Interval interval = Interval.of(task);
+        if (interval != null) {
+            intervals.put(interval, task);
+            intervalsById.put(task.getId(), interval);
+        }
+    }
+
+    // Метод удаляет задачу из индекса по id, а не по ее текущему времени
+    public void remove(Task task) {
+        if (task != null) {
+            remove(task.getId());
+        }
+    }
+
+    // Метод удаляет интервал задачи с указанным id
+    public void remove(Integer id) {
+        Interval interval = intervalsById.remove(id);
+        if (interval != null) {
+            intervals.remove(interval);
+        }
+    }
+
+    // Метод очищает индекс
+    public void clear() {
+        intervals.clear();
+        intervalsById.clear();
+    }
+
+    public int size() {
+        return intervals.size();
+    }
+
+    // Метод возвращает задачу, которая началась раньше момента point и еще не закончилась к нему
+    public Task findCovering(LocalDateTime point) {
+        Map.Entry<Interval, Task> lower = intervals.lowerEntry(new Interval(point, point, Integer.MIN_VALUE));
+        if (lower != null && lower.getKey().end().isAfter(point)) {
+            return lower.getValue();
+        }
+        return null;
+    }
+
+    // Метод проверяет, пересекается ли задача по времени с уже проиндексированными
+    public boolean hasIntersection(Task task) {
+        return hasIntersection(task, Set.of());
+    }
+
+    /* Метод проверяет пересечение, не учитывая задачи с id из ignoredIds (например, удаляемые или изменяемые).
+    Если пропущен ближайший сосед слева, то более ранние интервалы заканчиваются не позже его начала
+    и с новым интервалом пересечься не могут
+     */
+    public boolean hasIntersection(Task task, Set<Integer> ignoredIds) {
+        if (task == null || task.getStartTime() == null || task.getDuration() == null) {
+            return false;
+        }
+
+        LocalDateTime newStart = task.getStartTime();
+        LocalDateTime newEnd = task.getEndTime();
+        Interval probe = new Interval(newStart, newStart, Integer.MIN_VALUE);
+
+        // Интервал, начинающийся раньше нового: среди непересекающихся у него самый поздний конец
+        Map.Entry<Interval, Task> lower = intervals.lowerEntry(probe);
+        if (lower != null && lower.getKey().end().isAfter(newStart) && !ignoredIds.contains(lower.getKey().id())) {
+            return true;
+        }
+
+        // Интервалы, начинающиеся внутри нового
+        for (Interval interval : intervals.tailMap(probe, true).keySet()) {
+            if (!interval.start().isBefore(newEnd)) {
+                return false;
+            }
+            if (interval.end().isAfter(newStart) && !ignoredIds.contains(interval.id())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Вспомогательная запись интервала: ключ индекса, не зависящий от последующих изменений задачи
+    private record Interval(LocalDateTime start, LocalDateTime end, int id) implements Comparable<Interval> {
+
+        private static final Comparator<Interval> ORDER = Comparator.comparing(Interval::start)
+                .thenComparing(Interval::end)
+                .thenComparingInt(Interval::id);
+
+        static Interval of(Task task) {
+            if (task.getStartTime() == null || task.getDuration() == null || task.getId() == null) {
+                return null;
+            }
+            return new Interval(task.getStartTime(), task.getEndTime(), task.getId());
+        }
+
+        @Override
+        public int compareTo(Interval other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package service.managers;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * История просмотров без объектов-узлов: задачи лежат в массиве ячеек,
+ * а ссылки списка prev/next хранятся в примитивных массивах int[] по номеру ячейки.
+ * Поиск ячейки по id выполняется в хеш-таблице с открытой адресацией (линейное пробирование),
+ * удаление из таблицы делается обратным сдвигом, без «надгробий».
+ * После того как массивы выросли до рабочего размера, add и remove не создают новых объектов.
+ * Емкость ограничивается так же, как в InMemoryHistoryManager: при переполнении вытесняется
+ * самая давно просмотренная задача.
+ */
+
+public class ArrayHistoryManager implements HistoryManager {
+
+    private static final int NIL = -1;
+    private static final int INITIAL_SLOTS = 16;
+
+    private final int capacity;
+
+    private Task[] tasks;
+    private int[] ids;
+    private int[] prev;
+    private int[] next;
+    private int[] table;
+    private int mask;
+
+    private int head = NIL;
+    private int tail = NIL;
+    private int freeHead = NIL;
+    private int size;
+
+    public ArrayHistoryManager() {
+        this(InMemoryHistoryManager.UNLIMITED);
+    }
+
+    public ArrayHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость истории должна быть положительной");
+        }
+        this.capacity = capacity;
+        allocate(Math.min(INITIAL_SLOTS, capacity));
+    }
+
+    // Метод добавляет задачу в конец истории; повторный просмотр переносит ячейку в конец без выделения памяти
+    @Override
+    public void add(Task task) {
+        int id = task.getId();
+        int position = find(id);
+
+        if (position != NIL) {
+            int slot = table[position];
+            unlink(slot);
+            tasks[slot] = task;
+            linkLast(slot);
+            return;
+        }
+
+        if (size == capacity) {
+            removeSlot(head);
+        }
+        if (freeHead == NIL) {
+            grow();
+        }
+
+        int slot = freeHead;
+        freeHead = next[slot];
+        ids[slot] = id;
+        tasks[slot] = task;
+        insert(slot);
+        linkLast(slot);
+        size++;
+    }
+
+    @Override
+    public void remove(Integer id) {
+        if (id == null) {
+            return;
+        }
+        int position = find(id);
+        if (position != NIL) {
+            removeSlot(table[position]);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        List<Task> history = new ArrayList<>(size);
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            history.add(tasks[slot]);
+        }
+        return history;
+    }
+
+    // Метод освобождает ячейку: убирает ее из таблицы и из списка, возвращает в список свободных
+    private void removeSlot(int slot) {
+        delete(find(ids[slot]));
+        unlink(slot);
+        tasks[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+    }
+
+    // Методы работы со списком просмотров
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NIL;
+        if (tail == NIL) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NIL) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NIL) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+
+    // Методы хеш-таблицы id -> ячейка
+    private int find(int id) {
+        int position = hash(id) & mask;
+        while (table[position] != NIL) {
+            if (ids[table[position]] == id) {
+                return position;
+            }
+            position = (position + 1) & mask;
+        }
+        return NIL;
+    }
+
+    private void insert(int slot) {
+        int position = hash(ids[slot]) & mask;
+        while (table[position] != NIL) {
+            position = (position + 1) & mask;
+        }
+        table[position] = slot;
+    }
+
+    // Удаление обратным сдвигом: следующие записи кластера переносятся на освободившееся место
+    private void delete(int position) {
+        int hole = position;
+        int current = position;
+        while (true) {
+            current = (current + 1) & mask;
+            if (table[current] == NIL) {
+                break;
+            }
+            int home = hash(ids[table[current]]) & mask;
+            boolean reachable = hole <= current
+                    ? hole < home && home <= current
+                    : hole < home || home <= current;
+            if (!reachable) {
+                table[hole] = table[current];
+                hole = current;
+            }
+        }
+        table[hole] = NIL;
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Методы выделения памяти: массивы растут вдвое, пока не достигнут емкости истории
+    private void allocate(int slots) {
+        tasks = new Task[slots];
+        ids = new int[slots];
+        prev = new int[slots];
+        next = new int[slots];
+        chainFree(0, slots);
+        allocateTable(slots);
+    }
+
+    private void grow() {
+        int oldSlots = tasks.length;
+        int newSlots = (int) Math.min((long) oldSlots * 2, capacity);
+        tasks = Arrays.copyOf(tasks, newSlots);
+        ids = Arrays.copyOf(ids, newSlots);
+        prev = Arrays.copyOf(prev, newSlots);
+        next = Arrays.copyOf(next, newSlots);
+        chainFree(oldSlots, newSlots);
+
+        allocateTable(newSlots);
+        for (int slot = head; slot != NIL; slot = next[slot]) {
+            insert(slot);
+        }
+    }
+
+    private void chainFree(int from, int to) {
+        for (int slot = to - 1; slot >= from; slot--) {
+            next[slot] = freeHead;
+            freeHead = slot;
+        }
+    }
+
+    // Таблица минимум вдвое больше числа ячеек, чтобы цепочки пробирования оставались короткими
+    private void allocateTable(int slots) {
+        int length = Integer.highestOneBit(Math.max(slots, 2) - 1) << 2;
+        table = new int[length];
+        Arrays.fill(table, NIL);
+        mask = length - 1;
+    }
+}
@@ -0,0 +1,168 @@
+package service.managers;
+
+import enums.TaskType;
+import model.Epic;
+import model.Operation;
+import model.Subtask;
+import model.Task;
+import service.exeptions.NotFoundException;
+import service.exeptions.TimeOverlapException;
+import service.indexes.TimeIntervalIndex;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Проверка пакета операций до его применения.
+ * Все условия (существование изменяемых задач, эпики подзадач, сетка расписания) проверяются заранее,
+ * а пересечения по времени - один раз: интервалы пакета сортируются по времени начала и проверяются
+ * одним проходом друг с другом и с расписанием менеджера без учета изменяемых и удаляемых задач.
+ * Пакет, прошедший проверку, применяется без повторных проверок пересечений и целиком.
+ * Id новым задачам выдаются только при применении, поэтому подзадача пакета может ссылаться
+ * лишь на эпик, который уже есть в менеджере, а не на эпик, создаваемый этим же пакетом.
+ */
+
+final class BatchValidator {
+
+    private final BiFunction<TaskType, Integer, Task> lookup;
+    private final TimeIntervalIndex intervalIndex;
+    private final Predicate<Task> fitsSchedule;
+
+    BatchValidator(BiFunction<TaskType, Integer, Task> lookup, TimeIntervalIndex intervalIndex,
+                   Predicate<Task> fitsSchedule) {
+        this.lookup = lookup;
+        this.intervalIndex = intervalIndex;
+        this.fitsSchedule = fitsSchedule;
+    }
+
+    // Метод проверяет пакет и возвращает id задач, прежнее время которых освобождается пакетом
+    Set<Integer> validate(List<Operation> operations) {
+        if (operations == null) {
+            throw new IllegalArgumentException("Пакет операций не должен быть null");
+        }
+
+        Set<Integer> touchedIds = new HashSet<>();
+        Set<Integer> deletedEpicIds = new HashSet<>();
+        List<Subtask> subtasks = new ArrayList<>();
+        List<Task> scheduled = new ArrayList<>();
+
+        for (Operation operation : operations) {
+            if (operation == null || operation.getType() == null || operation.getTaskType() == null) {
+                throw new IllegalArgumentException("Операция пакета задана не полностью");
+            }
+
+            switch (operation.getType()) {
+                case CREATE -> {
+                    checkFields(operation.getItem());
+                    collect(operation.getItem(), subtasks, scheduled);
+                }
+                case UPDATE -> {
+                    if (operation.getItem() == null) {
+                        throw new IllegalArgumentException("Операция обновления не содержит задачу");
+                    }
+                    find(operation);
+                    touch(touchedIds, operation.getId());
+                    collect(operation.getItem(), subtasks, scheduled);
+                }
+                case DELETE -> {
+                    Task existing = find(operation);
+                    touch(touchedIds, existing.getId());
+                    if (existing instanceof Epic epic) {
+                        deletedEpicIds.add(epic.getId());
+                        epic.getSubtasksId().forEach(subtaskId -> touch(touchedIds, subtaskId));
+                    }
+                }
+            }
+        }
+
+        // Эпик подзадачи должен существовать и не удаляться этим же пакетом
+        for (Subtask subtask : subtasks) {
+            Integer epicId = subtask.getEpicId();
+            if (epicId == null || lookup.apply(TaskType.EPIC, epicId) == null || deletedEpicIds.contains(epicId)) {
+                throw new IllegalArgumentException("Не найден эпик с id=" + epicId);
+            }
+        }
+
+        checkOverlaps(scheduled, touchedIds);
+        return touchedIds;
+    }
+
+    /* Единственная проверка пересечений пакета: после сортировки по началу каждая задача сравнивается
+    с наибольшим концом всех предыдущих, а не только соседней. Правило то же, что в индексе интервалов:
+    задача нулевой длины не пересекается с задачами, начинающимися в тот же момент, поэтому для нее
+    учитываются только задачи с более ранним началом, и результат не зависит от порядка операций
+     */
+    private void checkOverlaps(List<Task> scheduled, Set<Integer> releasedIds) {
+        scheduled.sort(Comparator.comparing(Task::getStartTime));
+
+        LocalDateTime maxEnd = null;
+        LocalDateTime maxEndBefore = null;
+        LocalDateTime currentStart = null;
+        for (Task task : scheduled) {
+            if (!task.getStartTime().equals(currentStart)) {
+                maxEndBefore = maxEnd;
+                currentStart = task.getStartTime();
+            }
+            boolean empty = !task.getEndTime().isAfter(task.getStartTime());
+            LocalDateTime bound = empty ? maxEndBefore : maxEnd;
+            if (bound != null && bound.isAfter(task.getStartTime())) {
+                throw new TimeOverlapException("Задачи пакета пересекаются по времени друг с другом");
+            }
+            if (intervalIndex.hasIntersection(task, releasedIds)) {
+                throw new TimeOverlapException("Задача пакета пересекается по времени с уже добавленными");
+            }
+            if (maxEnd == null || task.getEndTime().isAfter(maxEnd)) {
+                maxEnd = task.getEndTime();
+            }
+        }
+    }
+
+    private static void checkFields(Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Операция создания не содержит задачу");
+        }
+        if (task.getTitle() == null || task.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Название задачи не может быть пустым");
+        }
+        if (task.getDescription() == null) {
+            throw new IllegalArgumentException("Описание задачи не может быть пустым");
+        }
+    }
+
+    // Время эпика вычисляется по подзадачам, поэтому в расписание пакета попадают только задачи и подзадачи
+    private void collect(Task task, List<Subtask> subtasks, List<Task> scheduled) {
+        if (task.getTaskType() == TaskType.EPIC) {
+            return;
+        }
+        if (task instanceof Subtask subtask) {
+            subtasks.add(subtask);
+        }
+        if (!fitsSchedule.test(task)) {
+            throw new IllegalArgumentException("Время задачи не совпадает с сеткой расписания");
+        }
+        if (task.getStartTime() != null && task.getDuration() != null) {
+            scheduled.add(task);
+        }
+    }
+
+    private Task find(Operation operation) {
+        Task existing = operation.getId() == null ? null : lookup.apply(operation.getTaskType(), operation.getId());
+        if (existing == null) {
+            throw new NotFoundException(switch (operation.getTaskType()) {
+                case TASK -> "Задача с ID " + operation.getId() + " не найдена";
+                case EPIC -> "Эпик с ID " + operation.getId() + " не найден";
+                case SUBTASK -> "Подзадача с ID " + operation.getId() + " не найдена";
+            });
+        }
+        return existing;
+    }
+
+    // Каждая существующая задача может изменяться в пакете только один раз
+    private static void touch(Set<Integer> touchedIds, Integer id) {
+        if (!touchedIds.add(id)) {
+            throw new IllegalArgumentException("Задача с id=" + id + " изменяется в пакете несколько раз");
+        }
+    }
+}
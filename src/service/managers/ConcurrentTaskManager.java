@@ -0,0 +1,963 @@
+package service.managers;
+
+import enums.Status;
+import enums.TaskType;
+import model.*;
+import service.exeptions.NotFoundException;
+import service.exeptions.TimeOverlapException;
+import service.indexes.FreeSlotFinder;
+import service.indexes.PriorityIndex;
+import service.indexes.StatusIndex;
+import service.indexes.TextIndex;
+import service.indexes.TimeIntervalIndex;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасная реализация менеджера задач для работы под многопоточным HTTP-сервером.
+ * Чтение выполняется оптимистично через StampedLock и повторяется под блокировкой чтения,
+ * только если параллельно прошла структурная операция (массовое удаление или изменение расписания).
+ * Изменения подзадач защищены блокировками эпиков с разбиением на полосы,
+ * поэтому подзадачи разных эпиков редактируются параллельно. Обновление и удаление задачи так же
+ * сериализуются блокировкой полосы ее id: иначе удаление между проверкой и записью обновления
+ * было бы отменено, а задача вернулась бы в хранилище и индексы.
+ * Проверка пересечений по времени и изменение расписания выполняются под блокировкой записи.
+ * Список подзадач эпика изменяется только под блокировкой его полосы, поэтому эпики отдаются
+ * читателям копиями, снятыми под той же блокировкой.
+ * Удаленные id убираются из истории после удаления из хранилища, а просмотр добавляется в историю
+ * только если задача еще в хранилище, поэтому параллельное чтение не возвращает удаленную задачу в историю.
+ */
+
+public class ConcurrentTaskManager implements TaskManager {
+
+    private static final int EPIC_LOCK_STRIPES = 64;
+    private static final int TASK_LOCK_STRIPES = 64;
+    private static final long NO_STAMP = 0L;
+
+    private final NavigableMap<Integer, Task> allTasks = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Integer, Epic> allEpics = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Integer, Subtask> allSubtasks = new ConcurrentSkipListMap<>();
+    private final HistoryManager historyManager;
+    private final PriorityIndex prioritizedTasks = new PriorityIndex(true);
+    private final TimeIntervalIndex intervalIndex = new TimeIntervalIndex();
+    private final StatusIndex taskStatuses = new StatusIndex();
+    private final StatusIndex epicStatuses = new StatusIndex();
+    private final StatusIndex subtaskStatuses = new StatusIndex();
+    private final TextIndex textIndex = new TextIndex();
+    private final StampedLock stateLock = new StampedLock();
+    private final ReentrantLock[] epicLocks = new ReentrantLock[EPIC_LOCK_STRIPES];
+    private final ReentrantLock[] taskLocks = new ReentrantLock[TASK_LOCK_STRIPES];
+    private final AtomicInteger id = new AtomicInteger(1);
+    private volatile Thread batchOwner;
+
+    public ConcurrentTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    // Менеджер с переданной историей, например ограниченной из Managers.getBoundedHistory
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+        for (int i = 0; i < epicLocks.length; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+        for (int i = 0; i < taskLocks.length; i++) {
+            taskLocks[i] = new ReentrantLock();
+        }
+    }
+
+    //Методы получения списков всех созданных задач, эпиков и подзадач
+    @Override
+    public List<Task> getAllTasks() {
+        return readOptimistically(() -> List.copyOf(allTasks.values()));
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return readOptimistically(() -> List.copyOf(allEpics.values())).stream()
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return readOptimistically(() -> List.copyOf(allSubtasks.values()));
+    }
+
+    // Методы постраничного получения в порядке id: обход слабо согласован и не требует блокировок
+    @Override
+    public Page<Task> getTasksPage(String cursor, int limit) {
+        return Page.of(allTasks, cursor, limit);
+    }
+
+    @Override
+    public Page<Epic> getEpicsPage(String cursor, int limit) {
+        Page<Epic> page = Page.of(allEpics, cursor, limit);
+        return new Page<>(page.getItems().stream().map(this::copyOf).toList(), page.getNextCursor());
+    }
+
+    @Override
+    public Page<Subtask> getSubtasksPage(String cursor, int limit) {
+        return Page.of(allSubtasks, cursor, limit);
+    }
+
+    // Методы получения задач по статусу: обход индекса слабо согласован, удаленные параллельно задачи пропускаются
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return byStatus(taskStatuses, allTasks, status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return byStatus(epicStatuses, allEpics, status).stream()
+                .map(this::copyOf)
+                .toList();
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return byStatus(subtaskStatuses, allSubtasks, status);
+    }
+
+    //Методы для удаления всех задач, эпиков и подзадач
+    @Override
+    public void deleteAllTasks() {
+        long stamp = stateLock.writeLock();
+        try {
+            List<Integer> removedIds = List.copyOf(allTasks.keySet());
+            prioritizedTasks.removeAll(removedIds);
+            removedIds.forEach(intervalIndex::remove);
+            unindexText(removedIds);
+            allTasks.clear();
+            taskStatuses.clear();
+            removeFromHistory(removedIds);
+        } finally {
+            stateLock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        lockAllEpics();
+        long stamp = stateLock.writeLock();
+        try {
+            List<Integer> removedIds = new ArrayList<>(allSubtasks.keySet());
+            removedIds.addAll(allEpics.keySet());
+            prioritizedTasks.removeAll(allSubtasks.keySet());
+            allSubtasks.keySet().forEach(intervalIndex::remove);
+            unindexText(removedIds);
+            allSubtasks.clear();
+            allEpics.clear();
+            subtaskStatuses.clear();
+            epicStatuses.clear();
+            removeFromHistory(removedIds);
+        } finally {
+            stateLock.unlockWrite(stamp);
+            unlockAllEpics();
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        lockAllEpics();
+        long stamp = stateLock.writeLock();
+        try {
+            List<Integer> removedIds = List.copyOf(allSubtasks.keySet());
+            prioritizedTasks.removeAll(removedIds);
+            removedIds.forEach(intervalIndex::remove);
+            unindexText(removedIds);
+            allSubtasks.clear();
+            subtaskStatuses.clear();
+            removeFromHistory(removedIds);
+            allEpics.values().forEach(epic -> {
+                epic.clearSubtasksId();
+                epic.resetSubtaskStates();
+                epicStatuses.put(epic.getId(), epic.getStatus());
+            });
+        } finally {
+            stateLock.unlockWrite(stamp);
+            unlockAllEpics();
+        }
+    }
+
+    //Методы для получения задач, эпиков, подзадач по идентификатору и занесение в историю просмотров
+    @Override
+    public Task getTaskById(Integer idTask) {
+        Task task = allTasks.get(idTask);
+        if (task == null) {
+            throw new NotFoundException("Задача с ID " + idTask + " не найдена");
+        }
+        addToHistory(task, allTasks);
+        return task;
+    }
+
+    @Override
+    public Epic getEpicById(Integer idEpic) {
+        Epic epic = allEpics.get(idEpic);
+        if (epic == null) {
+            throw new NotFoundException("Эпик с ID " + idEpic + " не найден");
+        }
+        Epic copy = copyOf(epic);
+        addToHistory(copy, allEpics);
+        return copy;
+    }
+
+    @Override
+    public Subtask getSubtaskById(Integer idSubtask) {
+        Subtask subtask = allSubtasks.get(idSubtask);
+        if (subtask == null) {
+            throw new NotFoundException("Подзадача с ID " + idSubtask + " не найдена");
+        }
+        addToHistory(subtask, allSubtasks);
+        return subtask;
+    }
+
+    //Методы для создания задач, эпиков и подзадач
+    @Override
+    public void createTask(Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Задача не должна быть null");
+        }
+
+        if (task.getTitle() == null || task.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Название задачи не может быть пустым");
+        }
+        if (task.getDescription() == null) {
+            throw new IllegalArgumentException("Описание задачи не может быть пустым");
+        }
+
+        long stamp = lockFor(task);
+        try {
+            // Проверяем пересечение времени (если у задачи задано время)
+            if (task.getStartTime() != null && hasIntersection(task)) {
+                throw new TimeOverlapException("Задача пересекается по времени с уже добавленными");
+            }
+
+            task.setId(generateId());
+            allTasks.put(task.getId(), task);
+            taskStatuses.put(task.getId(), task.getStatus());
+            indexText(task);
+            addPrioritized(task);
+        } finally {
+            unlock(stamp);
+        }
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        if (epic == null) {
+            throw new IllegalArgumentException("Эпик не должен быть null");
+        }
+
+        if (epic.getTitle() == null || epic.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Название эпика не может быть пустым");
+        }
+        if (epic.getDescription() == null) {
+            throw new IllegalArgumentException("Описание эпика не может быть пустым");
+        }
+
+        long stamp = lockFor();
+        try {
+            epic.setId(generateId());
+            // Список подзадач изменяется только под блокировкой полосы эпика, читатели получают его копию
+            epic.setSubtasksId(new ArrayList<>());
+            epic.resetSubtaskStates();
+            allEpics.put(epic.getId(), epic);
+            epicStatuses.put(epic.getId(), epic.getStatus());
+            indexText(epic);
+        } finally {
+            unlock(stamp);
+        }
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        if (subtask == null) {
+            throw new IllegalArgumentException("Подзадача не должна быть null");
+        }
+
+        if (subtask.getTitle() == null || subtask.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Название подзадачи не может быть пустым");
+        }
+
+        if (subtask.getDescription() == null) {
+            throw new IllegalArgumentException("Описание подзадачи не может быть пустым");
+        }
+
+        ReentrantLock epicLock = epicLock(subtask.getEpicId());
+        epicLock.lock();
+        try {
+            Epic epic = subtask.getEpicId() == null ? null : allEpics.get(subtask.getEpicId());
+            if (epic == null) {
+                throw new IllegalArgumentException("Не найден эпик с id=" + subtask.getEpicId());
+            }
+
+            long stamp = lockFor(subtask);
+            try {
+                // Проверка пересечения времени
+                if (subtask.getStartTime() != null && hasIntersection(subtask)) {
+                    throw new TimeOverlapException("Подзадача пересекается по времени с уже добавленными");
+                }
+
+                subtask.setId(generateId());
+                allSubtasks.put(subtask.getId(), subtask);
+                subtaskStatuses.put(subtask.getId(), subtask.getStatus());
+                indexText(subtask);
+                addPrioritized(subtask);
+            } finally {
+                unlock(stamp);
+            }
+
+            epic.addSubtask(subtask.getId());
+            epic.applySubtask(subtask);
+            epicStatuses.put(epic.getId(), epic.getStatus());
+        } finally {
+            epicLock.unlock();
+        }
+    }
+
+    //Методы обновления задач, эпиков и подзадач
+    @Override
+    public void updateTask(Task task) {
+        if (task == null) {
+            System.out.println("Задача не найдена!");
+            return;
+        }
+
+        ReentrantLock taskLock = taskLock(task.getId());
+        taskLock.lock();
+        try {
+            long stamp = lockFor(task, allTasks.get(task.getId()));
+            try {
+                stamp = upgradeIfTimed(stamp, allTasks.get(task.getId()));
+                Task existing = allTasks.get(task.getId());
+                if (existing == null) {
+                    System.out.println("Задача не найдена!");
+                    return;
+                }
+
+                // Прежний интервал задачи не учитывается: он мог быть изменен на месте в том же объекте
+                if (task.getStartTime() != null && hasIntersection(task, task.getId())) {
+                    System.out.println("Задача пересекается по времени с уже добавленными");
+                    return;
+                }
+
+                removePrioritized(existing);
+                allTasks.put(task.getId(), task);
+                taskStatuses.put(task.getId(), task.getStatus());
+                indexText(task);
+                addPrioritized(task);
+            } finally {
+                unlock(stamp);
+            }
+        } finally {
+            taskLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        if (epic == null || !allEpics.containsKey(epic.getId())) {
+            System.out.println("Эпик не найден!");
+            return;
+        }
+
+        ReentrantLock epicLock = epicLock(epic.getId());
+        epicLock.lock();
+        try {
+            Epic existing = allEpics.get(epic.getId());
+            if (existing == null) {
+                System.out.println("Эпик не найден!");
+                return;
+            }
+            existing.setTitle(epic.getTitle());
+            existing.setDescription(epic.getDescription());
+            indexText(existing);
+        } finally {
+            epicLock.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        // Проверка на null
+        if (subtask == null) {
+            System.out.println("Подзадача не может быть null");
+            return;
+        }
+
+        while (true) {
+            // Проверка существования подзадачи
+            Subtask existing = allSubtasks.get(subtask.getId());
+            if (existing == null) {
+                System.out.println("Подзадача с id=" + subtask.getId() + " не найдена");
+                return;
+            }
+
+            // Проверка эпика
+            if (subtask.getEpicId() == null || !allEpics.containsKey(subtask.getEpicId())) {
+                System.out.println("Неверный epicId: " + subtask.getEpicId());
+                return;
+            }
+
+            // Блокируются эпики подзадачи до и после обновления в едином порядке, чтобы исключить взаимную блокировку
+            ReentrantLock[] locks = orderedEpicLocks(existing.getEpicId(), subtask.getEpicId());
+            Arrays.stream(locks).forEach(ReentrantLock::lock);
+            try {
+                Subtask current = allSubtasks.get(subtask.getId());
+                Epic epic = allEpics.get(subtask.getEpicId());
+                if (current == null || epic == null) {
+                    System.out.println("Подзадача с id=" + subtask.getId() + " не найдена");
+                    return;
+                }
+                // Подзадачу перенесли в другой эпик, пока ожидались блокировки: повтор с блокировками нового эпика
+                if (!Objects.equals(current.getEpicId(), existing.getEpicId())) {
+                    continue;
+                }
+                applySubtaskUpdate(subtask, current, epic);
+                return;
+            } finally {
+                for (int i = locks.length - 1; i >= 0; i--) {
+                    locks[i].unlock();
+                }
+            }
+        }
+    }
+
+    //Методы удаления задач по идентификатору
+    @Override
+    public void deleteTask(Integer idTask) {
+        ReentrantLock taskLock = taskLock(idTask);
+        taskLock.lock();
+        try {
+            long stamp = lockFor(allTasks.get(idTask));
+            try {
+                stamp = upgradeIfTimed(stamp, allTasks.get(idTask));
+                Task task = allTasks.remove(idTask);
+                if (task == null) {
+                    System.out.println("Задачи с id " + idTask + " не существует!");
+                    return;
+                }
+                removePrioritized(task);
+                taskStatuses.remove(idTask);
+                unindexText(List.of(idTask));
+                removeFromHistory(List.of(idTask));
+            } finally {
+                unlock(stamp);
+            }
+        } finally {
+            taskLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteEpic(Integer idEpic) {
+        if (idEpic == null || !allEpics.containsKey(idEpic)) {
+            System.out.println("Эпика с id " + idEpic + " не существует!");
+            return;
+        }
+
+        ReentrantLock epicLock = epicLock(idEpic);
+        epicLock.lock();
+        try {
+            long stamp = lockSchedule();
+            try {
+                Epic epic = allEpics.remove(idEpic);
+                if (epic == null) {
+                    System.out.println("Эпика с id " + idEpic + " не существует!");
+                    return;
+                }
+
+                List<Integer> removedIds = new ArrayList<>(epic.getSubtasksId());
+                removedIds.forEach(subtaskId -> {
+                    removePrioritized(allSubtasks.remove(subtaskId));
+                    subtaskStatuses.remove(subtaskId);
+                });
+                epicStatuses.remove(idEpic);
+                removedIds.add(idEpic);
+                unindexText(removedIds);
+                removeFromHistory(removedIds);
+            } finally {
+                unlock(stamp);
+            }
+        } finally {
+            epicLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteSubtask(Integer idSubtask) {
+        while (true) {
+            Subtask subtask = allSubtasks.get(idSubtask);
+            if (subtask == null) {
+                System.out.println("Подзадачи с id " + idSubtask + " не существует!");
+                return;
+            }
+
+            ReentrantLock epicLock = epicLock(subtask.getEpicId());
+            epicLock.lock();
+            try {
+                // Подзадача перечитывается под блокировкой: ее могли заменить или перенести в другой эпик
+                Subtask current = allSubtasks.get(idSubtask);
+                if (current == null) {
+                    System.out.println("Подзадачи с id " + idSubtask + " не существует!");
+                    return;
+                }
+                if (!Objects.equals(current.getEpicId(), subtask.getEpicId())) {
+                    continue;
+                }
+
+                long stamp = lockFor(current);
+                try {
+                    allSubtasks.remove(idSubtask);
+                    removePrioritized(current);
+                    subtaskStatuses.remove(idSubtask);
+                    unindexText(List.of(idSubtask));
+                } finally {
+                    unlock(stamp);
+                }
+
+                Epic epic = allEpics.get(current.getEpicId());
+                if (epic != null) {
+                    epic.deleteSubtaskById(idSubtask);
+                    epic.withdrawSubtask(idSubtask);
+                    epicStatuses.put(epic.getId(), epic.getStatus());
+                }
+                removeFromHistory(List.of(idSubtask));
+            } finally {
+                epicLock.unlock();
+            }
+            return;
+        }
+    }
+
+    //Дополнительный метод получения списка всех подзадач определённого эпика
+    @Override
+    public List<Subtask> getSubtaskByEpic(Integer idEpic) {
+        Epic epic = allEpics.get(idEpic);
+
+        if (epic == null) {
+            System.out.println("Эпика с id " + idEpic + " не существует");
+            return null;
+        }
+        List<Integer> subtaskIds = copyOf(epic).getSubtasksId();
+        return readOptimistically(() -> subtaskIds.stream()
+                .map(allSubtasks::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    // Метод возвращения списка просмотренных задач
+    @Override
+    public List<Task> getHistory() {
+        synchronized (historyManager) {
+            return historyManager.getHistory();
+        }
+    }
+
+    //Метод возвращает список отсортированных задач по приоритету
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return readOptimistically(() -> List.copyOf(prioritizedTasks.values()));
+    }
+
+    // Окно расписания читается под блокировкой чтения, так как индекс интервалов не потокобезопасен
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Начало окна должно быть раньше его конца");
+        }
+
+        long stamp = stateLock.readLock();
+        try {
+            List<Task> window = new ArrayList<>();
+            if (from != null) {
+                Task covering = intervalIndex.findCovering(from);
+                if (covering != null) {
+                    window.add(covering);
+                }
+            }
+            window.addAll(prioritizedTasks.startingBetween(from, to));
+            return window;
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime after, Duration duration, int limit) {
+        FreeSlotFinder.validate(after, duration, limit);
+
+        long stamp = stateLock.readLock();
+        try {
+            Task covering = intervalIndex.findCovering(after);
+            LocalDateTime from = covering == null ? after : covering.getEndTime();
+            return FreeSlotFinder.find(prioritizedTasks.startingFrom(after), from, duration, limit);
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    // Поиск выполняется под монитором текстового индекса, как и его обновления
+    @Override
+    public List<Task> search(String query, int offset, int limit) {
+        List<Integer> ids;
+        synchronized (textIndex) {
+            ids = textIndex.search(query, offset, limit);
+        }
+        return ids.stream()
+                .map(this::findAny)
+                .filter(Objects::nonNull)
+                .map(task -> task instanceof Epic epic ? copyOf(epic) : task)
+                .toList();
+    }
+
+    /* Пакет выполняется под всеми блокировками задач, эпиков и блокировкой записи, поэтому другие потоки
+    видят состояние до пакета или после него целиком. Операции пакета применяются обычными методами
+    менеджера, которые в потоке пакета не берут блокировки повторно
+     */
+    @Override
+    public void applyBatch(List<Operation> operations) {
+        lockAll(taskLocks);
+        lockAllEpics();
+        long stamp = stateLock.writeLock();
+        batchOwner = Thread.currentThread();
+        try {
+            new BatchValidator(this::find, intervalIndex, task -> true).validate(operations);
+            operations.forEach(this::apply);
+        } finally {
+            batchOwner = null;
+            stateLock.unlockWrite(stamp);
+            unlockAllEpics();
+            unlockAll(taskLocks);
+        }
+    }
+
+    // Методы получения представлений хранилищ без копирования: обход слабо согласован и не требует блокировок
+    @Override
+    public Collection<Task> viewAllTasks() {
+        return Collections.unmodifiableCollection(allTasks.values());
+    }
+
+    @Override
+    public Collection<Epic> viewAllEpics() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Epic> iterator() {
+                Iterator<Epic> epics = allEpics.values().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return epics.hasNext();
+                    }
+
+                    @Override
+                    public Epic next() {
+                        return copyOf(epics.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return allEpics.size();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Subtask> viewAllSubtasks() {
+        return Collections.unmodifiableCollection(allSubtasks.values());
+    }
+
+    @Override
+    public Collection<Task> viewPrioritizedTasks() {
+        return prioritizedTasks.values();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /* Оптимистичное чтение: снимок собирается без блокировки из потокобезопасных коллекций
+    и принимается, если за это время не было структурных изменений; иначе чтение повторяется под блокировкой
+     */
+    private <R> R readOptimistically(Supplier<R> reader) {
+        long stamp = stateLock.tryOptimisticRead();
+        if (stamp != 0L) {
+            R result = reader.get();
+            if (stateLock.validate(stamp)) {
+                return result;
+            }
+        }
+
+        stamp = stateLock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            stateLock.unlockRead(stamp);
+        }
+    }
+
+    /* Изменения задач со временем затрагивают расписание и требуют блокировки записи,
+    остальные изменения выполняются параллельно под разделяемой блокировкой чтения
+     */
+    private long lockFor(Task... tasks) {
+        if (holdsBatch()) {
+            return NO_STAMP;
+        }
+        for (Task task : tasks) {
+            if (isScheduled(task)) {
+                return stateLock.writeLock();
+            }
+        }
+        return stateLock.readLock();
+    }
+
+    private long lockSchedule() {
+        return holdsBatch() ? NO_STAMP : stateLock.writeLock();
+    }
+
+    // Внутри пакета блокировка записи уже удерживается потоком пакета, и повторно она не берется
+    private void unlock(long stamp) {
+        if (stamp != NO_STAMP) {
+            stateLock.unlock(stamp);
+        }
+    }
+
+    private boolean holdsBatch() {
+        return batchOwner == Thread.currentThread();
+    }
+
+    /* Задача могла получить время, пока ожидалась блокировка чтения:
+    тогда блокировка повышается до записи, так как будет затронуто расписание
+     */
+    private long upgradeIfTimed(long stamp, Task task) {
+        if (!isScheduled(task) || !StampedLock.isReadLockStamp(stamp)) {
+            return stamp;
+        }
+        long writeStamp = stateLock.tryConvertToWriteLock(stamp);
+        if (writeStamp != 0L) {
+            return writeStamp;
+        }
+        stateLock.unlockRead(stamp);
+        return stateLock.writeLock();
+    }
+
+    private ReentrantLock epicLock(Integer idEpic) {
+        return epicLocks[Math.floorMod(Objects.hashCode(idEpic), epicLocks.length)];
+    }
+
+    private ReentrantLock[] orderedEpicLocks(Integer firstEpicId, Integer secondEpicId) {
+        int first = Math.floorMod(Objects.hashCode(firstEpicId), epicLocks.length);
+        int second = Math.floorMod(Objects.hashCode(secondEpicId), epicLocks.length);
+        if (first == second) {
+            return new ReentrantLock[]{epicLocks[first]};
+        }
+        return new ReentrantLock[]{epicLocks[Math.min(first, second)], epicLocks[Math.max(first, second)]};
+    }
+
+    // Полоса задачи берется раньше полос эпиков и блокировки состояния, как и в пакете
+    private ReentrantLock taskLock(Integer idTask) {
+        return taskLocks[Math.floorMod(Objects.hashCode(idTask), taskLocks.length)];
+    }
+
+    private void lockAllEpics() {
+        lockAll(epicLocks);
+    }
+
+    private void unlockAllEpics() {
+        unlockAll(epicLocks);
+    }
+
+    private static void lockAll(ReentrantLock[] locks) {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private static void unlockAll(ReentrantLock[] locks) {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    /* Просмотр попадает в историю, только если задача еще в хранилище: проверка и добавление идут под монитором
+    истории, а удаление убирает id из истории после хранилища, поэтому удаленная задача в историю не вернется
+     */
+    private void addToHistory(Task task, Map<Integer, ? extends Task> storage) {
+        synchronized (historyManager) {
+            if (storage.containsKey(task.getId())) {
+                historyManager.add(task);
+            }
+        }
+    }
+
+    private void removeFromHistory(Collection<Integer> ids) {
+        synchronized (historyManager) {
+            ids.forEach(historyManager::remove);
+        }
+    }
+
+    // Пакет проверен целиком до применения, поэтому его операции не проверяются на пересечения повторно
+    private boolean hasIntersection(Task task) {
+        return hasIntersection(task, null);
+    }
+
+    // Проверка пересечения без учета интервала задачи ignoredId, хранящегося в индексе
+    private boolean hasIntersection(Task task, Integer ignoredId) {
+        return !holdsBatch() && intervalIndex.hasIntersection(task, ignoredId == null ? Set.of() : Set.of(ignoredId));
+    }
+
+    /* Задача затрагивает расписание, если у нее есть время начала сейчас или она уже стоит в расписании:
+    время могли сбросить на месте, и тогда ее прежнюю запись нужно удалить под блокировкой записи
+     */
+    private boolean isScheduled(Task task) {
+        return task != null && (task.getStartTime() != null || prioritizedTasks.contains(task.getId()));
+    }
+
+    // Изменение расписания выполняется только под блокировкой записи
+    private void addPrioritized(Task task) {
+        if (task != null && task.getStartTime() != null) {
+            prioritizedTasks.add(task);
+            intervalIndex.add(task);
+        }
+    }
+
+    // Удаление по id не зависит от времени задачи, которое могли изменить на месте
+    private void removePrioritized(Task task) {
+        if (task != null) {
+            prioritizedTasks.remove(task.getId());
+            intervalIndex.remove(task.getId());
+        }
+    }
+
+    /* Применение обновления подзадачи под блокировками ее эпиков. Пересечение проверяется до изменения
+    расписания, поэтому при отказе прежняя запись подзадачи остается на месте
+     */
+    private void applySubtaskUpdate(Subtask subtask, Subtask existing, Epic epic) {
+        long stamp = lockFor(subtask, existing);
+        try {
+            // Проверка пересечения времени (кроме самой себя)
+            if (subtask.getStartTime() != null && hasIntersection(subtask, subtask.getId())) {
+                System.out.println("Обнаружено пересечение по времени");
+                return;
+            }
+
+            removePrioritized(existing);
+            allSubtasks.put(subtask.getId(), subtask);
+            subtaskStatuses.put(subtask.getId(), subtask.getStatus());
+            indexText(subtask);
+            addPrioritized(subtask);
+        } finally {
+            unlock(stamp);
+        }
+
+        // Перенос подзадачи из прежнего эпика, если он изменился
+        Epic previousEpic = allEpics.get(existing.getEpicId());
+        if (!subtask.getEpicId().equals(existing.getEpicId()) && previousEpic != null) {
+            previousEpic.deleteSubtaskById(subtask.getId());
+            previousEpic.withdrawSubtask(subtask.getId());
+            epicStatuses.put(previousEpic.getId(), previousEpic.getStatus());
+            epic.addSubtask(subtask.getId());
+        }
+
+        // Обновление эпика
+        epic.applySubtask(subtask);
+        epicStatuses.put(epic.getId(), epic.getStatus());
+    }
+
+    // Копия эпика со списком подзадач, снятая под блокировкой полосы эпика
+    private Epic copyOf(Epic epic) {
+        ReentrantLock epicLock = epicLock(epic.getId());
+        epicLock.lock();
+        try {
+            Epic copy = new Epic(epic.getId(), epic.getTitle(), epic.getDescription(), epic.getStatus());
+            copy.setStartTime(epic.getStartTime());
+            copy.setDuration(epic.getDuration());
+            copy.setEndTime(epic.getEndTime());
+            copy.setSubtasksId(epic.getSubtasksId());
+            return copy;
+        } finally {
+            epicLock.unlock();
+        }
+    }
+
+    private static <T extends Task> List<T> byStatus(StatusIndex index, Map<Integer, T> storage, Status status) {
+        return index.ids(status).stream()
+                .map(storage::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Текстовый индекс не потокобезопасен, поэтому изменяется под собственным монитором
+    private void indexText(Task task) {
+        synchronized (textIndex) {
+            textIndex.put(task);
+        }
+    }
+
+    private void unindexText(Collection<Integer> ids) {
+        synchronized (textIndex) {
+            textIndex.removeAll(ids);
+        }
+    }
+
+    private Task find(TaskType type, Integer id) {
+        return switch (type) {
+            case TASK -> allTasks.get(id);
+            case EPIC -> allEpics.get(id);
+            case SUBTASK -> allSubtasks.get(id);
+        };
+    }
+
+    private void apply(Operation operation) {
+        Task item = operation.getItem();
+        switch (operation.getType()) {
+            case CREATE -> {
+                switch (operation.getTaskType()) {
+                    case TASK -> createTask(item);
+                    case EPIC -> createEpic((Epic) item);
+                    case SUBTASK -> createSubtask((Subtask) item);
+                }
+            }
+            case UPDATE -> {
+                switch (operation.getTaskType()) {
+                    case TASK -> updateTask(item);
+                    case EPIC -> updateEpic((Epic) item);
+                    case SUBTASK -> updateSubtask((Subtask) item);
+                }
+            }
+            case DELETE -> {
+                switch (operation.getTaskType()) {
+                    case TASK -> deleteTask(operation.getId());
+                    case EPIC -> deleteEpic(operation.getId());
+                    case SUBTASK -> deleteSubtask(operation.getId());
+                }
+            }
+        }
+    }
+
+    // Поиск задачи любого типа: id задач, эпиков и подзадач не пересекаются
+    private Task findAny(Integer id) {
+        Task task = allTasks.get(id);
+        if (task == null) {
+            task = allEpics.get(id);
+        }
+        if (task == null) {
+            task = allSubtasks.get(id);
+        }
+        return task;
+    }
+
+    private Integer generateId() {
+        return id.getAndIncrement();
+    }
+}
@@ -4,180 +4,914 @@ import enums.*;
 import model.*;
 import service.exeptions.ManagerReadException;
 import service.exeptions.ManagerSaveException;
+import service.snapshot.CsvReader;
+import service.snapshot.CsvSnapshotCodec;
+import service.snapshot.SnapshotCodec;
+import service.snapshot.SnapshotCodecs;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
 
-import static model.Epic.parseEpicFromString;
-import static model.Subtask.parseSubtaskFromString;
-import static model.Task.parseTaskFromString;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+/**
+ * Менеджер задач с сохранением состояния в CSV-файл.
+ * В режиме снимков каждое изменение полностью перезаписывает файл.
+ * В режиме журнала каждое изменение дописывает одну запись в файл журнала рядом со снимком,
+ * а после compactionThreshold записей снимок перезаписывается и журнал удаляется. Записи журнала
+ * не идемпотентны, поэтому первая строка журнала - отпечаток снимка, к которому он применяется (CRC32 и длина
+ * файла): журнал, оставшийся от сжатия, прерванного после записи снимка, не совпадает с ним и отбрасывается.
+ * Каждая дозапись сбрасывается на диск; неполная последняя запись журнала при загрузке отбрасывается.
+ * В режиме отложенной записи изменения только помечают состояние измененным, а снимок пишет фоновый поток:
+ * не позже чем через flushInterval после первого изменения или сразу после maxPendingChanges изменений.
+ * Изменяющие методы синхронизированы с фоновой записью; перед завершением нужно вызвать close().
+ * Снимок пишется во временный файл, сбрасывается на диск и атомарно переименовывается, а прежний снимок
+ * сохраняется как предыдущее поколение (.prev). В конце снимка записаны контрольная сумма CRC32
+ * и число записей; при несовпадении загружается предыдущее поколение.
+ * Формат снимка выбирается по расширению файла: .bin - двоичный, иначе CSV (см. SnapshotCodecs).
+ */
+
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+    // Границы размера снимка CSV, который читается в память целиком и разбирается параллельно
+    private static final long PARALLEL_LOAD_THRESHOLD = 4L * 1024 * 1024;
+    private static final long MAX_PARALLEL_LOAD_SIZE = Integer.MAX_VALUE - 8;
+    private static final String PUT = "PUT";
+    private static final String DELETE = "DELETE";
+    private static final String CLEAR = "CLEAR";
+    private static final String BASE = "#base";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String PREVIOUS_SUFFIX = ".prev";
 
     private final File file;
+    private final SnapshotCodec codec;
+    private final File journalFile;
+    private final int compactionThreshold;
+    private int journalRecords;
+    private String snapshotBase;
+    private boolean journalStale;
+    private int deferDepth;
+    private boolean snapshotPending;
+    private final List<String> pendingRecords = new ArrayList<>();
+    // Журнал отмены транзакции: прежняя копия каждой затронутой задачи, null - задачи до транзакции не было
+    private Map<Integer, Task> undoLog;
+    private List<Integer> historyBeforeDelete;
+    private final ScheduledExecutorService flusher;
+    private final long flushIntervalMillis;
+    private final int maxPendingChanges;
+    private final Object flushLock = new Object();
+    private int unsavedChanges;
+    private long dirtySince;
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean flushRequested;
+    private long flushCount;
+    private long failedFlushes;
+    private long lastFlushLagNanos;
+    private long maxFlushLagNanos;
+    private long lastFlushNanos;
+    private long maxFlushNanos;
 
     public FileBackedTaskManager(File file) {
         if (file == null) {
             throw new ManagerReadException("Файл не инициализирован");
         }
         this.file = file;
+        this.codec = SnapshotCodecs.forFile(file);
+        this.journalFile = null;
+        this.compactionThreshold = 0;
+        this.flusher = null;
+        this.flushIntervalMillis = 0;
+        this.maxPendingChanges = 0;
+    }
+
+    // Менеджер в режиме журнала: снимок в file, журнал изменений в файле с суффиксом .journal
+    public FileBackedTaskManager(File file, int compactionThreshold) {
+        if (file == null) {
+            throw new ManagerReadException("Файл не инициализирован");
+        }
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Порог сжатия журнала должен быть положительным");
+        }
+        this.file = file;
+        this.codec = SnapshotCodecs.forFile(file);
+        this.journalFile = new File(file.getPath() + JOURNAL_SUFFIX);
+        this.compactionThreshold = compactionThreshold;
+        this.flusher = null;
+        this.flushIntervalMillis = 0;
+        this.maxPendingChanges = 0;
+    }
+
+    /* Менеджер в режиме отложенной записи снимка: устаревание файла ограничено flushInterval
+    и maxPendingChanges несохраненными изменениями
+     */
+    public FileBackedTaskManager(File file, Duration flushInterval, int maxPendingChanges) {
+        if (file == null) {
+            throw new ManagerReadException("Файл не инициализирован");
+        }
+        if (flushInterval == null || flushInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("Интервал записи должен быть положительным");
+        }
+        if (maxPendingChanges <= 0) {
+            throw new IllegalArgumentException("Число несохраненных изменений должно быть положительным");
+        }
+        this.file = file;
+        this.codec = SnapshotCodecs.forFile(file);
+        this.journalFile = null;
+        this.compactionThreshold = 0;
+        this.flushIntervalMillis = flushInterval.toMillis();
+        this.maxPendingChanges = maxPendingChanges;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     //Методы для создания задач, эпиков и подзадач
     @Override
-    public void createTask(Task task) {
+    public synchronized void createTask(Task task) {
         super.createTask(task);
-        save();
+        rememberCreated(task);
+        persistPut(task);
     }
 
     @Override
-    public void createEpic(Epic epic) {
+    public synchronized void createEpic(Epic epic) {
         super.createEpic(epic);
-        save();
+        rememberCreated(epic);
+        persistPut(epic);
     }
 
     @Override
-    public void createSubtask(Subtask subtask) {
+    public synchronized void createSubtask(Subtask subtask) {
+        if (subtask != null) {
+            remember(findEpic(subtask.getEpicId()));
+        }
         super.createSubtask(subtask);
-        save();
+        rememberCreated(subtask);
+        persistPut(subtask);
     }
 
 
     //Методы обновления задач, эпиков и подзадач
     @Override
-    public void updateTask(Task task) {
+    public synchronized void updateTask(Task task) {
+        if (task != null) {
+            remember(findTask(task.getId()));
+        }
         super.updateTask(task);
-        save();
+        persistPut(task == null ? null : findTask(task.getId()));
     }
 
     @Override
-    public void updateEpic(Epic epic) {
+    public synchronized void updateEpic(Epic epic) {
+        if (epic != null) {
+            remember(findEpic(epic.getId()));
+        }
         super.updateEpic(epic);
-        save();
+        persistPut(epic == null ? null : findEpic(epic.getId()));
     }
 
     @Override
-    public void updateSubtask(Subtask subtask) {
+    public synchronized void updateSubtask(Subtask subtask) {
+        if (subtask != null) {
+            Subtask existing = findSubtask(subtask.getId());
+            remember(existing);
+            remember(existing == null ? null : findEpic(existing.getEpicId()));
+            remember(findEpic(subtask.getEpicId()));
+        }
         super.updateSubtask(subtask);
-        save();
+        persistPut(subtask == null ? null : findSubtask(subtask.getId()));
     }
 
     //Методы для удаления всех задач, эпиков и подзадач
     @Override
-    public void deleteAllTasks() {
+    public synchronized void deleteAllTasks() {
+        rememberDeleted(viewAllTasks());
         super.deleteAllTasks();
-        save();
+        persistClear(TaskType.TASK);
     }
 
     @Override
-    public void deleteAllEpics() {
+    public synchronized void deleteAllEpics() {
+        rememberDeleted(viewAllSubtasks());
+        rememberDeleted(viewAllEpics());
         super.deleteAllEpics();
-        save();
+        persistClear(TaskType.EPIC);
     }
 
     @Override
-    public void deleteAllSubtasks() {
+    public synchronized void deleteAllSubtasks() {
+        rememberDeleted(viewAllSubtasks());
+        viewAllEpics().forEach(this::remember);
         super.deleteAllSubtasks();
-        save();
+        persistClear(TaskType.SUBTASK);
     }
 
     //Методы удаления задач по идентификатору
     @Override
-    public void deleteTask(Integer idTask) {
+    public synchronized void deleteTask(Integer idTask) {
+        rememberDeleted(Collections.singletonList(findTask(idTask)));
         super.deleteTask(idTask);
-        save();
+        persistDelete(TaskType.TASK, idTask);
     }
 
     @Override
-    public void deleteEpic(Integer idEpic) {
+    public synchronized void deleteEpic(Integer idEpic) {
+        Epic epic = findEpic(idEpic);
+        if (epic != null) {
+            rememberDeleted(epic.getSubtasksId().stream().map(this::findSubtask).toList());
+        }
+        rememberDeleted(Collections.singletonList(epic));
         super.deleteEpic(idEpic);
-        save();
+        persistDelete(TaskType.EPIC, idEpic);
     }
 
     @Override
-    public void deleteSubtask(Integer idSubtask) {
+    public synchronized void deleteSubtask(Integer idSubtask) {
+        Subtask subtask = findSubtask(idSubtask);
+        rememberDeleted(Collections.singletonList(subtask));
+        remember(subtask == null ? null : findEpic(subtask.getEpicId()));
         super.deleteSubtask(idSubtask);
-        save();
+        persistDelete(TaskType.SUBTASK, idSubtask);
     }
 
+    // Полный пересчет эпика учитывает изменения подзадач в обход менеджера, поэтому сохраняется снимком
     @Override
-    public void checkEpicStatus(Integer idEpic) {
+    public synchronized void checkEpicStatus(Integer idEpic) {
+        remember(findEpic(idEpic));
         super.checkEpicStatus(idEpic);
-        save();
+        if (journalFile != null && deferDepth == 0) {
+            compact();
+        } else {
+            persistSnapshot();
+        }
+    }
+
+    /* Пакет фиксируется на диске один раз: изменения операций накапливаются и записываются
+    одной перезаписью снимка либо одной дозаписью всех записей пакета в журнал.
+    Внутри транзакции пакет фиксируется вместе с ней
+     */
+    @Override
+    public synchronized void applyBatch(List<Operation> operations) {
+        deferDepth++;
+        try {
+            super.applyBatch(operations);
+        } finally {
+            if (--deferDepth == 0) {
+                flushPending();
+                compactIfDue();
+            }
+        }
+    }
+
+    /* Единица работы: изменения внутри work только накапливаются и фиксируются на диске один раз при выходе.
+    Если work завершилась исключением или запись не удалась, состояние в памяти откатывается к началу
+    транзакции, а исключение пробрасывается дальше. Вложенная транзакция выполняется в составе внешней.
+    В режиме журнала моментом фиксации является дозапись в журнал; сжатие журнала выполняется уже после нее.
+    Для отката запоминаются только задачи, которые транзакция затронула, поэтому ее стоимость не зависит
+    от размера доски. Изменения объектов задач в обход методов менеджера не откатываются
+     */
+    public synchronized void inTransaction(Consumer<FileBackedTaskManager> work) {
+        if (deferDepth > 0) {
+            work.accept(this);
+            return;
+        }
+
+        undoLog = new LinkedHashMap<>();
+        boolean committed = false;
+        deferDepth++;
+        try {
+            work.accept(this);
+            deferDepth--;
+            flushPending();
+            committed = true;
+            compactIfDue();
+        } finally {
+            Map<Integer, Task> undo = undoLog;
+            List<Integer> historyIds = historyBeforeDelete;
+            undoLog = null;
+            historyBeforeDelete = null;
+            if (!committed) {
+                deferDepth = 0;
+                snapshotPending = false;
+                pendingRecords.clear();
+                rollback(undo, historyIds);
+            }
+        }
+    }
+
+    /* Запись несохраненных изменений в отложенном режиме: копии задач снимаются под монитором менеджера,
+    а файл пишется уже без него, не задерживая изменяющие вызовы. Копируются сами задачи, а не только списки:
+    эпики пересчитываются на месте, и запись живых объектов могла бы сохранить их в промежуточном состоянии.
+    Задача, измененная во время записи, снова помечает состояние измененным и попадет в следующий снимок.
+    При любой ошибке записи изменения снова считаются несохраненными. В остальных режимах все уже записано.
+    Порядок блокировок - flushLock, затем монитор менеджера; вызов с уже захваченным монитором (например,
+    внутри inTransaction) мог бы взаимно заблокироваться с фоновой записью, поэтому он отклоняется
+     */
+    public void flush() {
+        if (flusher == null) {
+            return;
+        }
+        if (Thread.holdsLock(this)) {
+            throw new IllegalStateException("flush нельзя вызывать под монитором менеджера, "
+                    + "например внутри транзакции");
+        }
+
+        synchronized (flushLock) {
+            List<Task> tasks;
+            List<Epic> epics;
+            List<Subtask> subtasks;
+            int changes;
+            long since;
+            synchronized (this) {
+                if (unsavedChanges == 0) {
+                    return;
+                }
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+                flushRequested = false;
+                tasks = copies(getAllTasks());
+                epics = copies(getAllEpics());
+                subtasks = copies(getAllSubtasks());
+                changes = unsavedChanges;
+                since = dirtySince;
+                unsavedChanges = 0;
+            }
+
+            long started = System.nanoTime();
+            boolean written = false;
+            try {
+                writeSnapshot(tasks, epics, subtasks);
+                written = true;
+            } finally {
+                if (!written) {
+                    synchronized (this) {
+                        // Изменения остаются несохраненными и будут записаны следующей попыткой
+                        failedFlushes++;
+                        unsavedChanges += changes;
+                        dirtySince = since;
+                        if (scheduledFlush == null && !flusher.isShutdown()) {
+                            scheduledFlush = flusher.schedule(this::flushInBackground, flushIntervalMillis,
+                                    TimeUnit.MILLISECONDS);
+                        }
+                    }
+                }
+            }
+
+            long finished = System.nanoTime();
+            synchronized (this) {
+                flushCount++;
+                lastFlushLagNanos = finished - since;
+                maxFlushLagNanos = Math.max(maxFlushLagNanos, lastFlushLagNanos);
+                lastFlushNanos = finished - started;
+                maxFlushNanos = Math.max(maxFlushNanos, lastFlushNanos);
+            }
+        }
+    }
+
+    // Остановка фоновой записи с сохранением оставшихся изменений
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flush();
+        }
     }
 
-    // Метод, который восстанавливает состояние менеджера из файла
+    // Метрики отложенной записи: задержка изменений до попадания на диск и длительность записи снимка
+    public synchronized FlushMetrics getFlushMetrics() {
+        return new FlushMetrics(flushCount, failedFlushes, unsavedChanges,
+                Duration.ofNanos(lastFlushLagNanos), Duration.ofNanos(maxFlushLagNanos),
+                Duration.ofNanos(lastFlushNanos), Duration.ofNanos(maxFlushNanos));
+    }
+
+    /* Метод, который восстанавливает состояние менеджера из файла.
+    Записи восстанавливаются с исходными id одним проходом, без проверок и без записи на диск
+     */
     public static FileBackedTaskManager loadFromFile(File file) throws ManagerReadException {
-        if (file == null || !file.exists()) {
+        if (file == null || !file.exists() && !previousGeneration(file).exists()) {
             throw new ManagerReadException("Файл не существует");
         }
 
         FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        manager.restoreSnapshot();
+        return manager;
+    }
+
+    /* Метод восстанавливает менеджер в режиме журнала: загружается последний снимок (если он есть)
+    с исходными id, затем поверх него применяется хвост журнала
+     */
+    public static FileBackedTaskManager loadFromFile(File file, int compactionThreshold)
+            throws ManagerReadException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, compactionThreshold);
 
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-            String line;
-            bufferedReader.readLine();
+        if (file.exists() || previousGeneration(file).exists()) {
+            manager.restoreSnapshot();
+        }
+        if (manager.journalFile.exists()) {
+            try {
+                manager.replayJournal();
+            } catch (IOException e) {
+                throw new ManagerReadException("Ошибка при чтении данных из файла: " + e.getMessage());
+            } catch (IllegalArgumentException e) {
+                throw new ManagerReadException("Ошибка при восстановлении данных: " + e.getMessage());
+            }
+        }
+        return manager;
+    }
 
-            List<Task> tasks = new ArrayList<>();
+    // Метод восстанавливает менеджер в режиме отложенной записи из последнего снимка, если он есть
+    public static FileBackedTaskManager loadFromFile(File file, Duration flushInterval, int maxPendingChanges)
+            throws ManagerReadException {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, flushInterval, maxPendingChanges);
+        if (file.exists() || previousGeneration(file).exists()) {
+            manager.restoreSnapshot();
+        }
+        return manager;
+    }
 
-            while ((line = bufferedReader.readLine()) != null) {
-                Task task = fromString(line);
-                if (task != null) {
-                    tasks.add(task);
-                }
+    /* Метод читает снимок и передает все записи в массовое восстановление.
+    Если снимок отсутствует или не прошел проверку, читается предыдущее поколение. В режиме журнала это
+    допустимо, только если журнал относится к предыдущему поколению (сбой сжатия до удаления журнала);
+    иначе изменения, сжатые в текущий снимок, потеряны, и загрузка отклоняется
+     */
+    private void restoreSnapshot() {
+        List<Task> tasks;
+        try {
+            CRC32 checksum = new CRC32();
+            tasks = readSnapshot(file, checksum);
+            snapshotBase = Long.toHexString(checksum.getValue()) + "," + file.length();
+        } catch (ManagerReadException e) {
+            File previous = previousGeneration(file);
+            if (!previous.exists()) {
+                throw e;
             }
-            for (Task task : tasks) {
-                switch (task.getTaskType()) {
-                    case TASK:
-                        manager.createTask(task);
-                        break;
-                    case EPIC:
-                        manager.createEpic((Epic) task);
-                        break;
-                    case SUBTASK:
-                        manager.createSubtask((Subtask) task);
-                        break;
+            System.err.println("Снимок не прошел проверку, загружается предыдущий: " + e.getMessage());
+            CRC32 checksum = new CRC32();
+            tasks = readSnapshot(previous, checksum);
+            if (journalFile != null) {
+                String previousBase = Long.toHexString(checksum.getValue()) + "," + previous.length();
+                if (!previousBase.equals(journalBase())) {
+                    throw new ManagerReadException("Снимок не прошел проверку: " + e.getMessage()
+                            + "; журнал не относится к предыдущему поколению " + previous
+                            + ", изменения между поколениями уже удалены при сжатии");
                 }
+                snapshotBase = previousBase;
+            }
+        }
+
+        try {
+            restoreAll(tasks);
+        } catch (IllegalArgumentException e) {
+            throw new ManagerReadException("Ошибка при восстановлении данных: " + e.getMessage());
+        }
+    }
+
+    /* Чтение снимка в формате, определенном по сигнатуре файла, с проверкой контрольной суммы за тот же проход.
+    Большой снимок CSV читается в память целиком и разбирается фрагментами параллельно в общем ForkJoinPool.
+    В fileChecksum попадают все байты файла - это отпечаток снимка для заголовка журнала
+     */
+    private static List<Task> readSnapshot(File source, Checksum fileChecksum) {
+        if (!source.exists()) {
+            throw new ManagerReadException("Файл не существует: " + source);
+        }
+
+        try (InputStream input = new BufferedInputStream(
+                new CheckedInputStream(new FileInputStream(source), fileChecksum))) {
+            SnapshotCodec codec = SnapshotCodecs.detect(input);
+            List<Task> tasks;
+            if (codec instanceof CsvSnapshotCodec csv && source.length() >= PARALLEL_LOAD_THRESHOLD
+                    && source.length() <= MAX_PARALLEL_LOAD_SIZE) {
+                tasks = csv.readParallel(input.readAllBytes(), ForkJoinPool.commonPool());
+            } else {
+                tasks = codec.read(input);
             }
+            input.transferTo(OutputStream.nullOutputStream());
+            return tasks;
         } catch (IOException e) {
             throw new ManagerReadException("Ошибка при чтении данных из файла: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ManagerReadException("Ошибка при восстановлении данных из " + source + ": " + e.getMessage());
         }
-        return manager;
+    }
+
+    private static File previousGeneration(File file) {
+        return new File(file.getPath() + PREVIOUS_SUFFIX);
     }
 
     // Метод, который сохраняет текущее состояние менеджера в указанный файл
     private void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
-            writer.write("id,type,title,description,status,epic,startTime,duration\n");
+        writeSnapshot(getAllTasks(), getAllEpics(), getAllSubtasks());
+    }
 
-            for (Task task : getAllTasks()) {
-                writer.write(task.toString() + "\n");
+    // Отпечаток снимка на диске, к которому применяется журнал: CRC32 и длина файла ("0,0", если снимка нет)
+    private String snapshotBase() {
+        if (snapshotBase == null) {
+            CRC32 checksum = new CRC32();
+            try (InputStream input = new CheckedInputStream(new FileInputStream(file), checksum)) {
+                input.transferTo(OutputStream.nullOutputStream());
+            } catch (FileNotFoundException e) {
+                return "0,0";
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка при чтении снимка: " + e.getMessage());
             }
-            for (Epic epic : getAllEpics()) {
-                writer.write(epic.toString() + "\n");
+            snapshotBase = Long.toHexString(checksum.getValue()) + "," + file.length();
+        }
+        return snapshotBase;
+    }
+
+    /* Снимок пишется во временный файл и сбрасывается на диск; затем текущий снимок становится
+    предыдущим поколением, а временный файл атомарно занимает его место. Сбой на любом шаге
+    оставляет на диске целый снимок: текущий или предыдущий. После переименований на диск сбрасывается
+    и каталог, иначе при отключении питания сами переименования могут быть потеряны.
+    Возвращает отпечаток записанного снимка для заголовка журнала
+     */
+    private String writeSnapshot(List<Task> tasks, List<Epic> epics, List<Subtask> subtasks) {
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        CRC32 checksum = new CRC32();
+
+        try (FileOutputStream output = new FileOutputStream(temp)) {
+            BufferedOutputStream buffered = new BufferedOutputStream(new CheckedOutputStream(output, checksum));
+            codec.write(buffered, tasks, epics, subtasks);
+            buffered.flush();
+            output.getFD().sync();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи данных в файл: " + e.getMessage());
+        }
+
+        String fingerprint = Long.toHexString(checksum.getValue()) + "," + temp.length();
+        try {
+            if (file.exists()) {
+                Files.move(file.toPath(), previousGeneration(file).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
             }
-            for (Subtask subtask : getAllSubtasks()) {
-                writer.write(subtask.toString() + "\n");
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при замене файла снимка: " + e.getMessage());
+        }
+        syncDirectory(file.getAbsoluteFile().getParentFile());
+        return fingerprint;
+    }
+
+    /* Сброс записей каталога на диск; там, где каталог нельзя открыть как файл (Windows), шаг пропускается
+    с предупреждением. Исключение не бросается: к этому моменту файлы уже заменены и изменение зафиксировано
+     */
+    private static void syncDirectory(File directory) {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            System.err.println("Каталог снимка не сброшен на диск: " + e.getMessage());
+        }
+    }
+
+    /* Сжатие журнала: текущее состояние записывается снимком, после чего журнал удаляется.
+    Сбой между этими шагами оставляет журнал с отпечатком прежнего снимка, который при загрузке отбрасывается;
+    если не удалось удалить журнал, удаление повторяется перед следующей дозаписью
+     */
+    private void compact() {
+        snapshotBase = writeSnapshot(getAllTasks(), getAllEpics(), getAllSubtasks());
+        journalStale = true;
+        journalRecords = 0;
+        deleteJournal();
+    }
+
+    private void deleteJournal() {
+        try {
+            Files.deleteIfExists(journalFile.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при удалении журнала: " + e.getMessage());
+        }
+        syncDirectory(journalFile.getAbsoluteFile().getParentFile());
+        journalStale = false;
+    }
+
+    // Методы фиксации изменений: запись в журнал либо полная перезапись снимка
+    private void persistPut(Task task) {
+        if (journalFile == null) {
+            persistSnapshot();
+        } else if (task != null) {
+            appendJournal(PUT + "," + CsvSnapshotCodec.formatLine(task));
+        }
+    }
+
+    private void persistDelete(TaskType type, Integer id) {
+        if (journalFile == null) {
+            persistSnapshot();
+        } else if (id != null) {
+            appendJournal(DELETE + "," + type + "," + id);
+        }
+    }
+
+    private void persistClear(TaskType type) {
+        if (journalFile == null) {
+            persistSnapshot();
+        } else {
+            appendJournal(CLEAR + "," + type);
+        }
+    }
+
+    /* Во время пакета или транзакции снимок только помечается устаревшим и перезаписывается один раз в конце;
+    в режиме отложенной записи его перезаписывает фоновый поток
+     */
+    private void persistSnapshot() {
+        if (deferDepth > 0) {
+            snapshotPending = true;
+        } else if (flusher != null) {
+            markDirty();
+        } else {
+            save();
+        }
+    }
+
+    // Вызывается под монитором менеджера; после close() изменения сохраняются сразу
+    private void markDirty() {
+        if (flusher.isShutdown()) {
+            save();
+            return;
+        }
+        if (unsavedChanges++ == 0) {
+            dirtySince = System.nanoTime();
+        }
+        if (scheduledFlush == null) {
+            scheduledFlush = flusher.schedule(this::flushInBackground, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        if (unsavedChanges >= maxPendingChanges && !flushRequested) {
+            flushRequested = true;
+            flusher.execute(this::flushInBackground);
+        }
+    }
+
+    private void appendJournal(String record) {
+        if (deferDepth > 0) {
+            pendingRecords.add(record);
+        } else {
+            appendJournal(List.of(record));
+            compactIfDue();
+        }
+    }
+
+    /* Записи дописываются в журнал одной операцией записи и сбрасываются на диск; после этого изменения
+    считаются сохраненными. Новый журнал начинается с отпечатка снимка, к которому применяются его записи
+     */
+    private void appendJournal(List<String> records) {
+        if (journalStale) {
+            deleteJournal();
+        }
+        boolean created = journalFile.length() == 0;
+        StringBuilder chunk = new StringBuilder();
+        if (created) {
+            chunk.append(BASE).append(',').append(snapshotBase()).append('\n');
+        }
+        records.forEach(record -> chunk.append(record).append('\n'));
+        try (FileOutputStream output = new FileOutputStream(journalFile, true)) {
+            output.write(chunk.toString().getBytes(StandardCharsets.UTF_8));
+            output.getFD().sync();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в журнал: " + e.getMessage());
+        }
+        if (created) {
+            syncDirectory(journalFile.getAbsoluteFile().getParentFile());
+        }
+        journalRecords += records.size();
+    }
+
+    /* Применение журнала при загрузке. Неполная последняя запись (сбой посреди дозаписи) отбрасывается
+    и отрезается от файла. Журнал с отпечатком другого снимка остался от прерванного сжатия: его записи
+    уже учтены в снимке, поэтому он не применяется и удаляется перед следующей дозаписью
+     */
+    private void replayJournal() throws IOException {
+        byte[] data = Files.readAllBytes(journalFile.toPath());
+        int complete = completeLength(data);
+        if (complete < data.length) {
+            System.err.println("Отброшена неполная последняя запись журнала: " + (data.length - complete) + " байт");
+            try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(complete);
+                channel.force(true);
+            }
+        }
+
+        CsvReader reader = new CsvReader(new ByteArrayInputStream(data, 0, complete));
+        boolean first = true;
+        while (reader.next()) {
+            if (reader.isEmptyLine()) {
+                continue;
+            }
+            if (first && reader.field(0).equals(BASE)) {
+                first = false;
+                String base = reader.size() == 3 ? reader.field(1) + "," + reader.field(2) : "";
+                if (!base.equals(snapshotBase())) {
+                    System.err.println("Журнал относится к другому снимку и уже учтен в нем: " + journalFile);
+                    journalStale = true;
+                    return;
+                }
+                continue;
             }
+            first = false;
+            replay(reader);
+            journalRecords++;
+        }
+    }
+
+    // Отпечаток снимка из первой строки журнала или null, если журнала нет или он без заголовка
+    private String journalBase() {
+        if (!journalFile.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journalFile.toPath(), StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            return line != null && line.startsWith(BASE + ",") ? line.substring(BASE.length() + 1) : null;
         } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка при записи данных в файл: " + e.getMessage());
+            throw new ManagerReadException("Ошибка при чтении журнала: " + e.getMessage());
         }
     }
 
-    // Метод создания задачи из строки
-    private static Task fromString(String value) {
-        String[] words = value.split(",", -1);
+    // Длина журнала до конца последней целой записи: перевода строки вне кавычек
+    private static int completeLength(byte[] data) {
+        int complete = 0;
+        boolean quoted = false;
+        for (int index = 0; index < data.length; index++) {
+            if (data[index] == '"') {
+                quoted = !quoted;
+            } else if (data[index] == '\n' && !quoted) {
+                complete = index + 1;
+            }
+        }
+        return complete;
+    }
 
+    /* Сжатие журнала по достижении порога. Изменения к этому моменту уже зафиксированы в журнале,
+    поэтому ошибка сжатия их не отменяет: журнал остается целым и сжимается при следующей дозаписи
+     */
+    private void compactIfDue() {
+        if (journalFile == null || journalRecords < compactionThreshold) {
+            return;
+        }
         try {
-            TaskType type = TaskType.valueOf(words[1]);
-            return switch (type) {
-                case TASK -> parseTaskFromString(words);
-                case EPIC -> parseEpicFromString(words);
-                case SUBTASK -> parseSubtaskFromString(words);
-            };
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Ошибка парсинга строки: " + value, e);
+            compact();
+        } catch (ManagerSaveException e) {
+            System.err.println("Ошибка сжатия журнала: " + e.getMessage());
+        }
+    }
+
+    // Запоминание прежней копии задачи при первом ее изменении в транзакции; копия эпика хранит и его подзадачи
+    private void remember(Task task) {
+        if (undoLog == null || task == null || undoLog.containsKey(task.getId())) {
+            return;
+        }
+        Task copy = copyOf(task);
+        if (task instanceof Epic epic) {
+            ((Epic) copy).setSubtasksId(epic.getSubtasksId());
+        }
+        undoLog.put(task.getId(), copy);
+    }
+
+    // Созданной в транзакции задачи до нее не было: при откате она удаляется
+    private void rememberCreated(Task task) {
+        if (undoLog != null && task != null && task.getId() != null && !undoLog.containsKey(task.getId())) {
+            undoLog.put(task.getId(), null);
+        }
+    }
+
+    // Удаление убирает задачи из истории просмотров, поэтому перед первым удалением запоминается и история
+    private void rememberDeleted(Collection<? extends Task> tasks) {
+        if (undoLog == null) {
+            return;
+        }
+        if (historyBeforeDelete == null) {
+            historyBeforeDelete = getHistory().stream().map(Task::getId).toList();
+        }
+        tasks.forEach(this::remember);
+    }
+
+    /* Откат по журналу отмены: созданные в транзакции задачи удаляются, прежние копии остальных
+    восстанавливаются (задачи, затем эпики, затем подзадачи), после чего эпикам возвращаются прежние
+    списки подзадач и пересчитываются статус и время. Созданные эпики удаляются после восстановления
+    подзадач, которые могли быть в них перенесены
+     */
+    private void rollback(Map<Integer, Task> undo, List<Integer> historyIds) {
+        List<Integer> created = new ArrayList<>();
+        List<Task> previous = new ArrayList<>();
+        Map<Integer, List<Integer>> subtaskLists = new HashMap<>();
+        undo.forEach((id, task) -> {
+            if (task == null) {
+                created.add(id);
+            } else {
+                previous.add(task);
+                if (task instanceof Epic epic) {
+                    subtaskLists.put(id, epic.getSubtasksId());
+                }
+            }
+        });
+
+        for (Integer id : created) {
+            if (findSubtask(id) != null) {
+                super.deleteSubtask(id);
+            } else if (findTask(id) != null) {
+                super.deleteTask(id);
+            }
+        }
+        previous.sort(Comparator.comparing(Task::getTaskType));
+        previous.forEach(this::restoreTask);
+        for (Integer id : created) {
+            if (findEpic(id) != null) {
+                super.deleteEpic(id);
+            }
+        }
+        subtaskLists.forEach((id, subtaskIds) -> {
+            findEpic(id).setSubtasksId(subtaskIds);
+            super.checkEpicStatus(id);
+        });
+
+        if (historyIds != null) {
+            restoreHistory(historyIds);
+        }
+    }
+
+    // Метод записывает накопленные за пакет или транзакцию изменения
+    private void flushPending() {
+        if (snapshotPending) {
+            // Снимок включает все накопленные изменения, поэтому записи журнала уже не нужны
+            snapshotPending = false;
+            pendingRecords.clear();
+            if (journalFile != null) {
+                compact();
+            } else {
+                persistSnapshot();
+            }
+        } else if (!pendingRecords.isEmpty()) {
+            List<String> records = List.copyOf(pendingRecords);
+            pendingRecords.clear();
+            appendJournal(records);
+        }
+    }
+
+    /* Фоновая запись: любая ошибка не прерывает поток записи, иначе исключение осталось бы в отброшенной Future,
+    а изменения - несохраненными без следующей попытки
+     */
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Ошибка фоновой записи снимка: " + e);
+        }
+    }
+
+    // Применение одной записи журнала без повторной записи в журнал: первое поле - операция, далее ее данные
+    private void replay(CsvReader record) {
+        String operation = record.field(0);
+
+        switch (operation) {
+            case PUT -> restoreTask(CsvSnapshotCodec.parseRecord(record, 1));
+            case DELETE -> {
+                Integer id = Integer.parseInt(record.field(2));
+                switch (TaskType.valueOf(record.field(1))) {
+                    case TASK -> super.deleteTask(id);
+                    case EPIC -> super.deleteEpic(id);
+                    case SUBTASK -> super.deleteSubtask(id);
+                }
+            }
+            case CLEAR -> {
+                switch (TaskType.valueOf(record.field(1))) {
+                    case TASK -> super.deleteAllTasks();
+                    case EPIC -> super.deleteAllEpics();
+                    case SUBTASK -> super.deleteAllSubtasks();
+                }
+            }
+            default -> throw new IllegalArgumentException("Неизвестная запись журнала: " + operation);
+        }
+    }
+
+    private static Task copyOf(Task task) {
+        return CsvSnapshotCodec.parseLine(CsvSnapshotCodec.formatLine(task));
+    }
+
+    // Копии задач со всеми полями, которые пишут кодеки снимка
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> List<T> copies(List<T> tasks) {
+        List<T> copies = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            copies.add((T) copyOf(task));
         }
+        return copies;
     }
-}
\ No newline at end of file
+}
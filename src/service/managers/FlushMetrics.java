@@ -0,0 +1,73 @@
+package service.managers;
+
+import java.time.Duration;
+
+/**
+ * Снимок метрик отложенной записи FileBackedTaskManager.
+ * Задержка (lag) - время от первого несохраненного изменения до окончания записи снимка,
+ * длительность - время самой записи файла.
+ */
+
+public class FlushMetrics {
+
+    private final long flushCount;
+    private final long failedFlushes;
+    private final int unsavedChanges;
+    private final Duration lastFlushLag;
+    private final Duration maxFlushLag;
+    private final Duration lastFlushDuration;
+    private final Duration maxFlushDuration;
+
+    public FlushMetrics(long flushCount, long failedFlushes, int unsavedChanges,
+                        Duration lastFlushLag, Duration maxFlushLag,
+                        Duration lastFlushDuration, Duration maxFlushDuration) {
+        this.flushCount = flushCount;
+        this.failedFlushes = failedFlushes;
+        this.unsavedChanges = unsavedChanges;
+        this.lastFlushLag = lastFlushLag;
+        this.maxFlushLag = maxFlushLag;
+        this.lastFlushDuration = lastFlushDuration;
+        this.maxFlushDuration = maxFlushDuration;
+    }
+
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    public long getFailedFlushes() {
+        return failedFlushes;
+    }
+
+    public int getUnsavedChanges() {
+        return unsavedChanges;
+    }
+
+    public Duration getLastFlushLag() {
+        return lastFlushLag;
+    }
+
+    public Duration getMaxFlushLag() {
+        return maxFlushLag;
+    }
+
+    public Duration getLastFlushDuration() {
+        return lastFlushDuration;
+    }
+
+    public Duration getMaxFlushDuration() {
+        return maxFlushDuration;
+    }
+
+    @Override
+    public String toString() {
+        return "FlushMetrics{" +
+                "flushCount=" + flushCount +
+                ", failedFlushes=" + failedFlushes +
+                ", unsavedChanges=" + unsavedChanges +
+                ", lastFlushLag=" + lastFlushLag +
+                ", maxFlushLag=" + maxFlushLag +
+                ", lastFlushDuration=" + lastFlushDuration +
+                ", maxFlushDuration=" + maxFlushDuration +
+                '}';
+    }
+}
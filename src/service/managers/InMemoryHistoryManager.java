@@ -1,5 +1,7 @@
 package service.managers;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.*;
 import java.util.List;
 import java.util.Map;
@@ -7,14 +9,43 @@ import java.util.Map;
 import model.Task;
 import model.TaskNode;
 
+/**
+ * История просмотров на двусвязном списке: в начале списка задача, просмотренная раньше всех.
+ * Емкость истории ограничена: при переполнении за O(1) вытесняется самая давно просмотренная задача.
+ * Если задан срок хранения, просмотры старше него удаляются с начала списка при добавлении и чтении истории.
+ */
+
 public class InMemoryHistoryManager implements HistoryManager {
 
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
     private final Map<Integer, TaskNode> historyMap;
+    private final int capacity;
+    private final Duration expiry;
+    private final Clock clock;
     private TaskNode head;
     private TaskNode tail;
 
     public InMemoryHistoryManager() {
+        this(UNLIMITED, null);
+    }
+
+    // capacity - максимальное число задач в истории, expiry - срок хранения просмотра (null - без ограничения)
+    public InMemoryHistoryManager(int capacity, Duration expiry) {
+        this(capacity, expiry, Clock.systemUTC());
+    }
+
+    public InMemoryHistoryManager(int capacity, Duration expiry, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость истории должна быть положительной");
+        }
+        if (expiry != null && (expiry.isNegative() || expiry.isZero())) {
+            throw new IllegalArgumentException("Срок хранения истории должен быть положительным");
+        }
         this.historyMap = new HashMap<>();
+        this.capacity = capacity;
+        this.expiry = expiry;
+        this.clock = clock;
         this.head = null;
         this.tail = null;
     }
@@ -24,9 +55,14 @@ public class InMemoryHistoryManager implements HistoryManager {
     public void add(Task task) {
         int id = task.getId();
         remove(id);
+        evictExpired();
 
         linkLast(task);
         historyMap.put(id, tail);
+
+        if (historyMap.size() > capacity) {
+            evictHead();
+        }
     }
 
     // Метод удаляет задачу из истории просмотров
@@ -41,6 +77,7 @@ public class InMemoryHistoryManager implements HistoryManager {
     // Метод возвращает список последних просмотренных задач
     @Override
     public List<Task> getHistory() {
+        evictExpired();
         return getTasks();
     }
 
@@ -66,6 +103,25 @@ public class InMemoryHistoryManager implements HistoryManager {
             tail.setNext(new TaskNode(task, tail));
             tail = tail.getNext();
         }
+        tail.setViewedAt(clock.millis());
+    }
+
+    // Метод вытесняет самую давно просмотренную задачу
+    private void evictHead() {
+        TaskNode oldest = head;
+        removeNode(oldest);
+        historyMap.remove(oldest.getTask().getId());
+    }
+
+    // Метод удаляет просмотры старше срока хранения; они всегда находятся в начале списка
+    private void evictExpired() {
+        if (expiry == null) {
+            return;
+        }
+        long threshold = clock.millis() - expiry.toMillis();
+        while (head != null && head.getViewedAt() <= threshold) {
+            evictHead();
+        }
     }
 
     // Метод удаляет узел из двусвязного списка
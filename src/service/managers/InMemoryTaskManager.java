@@ -1,24 +1,60 @@
 package service.managers;
 
-import enums.*;
+import enums.Status;
+import enums.TaskType;
 import model.*;
 import service.exeptions.NotFoundException;
 import service.exeptions.TimeOverlapException;
+import service.indexes.FreeSlotFinder;
+import service.indexes.PriorityIndex;
+import service.indexes.SlotOccupancyIndex;
+import service.indexes.StatusIndex;
+import service.indexes.TextIndex;
+import service.indexes.TimeIntervalIndex;
 
-import java.util.*;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class InMemoryTaskManager implements TaskManager {
 
     private final Map<Integer, Task> allTasks = new HashMap<>();
     private final Map<Integer, Epic> allEpics = new HashMap<>();
     private final Map<Integer, Subtask> allSubtasks = new HashMap<>();
-    private final HistoryManager historyManager = Managers.getDefaultHistory();
-    private final Comparator<Task> taskComparator = Comparator.comparing(Task::getStartTime,
-            Comparator.nullsLast(Comparator.naturalOrder()));
-    private final Set<Task> prioritizedTasks = new TreeSet<>(taskComparator);
+    // Упорядоченные id хранилищ: нужны только постраничной выдаче и меняются лишь при добавлении и удалении
+    private final NavigableSet<Integer> taskIds = new TreeSet<>();
+    private final NavigableSet<Integer> epicIds = new TreeSet<>();
+    private final NavigableSet<Integer> subtaskIds = new TreeSet<>();
+    private final HistoryManager historyManager;
+    private final PriorityIndex prioritizedTasks = new PriorityIndex();
+    private final TimeIntervalIndex intervalIndex = new TimeIntervalIndex();
+    private final SlotOccupancyIndex slotIndex;
+    private final StatusIndex taskStatuses = new StatusIndex();
+    private final StatusIndex epicStatuses = new StatusIndex();
+    private final StatusIndex subtaskStatuses = new StatusIndex();
+    private final TextIndex textIndex = new TextIndex();
     private Integer id = 1;
+    private boolean batchValidated;
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    // Менеджер с переданной историей, например ограниченной из Managers.getBoundedHistory
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+        this.slotIndex = null;
+    }
+
+    /* Менеджер в режиме сетки расписания: время начала и продолжительность задач должны быть кратны slot,
+    а пересечения проверяются по битовой карте занятых ячеек вместо индекса интервалов
+     */
+    public InMemoryTaskManager(Duration slot) {
+        this.historyManager = Managers.getDefaultHistory();
+        this.slotIndex = new SlotOccupancyIndex(slot);
+    }
 
     //Методы получения списков всех созданных задач, эпиков и подзадач
     @Override
@@ -36,44 +72,86 @@ public class InMemoryTaskManager implements TaskManager {
         return List.copyOf(allSubtasks.values());
     }
 
+    // Методы постраничного получения задач, эпиков и подзадач в порядке id
+    @Override
+    public Page<Task> getTasksPage(String cursor, int limit) {
+        return Page.of(taskIds, allTasks::get, cursor, limit);
+    }
+
+    @Override
+    public Page<Epic> getEpicsPage(String cursor, int limit) {
+        return Page.of(epicIds, allEpics::get, cursor, limit);
+    }
+
+    @Override
+    public Page<Subtask> getSubtasksPage(String cursor, int limit) {
+        return Page.of(subtaskIds, allSubtasks::get, cursor, limit);
+    }
+
+    // Методы получения задач, эпиков и подзадач с указанным статусом через индекс статусов
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return taskStatuses.ids(status).stream().map(allTasks::get).toList();
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return epicStatuses.ids(status).stream().map(allEpics::get).toList();
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return subtaskStatuses.ids(status).stream().map(allSubtasks::get).toList();
+    }
+
     //Методы для удаления всех задач, эпиков и подзадач
     @Override
     public void deleteAllTasks() {
-        allTasks.keySet().forEach(id -> {
-            historyManager.remove(id);
-            prioritizedTasks.removeIf(task -> task.getId().equals(id));
-        });
+        allTasks.keySet().forEach(historyManager::remove);
+        textIndex.removeAll(allTasks.keySet());
+        prioritizedTasks.removeAll(allTasks.keySet());
+        allTasks.values().forEach(this::removeInterval);
         allTasks.clear();
+        taskIds.clear();
+        taskStatuses.clear();
     }
 
     @Override
     public void deleteAllEpics() {
-        Set<Integer> subtaskIds = new HashSet<>();
+        Set<Integer> removedSubtasks = new HashSet<>();
         for (Epic epic : allEpics.values()) {
-            subtaskIds.addAll(epic.getSubtasksId());
+            removedSubtasks.addAll(epic.getSubtasksId());
         }
 
-        subtaskIds.forEach(id -> {
-            allSubtasks.remove(id);
-            prioritizedTasks.removeIf(task -> task.getId().equals(id));
+        prioritizedTasks.removeAll(removedSubtasks);
+        removedSubtasks.forEach(id -> {
+            removeInterval(allSubtasks.remove(id));
+            subtaskIds.remove(id);
             historyManager.remove(id);
         });
+        textIndex.removeAll(removedSubtasks);
         allEpics.keySet().forEach(historyManager::remove);
+        textIndex.removeAll(allEpics.keySet());
         allEpics.clear();
+        epicIds.clear();
+        epicStatuses.clear();
+        subtaskStatuses.clear();
     }
 
     @Override
     public void deleteAllSubtasks() {
-        allSubtasks.keySet().forEach(id -> {
-            historyManager.remove(id);
-            prioritizedTasks.removeIf(task -> task.getId().equals(id));
-        });
+        allSubtasks.keySet().forEach(historyManager::remove);
+        textIndex.removeAll(allSubtasks.keySet());
+        prioritizedTasks.removeAll(allSubtasks.keySet());
+        allSubtasks.values().forEach(this::removeInterval);
         allEpics.values().forEach(epic -> {
-            epic.getSubtasksId().clear();
-            checkEpicDuration(epic);
-            checkEpicStatus(epic.getId());
+            epic.clearSubtasksId();
+            epic.resetSubtaskStates();
+            epicStatuses.put(epic.getId(), epic.getStatus());
         });
         allSubtasks.clear();
+        subtaskIds.clear();
+        subtaskStatuses.clear();
     }
 
     //Методы для получения задач, эпиков, подзадач по идентификатору и занесение в историю просмотров
@@ -124,6 +202,10 @@ public class InMemoryTaskManager implements TaskManager {
             throw new IllegalArgumentException("Описание задачи не может быть пустым");
         }
 
+        if (!fitsSlotGrid(task)) {
+            throw new IllegalArgumentException("Время задачи не совпадает с сеткой расписания");
+        }
+
         // Проверяем пересечение времени (если у задачи задано время)
         if (task.getStartTime() != null && checkIntersection(task)) {
             throw new TimeOverlapException("Задача пересекается по времени с уже добавленными");
@@ -131,10 +213,11 @@ public class InMemoryTaskManager implements TaskManager {
 
         task.setId(generateId());
         allTasks.put(task.getId(), task);
+        taskIds.add(task.getId());
+        taskStatuses.put(task.getId(), task.getStatus());
+        textIndex.put(task);
 
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
-        }
+        addPrioritized(task);
     }
 
     @Override
@@ -152,7 +235,10 @@ public class InMemoryTaskManager implements TaskManager {
 
         epic.setId(generateId());
         allEpics.put(epic.getId(), epic);
-        checkEpicDuration(epic);
+        epicIds.add(epic.getId());
+        epic.resetSubtaskStates();
+        epicStatuses.put(epic.getId(), epic.getStatus());
+        textIndex.put(epic);
     }
 
     @Override
@@ -173,6 +259,10 @@ public class InMemoryTaskManager implements TaskManager {
             throw new IllegalArgumentException("Не найден эпик с id=" + subtask.getEpicId());
         }
 
+        if (!fitsSlotGrid(subtask)) {
+            throw new IllegalArgumentException("Время подзадачи не совпадает с сеткой расписания");
+        }
+
         // Проверка пересечения времени
         if (subtask.getStartTime() != null && checkIntersection(subtask)) {
             throw new TimeOverlapException("Подзадача пересекается по времени с уже добавленными");
@@ -180,15 +270,16 @@ public class InMemoryTaskManager implements TaskManager {
 
         subtask.setId(generateId());
         allSubtasks.put(subtask.getId(), subtask);
+        subtaskIds.add(subtask.getId());
+        subtaskStatuses.put(subtask.getId(), subtask.getStatus());
+        textIndex.put(subtask);
 
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(subtask);
-        }
+        addPrioritized(subtask);
 
         Epic epic = allEpics.get(subtask.getEpicId());
         epic.addSubtask(subtask.getId());
-        checkEpicDuration(epic);
-        checkEpicStatus(epic.getId());
+        epic.applySubtask(subtask);
+        epicStatuses.put(epic.getId(), epic.getStatus());
     }
 
     //Методы обновления задач, эпиков и подзадач
@@ -199,20 +290,21 @@ public class InMemoryTaskManager implements TaskManager {
             return;
         }
 
-        Task existing = allTasks.get(task.getId());
-        prioritizedTasks.remove(existing);
+        if (!fitsSlotGrid(task)) {
+            System.out.println("Время задачи не совпадает с сеткой расписания");
+            return;
+        }
 
-        if (task.getStartTime() != null && checkIntersection(task)) {
+        // Прежний интервал задачи не учитывается: он мог быть изменен на месте в том же объекте
+        if (task.getStartTime() != null && checkIntersection(task, task.getId())) {
             System.out.println("Задача пересекается по времени с уже добавленными");
-            prioritizedTasks.add(existing);
             return;
         }
 
-        allTasks.put(task.getId(), task);
-
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(task);
-        }
+        removePrioritized(allTasks.put(task.getId(), task));
+        taskStatuses.put(task.getId(), task.getStatus());
+        textIndex.put(task);
+        addPrioritized(task);
     }
 
     @Override
@@ -225,7 +317,7 @@ public class InMemoryTaskManager implements TaskManager {
         Epic existing = allEpics.get(epic.getId());
         existing.setTitle(epic.getTitle());
         existing.setDescription(epic.getDescription());
-        checkEpicDuration(existing);
+        textIndex.put(existing);
     }
 
     @Override
@@ -248,30 +340,39 @@ public class InMemoryTaskManager implements TaskManager {
             return;
         }
 
+        if (!fitsSlotGrid(subtask)) {
+            System.out.println("Время подзадачи не совпадает с сеткой расписания");
+            return;
+        }
+
         // Проверка пересечения времени (кроме самой себя)
-        if (subtask.getStartTime() != null) {
-            Subtask existing = allSubtasks.get(subtask.getId());
-            prioritizedTasks.remove(existing);
-
-            if (checkIntersection(subtask)) {
-                prioritizedTasks.add(existing); // Возвращаем обратно при ошибке
-                System.out.println("Обнаружено пересечение по времени");
-                return;
-            }
+        if (subtask.getStartTime() != null && checkIntersection(subtask, subtask.getId())) {
+            System.out.println("Обнаружено пересечение по времени");
+            return;
         }
 
         // Обновление подзадачи
-        allSubtasks.put(subtask.getId(), subtask);
+        Subtask existing = allSubtasks.put(subtask.getId(), subtask);
+        removePrioritized(existing);
+        subtaskStatuses.put(subtask.getId(), subtask.getStatus());
+        textIndex.put(subtask);
 
         // Обновление prioritizedTasks
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(subtask);
+        addPrioritized(subtask);
+
+        // Перенос подзадачи из прежнего эпика, если он изменился
+        if (!subtask.getEpicId().equals(existing.getEpicId()) && allEpics.containsKey(existing.getEpicId())) {
+            Epic previousEpic = allEpics.get(existing.getEpicId());
+            previousEpic.deleteSubtaskById(subtask.getId());
+            previousEpic.withdrawSubtask(subtask.getId());
+            epicStatuses.put(previousEpic.getId(), previousEpic.getStatus());
         }
 
         // Обновление эпика
         Epic epic = allEpics.get(subtask.getEpicId());
-        checkEpicDuration(epic);
-        checkEpicStatus(epic.getId());
+        epic.addSubtask(subtask.getId());
+        epic.applySubtask(subtask);
+        epicStatuses.put(epic.getId(), epic.getStatus());
     }
 
     //Методы удаления задач по идентификатору
@@ -284,7 +385,10 @@ public class InMemoryTaskManager implements TaskManager {
             return;
         }
 
-        prioritizedTasks.remove(task);
+        removePrioritized(task);
+        taskIds.remove(idTask);
+        taskStatuses.remove(idTask);
+        textIndex.remove(idTask);
         historyManager.remove(idTask);
     }
 
@@ -297,13 +401,19 @@ public class InMemoryTaskManager implements TaskManager {
         }
 
         final Epic epic = allEpics.remove(idEpic);
+        epicIds.remove(idEpic);
 
+        prioritizedTasks.removeAll(epic.getSubtasksId());
         epic.getSubtasksId().forEach(subtaskId -> {
-            prioritizedTasks.removeIf(task -> task.getId().equals(subtaskId));
-            allSubtasks.remove(subtaskId);
+            removeInterval(allSubtasks.remove(subtaskId));
+            subtaskIds.remove(subtaskId);
+            subtaskStatuses.remove(subtaskId);
             historyManager.remove(subtaskId);
         });
+        textIndex.removeAll(epic.getSubtasksId());
 
+        epicStatuses.remove(idEpic);
+        textIndex.remove(idEpic);
         historyManager.remove(idEpic);
     }
 
@@ -316,11 +426,14 @@ public class InMemoryTaskManager implements TaskManager {
             return;
         }
 
-        prioritizedTasks.remove(subtask);
-        int epicId = subtask.getEpicId();
-        allEpics.get(epicId).deleteSubtaskById(idSubtask);
-        checkEpicDuration(getEpicById(subtask.getEpicId()));
-        checkEpicStatus(epicId);
+        removePrioritized(subtask);
+        subtaskIds.remove(idSubtask);
+        subtaskStatuses.remove(idSubtask);
+        textIndex.remove(idSubtask);
+        Epic epic = allEpics.get(subtask.getEpicId());
+        epic.deleteSubtaskById(idSubtask);
+        epic.withdrawSubtask(idSubtask);
+        epicStatuses.put(epic.getId(), epic.getStatus());
         historyManager.remove(idSubtask);
     }
 
@@ -345,106 +458,339 @@ public class InMemoryTaskManager implements TaskManager {
     //Метод возвращает список отсортированных задач по приоритету
     @Override
     public List<Task> getPrioritizedTasks() {
-        return List.copyOf(prioritizedTasks);
+        return List.copyOf(prioritizedTasks.values());
     }
 
-    // Проверка статуса эпика при удалении или изменении подзадачи
-    public void checkEpicStatus(Integer idEpic) {
-        // Проверка существования эпика
-        if (!allEpics.containsKey(idEpic)) {
-            System.out.println("Эпик с id=" + idEpic + " не найден");
-            return;
+    // Метод возвращает задачи окна: задачу, начавшуюся раньше from и еще идущую, и задачи, начинающиеся в окне
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Начало окна должно быть раньше его конца");
         }
 
-        Epic epic = allEpics.get(idEpic);
-        List<Integer> subtaskIds = epic.getSubtasksId();
+        List<Task> window = new ArrayList<>();
+        if (from != null) {
+            Task covering = intervalIndex.findCovering(from);
+            if (covering != null) {
+                window.add(covering);
+            }
+        }
+        window.addAll(prioritizedTasks.startingBetween(from, to));
+        return window;
+    }
 
-        // Обработка случая, когда нет подзадач
-        if (subtaskIds.isEmpty()) {
-            epic.setStatus(Status.NEW);
-            return;
+    // Поиск свободных промежутков одним проходом по расписанию, начиная с задачи, идущей в момент after
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime after, Duration duration, int limit) {
+        FreeSlotFinder.validate(after, duration, limit);
+
+        Task covering = intervalIndex.findCovering(after);
+        LocalDateTime from = covering == null ? after : covering.getEndTime();
+        return FreeSlotFinder.find(prioritizedTasks.startingFrom(after), from, duration, limit);
+    }
+
+    // Полнотекстовый поиск по названию и описанию задач всех типов с постраничной выдачей
+    @Override
+    public List<Task> search(String query, int offset, int limit) {
+        return textIndex.search(query, offset, limit).stream()
+                .map(this::findAny)
+                .toList();
+    }
+
+    /* Пакет проверяется целиком до первого изменения, поэтому при ошибке проверки менеджер не меняется.
+    Затем операции применяются по порядку без повторной проверки пересечений
+     */
+    @Override
+    public void applyBatch(List<Operation> operations) {
+        Set<Integer> releasedIds = new BatchValidator(this::find, intervalIndex, this::fitsSlotGrid)
+                .validate(operations);
+        if (slotIndex != null) {
+            // Брони изменяемых и удаляемых задач снимаются заранее, чтобы не стереть занявшие их ячейки задачи пакета
+            releasedIds.forEach(releasedId -> slotIndex.remove(findAny(releasedId)));
         }
 
-        int countNew = 0;
-        int countDone = 0;
+        batchValidated = true;
+        try {
+            operations.forEach(this::apply);
+        } finally {
+            batchValidated = false;
+        }
+    }
 
-        // Проверка статусов подзадач
-        for (Integer subtaskId : subtaskIds) {
-            Subtask subtask = allSubtasks.get(subtaskId);
+    // Методы получения представлений хранилищ без копирования
+    @Override
+    public Collection<Task> viewAllTasks() {
+        return Collections.unmodifiableCollection(allTasks.values());
+    }
 
-            // Пропускаем несуществующие подзадачи
-            if (subtask == null) {
-                System.out.println("Подзадача с id=" + subtaskId + " не найдена");
-                continue;
+    @Override
+    public Collection<Epic> viewAllEpics() {
+        return Collections.unmodifiableCollection(allEpics.values());
+    }
+
+    @Override
+    public Collection<Subtask> viewAllSubtasks() {
+        return Collections.unmodifiableCollection(allSubtasks.values());
+    }
+
+    @Override
+    public Collection<Task> viewPrioritizedTasks() {
+        return prioritizedTasks.values();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    // Методы доступа к хранимым задачам без записи в историю просмотров
+    protected Task findTask(Integer idTask) {
+        return allTasks.get(idTask);
+    }
+
+    protected Epic findEpic(Integer idEpic) {
+        return allEpics.get(idEpic);
+    }
+
+    protected Subtask findSubtask(Integer idSubtask) {
+        return allSubtasks.get(idSubtask);
+    }
+
+    private Task find(TaskType type, Integer id) {
+        return switch (type) {
+            case TASK -> allTasks.get(id);
+            case EPIC -> allEpics.get(id);
+            case SUBTASK -> allSubtasks.get(id);
+        };
+    }
+
+    // Поиск задачи любого типа: id задач, эпиков и подзадач не пересекаются
+    private Task findAny(Integer id) {
+        Task task = allTasks.get(id);
+        if (task == null) {
+            task = allEpics.get(id);
+        }
+        if (task == null) {
+            task = allSubtasks.get(id);
+        }
+        return task;
+    }
+
+    /* Восстановление сохраненной задачи с исходным id без повторных проверок.
+    Задача с тем же id заменяется, эпик обновляет название и описание, счетчик id сдвигается за восстановленный
+     */
+    protected void restoreTask(Task task) {
+        switch (task.getTaskType()) {
+            case TASK -> {
+                removePrioritized(allTasks.put(task.getId(), task));
+                taskIds.add(task.getId());
+                addPrioritized(task);
+                taskStatuses.put(task.getId(), task.getStatus());
+                textIndex.put(task);
+            }
+            case EPIC -> {
+                Epic existing = allEpics.get(task.getId());
+                if (existing != null) {
+                    existing.setTitle(task.getTitle());
+                    existing.setDescription(task.getDescription());
+                    textIndex.put(existing);
+                } else {
+                    Epic epic = (Epic) task;
+                    epic.setSubtasksId(new ArrayList<>());
+                    epic.resetSubtaskStates();
+                    allEpics.put(epic.getId(), epic);
+                    epicIds.add(epic.getId());
+                    epicStatuses.put(epic.getId(), epic.getStatus());
+                    textIndex.put(epic);
+                }
             }
+            case SUBTASK -> {
+                Subtask subtask = (Subtask) task;
+                Epic epic = allEpics.get(subtask.getEpicId());
+                if (epic == null) {
+                    throw new IllegalArgumentException("Не найден эпик с id=" + subtask.getEpicId());
+                }
 
-            switch (subtask.getStatus()) {
-                case NEW -> countNew++;
-                case DONE -> countDone++;
-                // Для IN_PROGRESS сразу выставляем статус и выходим
-                default -> {
-                    epic.setStatus(Status.IN_PROGRESS);
-                    return;
+                Subtask existing = allSubtasks.put(subtask.getId(), subtask);
+                subtaskIds.add(subtask.getId());
+                removePrioritized(existing);
+                addPrioritized(subtask);
+
+                if (existing != null && !existing.getEpicId().equals(subtask.getEpicId())
+                        && allEpics.containsKey(existing.getEpicId())) {
+                    Epic previousEpic = allEpics.get(existing.getEpicId());
+                    previousEpic.deleteSubtaskById(subtask.getId());
+                    previousEpic.withdrawSubtask(subtask.getId());
+                    epicStatuses.put(previousEpic.getId(), previousEpic.getStatus());
                 }
+                epic.addSubtask(subtask.getId());
+                epic.applySubtask(subtask);
+                subtaskStatuses.put(subtask.getId(), subtask.getStatus());
+                epicStatuses.put(epic.getId(), epic.getStatus());
+                textIndex.put(subtask);
             }
         }
+        id = Math.max(id, task.getId() + 1);
+    }
 
-        // Определение итогового статуса
-        if (countNew == subtaskIds.size()) {
-            epic.setStatus(Status.NEW);
-        } else if (countDone == subtaskIds.size()) {
-            epic.setStatus(Status.DONE);
-        } else {
-            epic.setStatus(Status.IN_PROGRESS);
+    /* Массовое восстановление сохраненных задач в пустой менеджер: записи кладутся в хранилища с исходными id
+    без проверок, затем строятся индексы. Независимые части (агрегаты эпиков, сортировка расписания,
+    индекс статусов, разбор слов для поиска) выполняются параллельными потоками
+     */
+    protected void restoreAll(Collection<? extends Task> tasks) {
+        List<Subtask> subtasks = new ArrayList<>();
+        int maxId = id - 1;
+
+        for (Task task : tasks) {
+            switch (task.getTaskType()) {
+                case TASK -> allTasks.put(task.getId(), task);
+                case EPIC -> allEpics.put(task.getId(), (Epic) task);
+                case SUBTASK -> {
+                    allSubtasks.put(task.getId(), (Subtask) task);
+                    subtasks.add((Subtask) task);
+                }
+            }
+            maxId = Math.max(maxId, task.getId());
         }
+
+        // Группировка сохраняет порядок подзадач; каждый эпик пересчитывается независимо от остальных
+        Map<Integer, List<Subtask>> subtasksByEpic = subtasks.parallelStream()
+                .collect(Collectors.groupingBy(Subtask::getEpicId));
+        for (Integer epicId : subtasksByEpic.keySet()) {
+            if (!allEpics.containsKey(epicId)) {
+                throw new IllegalArgumentException("Не найден эпик с id=" + epicId);
+            }
+        }
+        allEpics.values().parallelStream().forEach(epic -> {
+            List<Subtask> children = subtasksByEpic.getOrDefault(epic.getId(), List.of());
+            epic.setSubtasksId(children.stream().map(Task::getId).toList());
+            epic.resetSubtaskStates();
+            children.forEach(epic::applySubtask);
+        });
+
+        // Расписание сортируется параллельно и заносится в индексы по порядку времени начала
+        Stream.concat(allTasks.values().stream(), subtasks.stream())
+                .parallel()
+                .filter(task -> task.getStartTime() != null)
+                .sorted(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId))
+                .forEachOrdered(this::addPrioritized);
+
+        taskIds.addAll(allTasks.keySet());
+        epicIds.addAll(allEpics.keySet());
+        subtaskIds.addAll(allSubtasks.keySet());
+        allTasks.values().parallelStream().forEach(task -> taskStatuses.put(task.getId(), task.getStatus()));
+        allEpics.values().parallelStream().forEach(epic -> epicStatuses.put(epic.getId(), epic.getStatus()));
+        subtasks.parallelStream().forEach(subtask -> subtaskStatuses.put(subtask.getId(), subtask.getStatus()));
+        textIndex.putAll(tasks);
+        id = maxId + 1;
     }
 
-    private void checkEpicDuration(Epic epic) {
-        List<Subtask> activeSubtasks = getSubtaskByEpic(epic.getId()).stream()
-                .filter(subtask -> subtask.getStartTime() != null)
-                .toList();
+    // Замена истории просмотров сохраненной последовательностью id, например при откате изменений
+    protected void restoreHistory(List<Integer> historyIds) {
+        historyManager.getHistory().forEach(viewed -> historyManager.remove(viewed.getId()));
+        historyIds.stream().map(this::findAny).filter(Objects::nonNull).forEach(historyManager::add);
+    }
 
-        if (activeSubtasks.isEmpty()) {
-            epic.setStartTime(null);
-            epic.setEndTime(null);
-            epic.setDuration(Duration.ZERO);
+    // Полный пересчет статуса и времени эпика по всем его подзадачам
+    public void checkEpicStatus(Integer idEpic) {
+        // Проверка существования эпика
+        if (!allEpics.containsKey(idEpic)) {
+            System.out.println("Эпик с id=" + idEpic + " не найден");
             return;
         }
 
-        // set start
-        LocalDateTime startTime = activeSubtasks.stream()
-                .map(Subtask::getStartTime)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
-        epic.setStartTime(startTime);
+        Epic epic = allEpics.get(idEpic);
+        epic.resetSubtaskStates();
 
-        // set end
-        LocalDateTime endTime = activeSubtasks.stream()
-                .map(Subtask::getEndTime)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
-        epic.setEndTime(endTime);
+        for (Integer subtaskId : epic.getSubtasksId()) {
+            Subtask subtask = allSubtasks.get(subtaskId);
 
-        // set duration
-        Duration duration = Duration.between(startTime, endTime);
-        epic.setDuration(duration);
+            // Пропускаем несуществующие подзадачи
+            if (subtask == null) {
+                System.out.println("Подзадача с id=" + subtaskId + " не найдена");
+                continue;
+            }
+            epic.applySubtask(subtask);
+        }
+        epicStatuses.put(idEpic, epic.getStatus());
     }
 
+    /* Проверка пересечения по времени: по карте занятости в режиме сетки, иначе по соседям в индексе интервалов.
+    Операции проверенного пакета не проверяются повторно
+     */
     private boolean checkIntersection(Task newTask) {
-        if (newTask.getStartTime() == null || newTask.getDuration() == null) {
+        return checkIntersection(newTask, null);
+    }
+
+    // Проверка пересечения без учета интервала задачи ignoredId, хранящегося в индексах
+    private boolean checkIntersection(Task newTask, Integer ignoredId) {
+        if (batchValidated) {
             return false;
         }
+        if (slotIndex != null) {
+            return slotIndex.hasIntersection(newTask, ignoredId);
+        }
+        return intervalIndex.hasIntersection(newTask, ignoredId == null ? Set.of() : Set.of(ignoredId));
+    }
 
-        LocalDateTime newStart = newTask.getStartTime();
-        LocalDateTime newEnd = newTask.getEndTime();
+    // Применение одной операции проверенного пакета через обычные методы менеджера
+    private void apply(Operation operation) {
+        Task item = operation.getItem();
+        switch (operation.getType()) {
+            case CREATE -> {
+                switch (operation.getTaskType()) {
+                    case TASK -> createTask(item);
+                    case EPIC -> createEpic((Epic) item);
+                    case SUBTASK -> createSubtask((Subtask) item);
+                }
+            }
+            case UPDATE -> {
+                switch (operation.getTaskType()) {
+                    case TASK -> updateTask(item);
+                    case EPIC -> updateEpic((Epic) item);
+                    case SUBTASK -> updateSubtask((Subtask) item);
+                }
+            }
+            case DELETE -> {
+                switch (operation.getTaskType()) {
+                    case TASK -> deleteTask(operation.getId());
+                    case EPIC -> deleteEpic(operation.getId());
+                    case SUBTASK -> deleteSubtask(operation.getId());
+                }
+            }
+        }
+    }
 
-        return prioritizedTasks.stream()
-                .filter(task -> task.getStartTime() != null && task.getDuration() != null)
-                .anyMatch(task -> {
-                    LocalDateTime taskStart = task.getStartTime();
-                    LocalDateTime taskEnd = task.getEndTime();
-                    return newStart.isBefore(taskEnd) && newEnd.isAfter(taskStart);
-                });
+    // В режиме сетки время задачи должно совпадать с границами ячеек
+    private boolean fitsSlotGrid(Task task) {
+        return slotIndex == null || slotIndex.isAligned(task);
+    }
+
+    // Метод добавляет задачу с заданным временем начала в список приоритетов и индекс интервалов
+    private void addPrioritized(Task task) {
+        if (task != null && task.getStartTime() != null) {
+            prioritizedTasks.add(task);
+            intervalIndex.add(task);
+            if (slotIndex != null) {
+                slotIndex.add(task);
+            }
+        }
+    }
+
+    // Метод удаляет задачу из списка приоритетов и индекса интервалов
+    private void removePrioritized(Task task) {
+        if (task != null) {
+            prioritizedTasks.remove(task.getId());
+            removeInterval(task);
+        }
+    }
+
+    // Метод удаляет задачу из индекса интервалов и карты занятости
+    private void removeInterval(Task task) {
+        intervalIndex.remove(task);
+        if (slotIndex != null) {
+            slotIndex.remove(task);
+        }
     }
 
     private Integer generateId() {
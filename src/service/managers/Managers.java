@@ -2,6 +2,7 @@ package service.managers;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
 
 public class Managers {
 
@@ -9,10 +10,22 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    // Потокобезопасный менеджер для многопоточного HTTP-сервера
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 
+    /* История с ограничениями для передачи в конструктор менеджера:
+    capacity - максимальное число задач в истории, expiry - срок хранения просмотра (null - без ограничения)
+     */
+    public static HistoryManager getBoundedHistory(int capacity, Duration expiry) {
+        return new InMemoryHistoryManager(capacity, expiry);
+    }
+
     public static FileBackedTaskManager loadFromFile(File file) throws IOException {
         return new FileBackedTaskManager(file);
     }
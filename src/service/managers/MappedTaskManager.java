@@ -0,0 +1,735 @@
+package service.managers;
+
+import enums.Status;
+import enums.TaskType;
+import model.*;
+import service.exeptions.NotFoundException;
+import service.exeptions.TimeOverlapException;
+import service.indexes.CompactIntervalIndex;
+import service.indexes.FreeSlotFinder;
+import service.indexes.TextIndex;
+import service.indexes.TimeIntervalIndex;
+import service.store.MappedTaskStore;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Менеджер для архивных досок, не помещающихся в кучу: задачи хранятся в MappedTaskStore
+ * (записи фиксированной длины и куча строк в отображаемых в память файлах), а объекты Task создаются
+ * только по запросу и менеджером не удерживаются - в памяти остается лишь история просмотров.
+ * Поиск по id - двоичный поиск по записям. При открытии доски один проход по записям без создания объектов
+ * строит компактный индекс расписания (начало, конец, номер записи), по которому проверяются пересечения
+ * и собирается расписание. Поисковый индекс по тексту строится при первом поиске и дальше обновляется
+ * вместе с записями; выборки по статусу выполняются проходом по записям.
+ * Место, занятое прежними строками в куче, освобождает compactStrings().
+ * Статус и время эпика пересчитываются по его подзадачам при их изменении и хранятся в записи эпика.
+ */
+
+public class MappedTaskManager implements TaskManager, AutoCloseable {
+
+    private final MappedTaskStore store;
+    private final HistoryManager historyManager = Managers.getDefaultHistory();
+    private final CompactIntervalIndex schedule = new CompactIntervalIndex();
+    private TextIndex textIndex;
+    private boolean batchValidated;
+
+    public MappedTaskManager(File file) {
+        this.store = new MappedTaskStore(file);
+        indexSchedule();
+    }
+
+    //Методы получения списков всех созданных задач, эпиков и подзадач
+    @Override
+    public List<Task> getAllTasks() {
+        return collect(TaskType.TASK, slot -> true);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return collect(TaskType.EPIC, slot -> true);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return collect(TaskType.SUBTASK, slot -> true);
+    }
+
+    // Методы постраничного получения: начало страницы находится двоичным поиском по id
+    @Override
+    public Page<Task> getTasksPage(String cursor, int limit) {
+        return page(TaskType.TASK, cursor, limit);
+    }
+
+    @Override
+    public Page<Epic> getEpicsPage(String cursor, int limit) {
+        return page(TaskType.EPIC, cursor, limit);
+    }
+
+    @Override
+    public Page<Subtask> getSubtasksPage(String cursor, int limit) {
+        return page(TaskType.SUBTASK, cursor, limit);
+    }
+
+    // Методы получения задач с указанным статусом: статус читается из записи без создания объекта
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return collect(TaskType.TASK, slot -> store.status(slot) == status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return collect(TaskType.EPIC, slot -> store.status(slot) == status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return collect(TaskType.SUBTASK, slot -> store.status(slot) == status);
+    }
+
+    //Методы для удаления всех задач, эпиков и подзадач
+    @Override
+    public void deleteAllTasks() {
+        deleteAll(TaskType.TASK);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        deleteAll(TaskType.SUBTASK);
+        deleteAll(TaskType.EPIC);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        deleteAll(TaskType.SUBTASK);
+        for (int slot = 0; slot < store.size(); slot++) {
+            if (store.isLive(slot, TaskType.EPIC)) {
+                store.clearSubtasks(slot);
+                refreshEpic(slot);
+            }
+        }
+    }
+
+    //Методы для получения задач, эпиков, подзадач по идентификатору и занесение в историю просмотров
+    @Override
+    public Task getTaskById(Integer idTask) {
+        return view(TaskType.TASK, idTask, "Задача с ID " + idTask + " не найдена");
+    }
+
+    @Override
+    public Epic getEpicById(Integer idEpic) {
+        return view(TaskType.EPIC, idEpic, "Эпик с ID " + idEpic + " не найден");
+    }
+
+    @Override
+    public Subtask getSubtaskById(Integer idSubtask) {
+        return view(TaskType.SUBTASK, idSubtask, "Подзадача с ID " + idSubtask + " не найдена");
+    }
+
+    //Методы для создания задач, эпиков и подзадач
+    @Override
+    public void createTask(Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Задача не должна быть null");
+        }
+        if (task.getTitle() == null || task.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Название задачи не может быть пустым");
+        }
+        if (task.getDescription() == null) {
+            throw new IllegalArgumentException("Описание задачи не может быть пустым");
+        }
+        if (checkIntersection(task)) {
+            throw new TimeOverlapException("Задача пересекается по времени с уже добавленными");
+        }
+
+        task.setId(generateId());
+        int slot = store.append(task);
+        index(slot);
+        indexText(slot);
+    }
+
+    @Override
+    public void createEpic(Epic epic) {
+        if (epic == null) {
+            throw new IllegalArgumentException("Эпик не должен быть null");
+        }
+        if (epic.getTitle() == null || epic.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Название эпика не может быть пустым");
+        }
+        if (epic.getDescription() == null) {
+            throw new IllegalArgumentException("Описание эпика не может быть пустым");
+        }
+
+        epic.setId(generateId());
+        epic.setSubtasksId(new ArrayList<>());
+        epic.resetSubtaskStates();
+        indexText(store.append(epic));
+    }
+
+    @Override
+    public void createSubtask(Subtask subtask) {
+        if (subtask == null) {
+            throw new IllegalArgumentException("Подзадача не должна быть null");
+        }
+        if (subtask.getTitle() == null || subtask.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Название подзадачи не может быть пустым");
+        }
+        if (subtask.getDescription() == null) {
+            throw new IllegalArgumentException("Описание подзадачи не может быть пустым");
+        }
+        int epicSlot = slotOf(TaskType.EPIC, subtask.getEpicId());
+        if (epicSlot == MappedTaskStore.NO_SLOT) {
+            throw new IllegalArgumentException("Не найден эпик с id=" + subtask.getEpicId());
+        }
+        if (checkIntersection(subtask)) {
+            throw new TimeOverlapException("Подзадача пересекается по времени с уже добавленными");
+        }
+
+        subtask.setId(generateId());
+        int slot = store.append(subtask);
+        index(slot);
+        indexText(slot);
+        store.linkSubtask(epicSlot, slot);
+        refreshEpic(epicSlot);
+    }
+
+    //Методы обновления задач, эпиков и подзадач
+    @Override
+    public void updateTask(Task task) {
+        int slot = task == null ? MappedTaskStore.NO_SLOT : slotOf(TaskType.TASK, task.getId());
+        if (slot == MappedTaskStore.NO_SLOT) {
+            System.out.println("Задача не найдена!");
+            return;
+        }
+        if (checkIntersection(task)) {
+            System.out.println("Задача пересекается по времени с уже добавленными");
+            return;
+        }
+
+        unindex(slot);
+        store.update(slot, task);
+        index(slot);
+        indexText(slot);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        int slot = epic == null ? MappedTaskStore.NO_SLOT : slotOf(TaskType.EPIC, epic.getId());
+        if (slot == MappedTaskStore.NO_SLOT) {
+            System.out.println("Эпик не найден!");
+            return;
+        }
+
+        // У эпика меняются только название и описание: статус и время остаются вычисленными по подзадачам
+        Epic existing = (Epic) store.materialize(slot);
+        existing.setTitle(epic.getTitle());
+        existing.setDescription(epic.getDescription());
+        store.update(slot, existing);
+        indexText(slot);
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        if (subtask == null) {
+            System.out.println("Подзадача не может быть null");
+            return;
+        }
+
+        int slot = slotOf(TaskType.SUBTASK, subtask.getId());
+        if (slot == MappedTaskStore.NO_SLOT) {
+            System.out.println("Подзадача с id=" + subtask.getId() + " не найдена");
+            return;
+        }
+
+        int epicSlot = slotOf(TaskType.EPIC, subtask.getEpicId());
+        if (epicSlot == MappedTaskStore.NO_SLOT) {
+            System.out.println("Неверный epicId: " + subtask.getEpicId());
+            return;
+        }
+
+        if (checkIntersection(subtask)) {
+            System.out.println("Обнаружено пересечение по времени");
+            return;
+        }
+
+        unindex(slot);
+        store.update(slot, subtask);
+        index(slot);
+        indexText(slot);
+
+        // Перенос подзадачи из прежнего эпика, если он изменился
+        int previousEpicSlot = slotOf(TaskType.EPIC, store.epicId(slot));
+        if (previousEpicSlot != epicSlot) {
+            if (previousEpicSlot != MappedTaskStore.NO_SLOT) {
+                store.unlinkSubtask(previousEpicSlot, slot);
+                refreshEpic(previousEpicSlot);
+            }
+            store.linkSubtask(epicSlot, slot);
+        }
+        refreshEpic(epicSlot);
+    }
+
+    //Методы удаления задач по идентификатору
+    @Override
+    public void deleteTask(Integer idTask) {
+        int slot = slotOf(TaskType.TASK, idTask);
+        if (slot == MappedTaskStore.NO_SLOT) {
+            System.out.println("Задачи с id " + idTask + " не существует!");
+            return;
+        }
+
+        unindex(slot);
+        store.delete(slot);
+        unindexText(List.of(idTask));
+        historyManager.remove(idTask);
+    }
+
+    @Override
+    public void deleteEpic(Integer idEpic) {
+        int slot = slotOf(TaskType.EPIC, idEpic);
+        if (slot == MappedTaskStore.NO_SLOT) {
+            System.out.println("Эпика с id " + idEpic + " не существует!");
+            return;
+        }
+
+        List<Integer> removed = new ArrayList<>();
+        for (int subtaskSlot : store.subtaskSlots(slot)) {
+            unindex(subtaskSlot);
+            store.delete(subtaskSlot);
+            removed.add(store.id(subtaskSlot));
+            historyManager.remove(store.id(subtaskSlot));
+        }
+        store.clearSubtasks(slot);
+        store.delete(slot);
+        removed.add(idEpic);
+        unindexText(removed);
+        historyManager.remove(idEpic);
+    }
+
+    @Override
+    public void deleteSubtask(Integer idSubtask) {
+        int slot = slotOf(TaskType.SUBTASK, idSubtask);
+        if (slot == MappedTaskStore.NO_SLOT) {
+            System.out.println("Подзадачи с id " + idSubtask + " не существует!");
+            return;
+        }
+
+        unindex(slot);
+        store.delete(slot);
+        unindexText(List.of(idSubtask));
+        int epicSlot = slotOf(TaskType.EPIC, store.epicId(slot));
+        if (epicSlot != MappedTaskStore.NO_SLOT) {
+            store.unlinkSubtask(epicSlot, slot);
+            refreshEpic(epicSlot);
+        }
+        historyManager.remove(idSubtask);
+    }
+
+    //Дополнительный метод получения списка всех подзадач определённого эпика
+    @Override
+    public List<Subtask> getSubtaskByEpic(Integer idEpic) {
+        int slot = slotOf(TaskType.EPIC, idEpic);
+        if (slot == MappedTaskStore.NO_SLOT) {
+            System.out.println("Эпика с id " + idEpic + " не существует");
+            return null;
+        }
+
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int subtaskSlot : store.subtaskSlots(slot)) {
+            subtasks.add((Subtask) store.materialize(subtaskSlot));
+        }
+        return subtasks;
+    }
+
+    // Метод возвращения списка просмотренных задач
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    // Расписание собирается по индексу в порядке начала и уточняется сортировкой по точному времени и id
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return prioritized(Long.MIN_VALUE, Long.MAX_VALUE, slot -> true);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Начало окна должно быть раньше его конца");
+        }
+
+        List<Task> window = new ArrayList<>();
+        if (from != null) {
+            Task covering = findCovering(from);
+            if (covering != null) {
+                window.add(covering);
+            }
+        }
+        long fromSeconds = from == null ? Long.MIN_VALUE : from.toEpochSecond(ZoneOffset.UTC);
+        long toSeconds = to == null ? Long.MAX_VALUE : to.toEpochSecond(ZoneOffset.UTC);
+        window.addAll(prioritized(fromSeconds, toSeconds, slot -> {
+            LocalDateTime start = store.startTime(slot);
+            return (from == null || !start.isBefore(from)) && (to == null || start.isBefore(to));
+        }));
+        return window;
+    }
+
+    @Override
+    public List<TimeSlot> findFreeSlots(LocalDateTime after, Duration duration, int limit) {
+        FreeSlotFinder.validate(after, duration, limit);
+
+        Task covering = findCovering(after);
+        LocalDateTime from = covering == null ? after : covering.getEndTime();
+        return FreeSlotFinder.find(prioritized(after.toEpochSecond(ZoneOffset.UTC), Long.MAX_VALUE,
+                slot -> !store.startTime(slot).isBefore(after)), from, duration, limit);
+    }
+
+    // Поисковый индекс строится по названиям и описаниям всех записей при первом поиске
+    @Override
+    public List<Task> search(String query, int offset, int limit) {
+        if (textIndex == null) {
+            textIndex = new TextIndex();
+            for (int slot = 0; slot < store.size(); slot++) {
+                indexText(slot);
+            }
+        }
+        return textIndex.search(query, offset, limit).stream()
+                .map(id -> store.materialize(store.find(id)))
+                .toList();
+    }
+
+    // Пакет проверяется по временному индексу интервалов, построенному по записям, затем применяется целиком
+    @Override
+    public void applyBatch(List<Operation> operations) {
+        TimeIntervalIndex intervalIndex = new TimeIntervalIndex();
+        prioritized(Long.MIN_VALUE, Long.MAX_VALUE, store::isScheduled).forEach(intervalIndex::add);
+        new BatchValidator(this::find, intervalIndex, task -> true).validate(operations);
+
+        batchValidated = true;
+        try {
+            operations.forEach(this::apply);
+        } finally {
+            batchValidated = false;
+        }
+    }
+
+    // Представления хранилища создают объекты при обходе и отражают последующие изменения
+    @Override
+    public Collection<Task> viewAllTasks() {
+        return view(TaskType.TASK);
+    }
+
+    @Override
+    public Collection<Epic> viewAllEpics() {
+        return view(TaskType.EPIC);
+    }
+
+    @Override
+    public Collection<Subtask> viewAllSubtasks() {
+        return view(TaskType.SUBTASK);
+    }
+
+    @Override
+    public Collection<Task> viewPrioritizedTasks() {
+        return Collections.unmodifiableList(getPrioritizedTasks());
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    /* Перенос доски другого менеджера в новое хранилище одним проходом без проверок пересечений:
+    записи добавляются в порядке id, затем подзадачи связываются со своими эпиками в прежнем порядке,
+    а статус и время эпиков берутся из исходного менеджера
+     */
+    public static MappedTaskManager importFrom(TaskManager source, File file) {
+        MappedTaskManager manager = new MappedTaskManager(file);
+        MappedTaskStore store = manager.store;
+        if (store.size() > 0) {
+            manager.close();
+            throw new IllegalArgumentException("Хранилище для переноса должно быть пустым: " + file);
+        }
+
+        List<Task> items = new ArrayList<>(source.viewAllTasks());
+        items.addAll(source.viewAllEpics());
+        items.addAll(source.viewAllSubtasks());
+        items.sort(Comparator.comparing(Task::getId));
+        items.forEach(store::append);
+
+        for (Epic epic : source.viewAllEpics()) {
+            int epicSlot = store.find(epic.getId());
+            for (Integer subtaskId : epic.getSubtasksId()) {
+                store.linkSubtask(epicSlot, store.find(subtaskId));
+            }
+        }
+        store.setNextId(items.isEmpty() ? 1 : items.getLast().getId() + 1);
+        store.force();
+        manager.indexSchedule();
+        return manager;
+    }
+
+    // Метод освобождает место прежних строк в куче хранилища и возвращает число освобожденных байт
+    public long compactStrings() {
+        return store.compactStrings();
+    }
+
+    // Метод сбрасывает изменения на диск
+    public void force() {
+        store.force();
+    }
+
+    @Override
+    public void close() {
+        store.close();
+    }
+
+    private <T extends Task> T view(TaskType type, Integer id, String notFound) {
+        int slot = slotOf(type, id);
+        if (slot == MappedTaskStore.NO_SLOT) {
+            throw new NotFoundException(notFound);
+        }
+        @SuppressWarnings("unchecked")
+        T task = (T) store.materialize(slot);
+        historyManager.add(task);
+        return task;
+    }
+
+    // Номер живой записи указанного типа или NO_SLOT
+    private int slotOf(TaskType type, Integer id) {
+        if (id == null) {
+            return MappedTaskStore.NO_SLOT;
+        }
+        int slot = store.find(id);
+        return slot != MappedTaskStore.NO_SLOT && store.isLive(slot, type) ? slot : MappedTaskStore.NO_SLOT;
+    }
+
+    private Task find(TaskType type, Integer id) {
+        int slot = slotOf(type, id);
+        return slot == MappedTaskStore.NO_SLOT ? null : store.materialize(slot);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> List<T> collect(TaskType type, IntPredicate filter) {
+        List<T> items = new ArrayList<>();
+        for (int slot = 0; slot < store.size(); slot++) {
+            if (store.isLive(slot, type) && filter.test(slot)) {
+                items.add((T) store.materialize(slot));
+            }
+        }
+        return items;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> Page<T> page(TaskType type, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным");
+        }
+
+        Integer after = Page.decodeCursor(cursor);
+        List<T> items = new ArrayList<>();
+        for (int slot = after == null ? 0 : store.firstAfter(after); slot < store.size(); slot++) {
+            if (!store.isLive(slot, type)) {
+                continue;
+            }
+            if (items.size() == limit) {
+                return new Page<>(items, Page.encodeCursor(items.getLast().getId()));
+            }
+            items.add((T) store.materialize(slot));
+        }
+        return new Page<>(items, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> Collection<T> view(TaskType type) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new Iterator<>() {
+                    private int slot = advance(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < store.size();
+                    }
+
+                    @Override
+                    public T next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        T task = (T) store.materialize(slot);
+                        slot = advance(slot + 1);
+                        return task;
+                    }
+
+                    private int advance(int from) {
+                        int current = from;
+                        while (current < store.size() && !store.isLive(current, type)) {
+                            current++;
+                        }
+                        return current;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (int slot = 0; slot < store.size(); slot++) {
+                    if (store.isLive(slot, type)) {
+                        size++;
+                    }
+                }
+                return size;
+            }
+        };
+    }
+
+    private void deleteAll(TaskType type) {
+        List<Integer> removed = new ArrayList<>();
+        for (int slot = 0; slot < store.size(); slot++) {
+            if (store.isLive(slot, type)) {
+                unindex(slot);
+                store.delete(slot);
+                removed.add(store.id(slot));
+                historyManager.remove(store.id(slot));
+            }
+        }
+        unindexText(removed);
+    }
+
+    /* Задачи и подзадачи с временем начала в секундах из [fromSeconds, toSeconds], прошедшие фильтр,
+    в порядке времени начала и id
+     */
+    private List<Task> prioritized(long fromSeconds, long toSeconds, IntPredicate filter) {
+        List<Task> tasks = new ArrayList<>();
+        schedule.forEachStarting(fromSeconds, toSeconds, slot -> {
+            if (filter.test(slot)) {
+                tasks.add(store.materialize(slot));
+            }
+        });
+        tasks.sort(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId));
+        return tasks;
+    }
+
+    private boolean isPrioritized(int slot) {
+        return (store.isLive(slot, TaskType.TASK) || store.isLive(slot, TaskType.SUBTASK))
+                && store.hasStartTime(slot);
+    }
+
+    // Индекс расписания строится проходом по записям; в него попадают задачи и подзадачи с временем начала
+    private void indexSchedule() {
+        schedule.clear();
+        for (int slot = 0; slot < store.size(); slot++) {
+            index(slot);
+        }
+    }
+
+    // Методы обновления индексов: интервал убирается до изменения записи и добавляется после него
+    private void index(int slot) {
+        if (isPrioritized(slot)) {
+            schedule.add(store.startSeconds(slot), store.endSeconds(slot), slot);
+        }
+    }
+
+    private void unindex(int slot) {
+        if (isPrioritized(slot)) {
+            schedule.remove(store.startSeconds(slot), slot);
+        }
+    }
+
+    private void indexText(int slot) {
+        if (textIndex != null && store.isLive(slot)) {
+            textIndex.put(new Task(store.id(slot), store.title(slot), store.description(slot)));
+        }
+    }
+
+    private void unindexText(Collection<Integer> ids) {
+        if (textIndex != null) {
+            textIndex.removeAll(ids);
+        }
+    }
+
+    // Задача, которая началась раньше момента point и еще не закончилась к нему
+    private Task findCovering(LocalDateTime point) {
+        long seconds = point.toEpochSecond(ZoneOffset.UTC);
+        int nanos = point.getNano();
+        int slot = schedule.findOverlapping(seconds, ceilSeconds(point), candidate -> store.isScheduled(candidate)
+                && store.overlaps(candidate, seconds, nanos, seconds, nanos));
+        return slot == CompactIntervalIndex.NONE ? null : store.materialize(slot);
+    }
+
+    /* Проверка пересечения по времени: индекс расписания отбирает записи, интервалы которых пересекаются
+    с задачей с точностью до секунды, а точное сравнение идет по полям записи без создания объектов.
+    Задача с тем же id не учитывается; операции проверенного пакета не проверяются повторно
+     */
+    private boolean checkIntersection(Task task) {
+        if (batchValidated || task.getStartTime() == null || task.getDuration() == null) {
+            return false;
+        }
+
+        LocalDateTime start = task.getStartTime();
+        LocalDateTime end = task.getEndTime();
+        long startSeconds = start.toEpochSecond(ZoneOffset.UTC);
+        long endSeconds = end.toEpochSecond(ZoneOffset.UTC);
+        return schedule.findOverlapping(startSeconds, ceilSeconds(end), slot -> store.isScheduled(slot)
+                && !Objects.equals(store.id(slot), task.getId())
+                && store.overlaps(slot, startSeconds, start.getNano(), endSeconds, end.getNano()))
+                != CompactIntervalIndex.NONE;
+    }
+
+    private static long ceilSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) + (time.getNano() > 0 ? 1 : 0);
+    }
+
+    // Пересчет статуса и времени эпика по его подзадачам с записью результата в запись эпика
+    private void refreshEpic(int epicSlot) {
+        Epic epic = new Epic(store.id(epicSlot), null, null);
+        epic.resetSubtaskStates();
+        for (int subtaskSlot : store.subtaskSlots(epicSlot)) {
+            epic.applySubtask((Subtask) store.materialize(subtaskSlot));
+        }
+        store.setStatus(epicSlot, epic.getStatus());
+        store.setSchedule(epicSlot, epic.getStartTime(), epic.getDuration());
+    }
+
+    // Применение одной операции проверенного пакета через обычные методы менеджера
+    private void apply(Operation operation) {
+        Task item = operation.getItem();
+        switch (operation.getType()) {
+            case CREATE -> {
+                switch (operation.getTaskType()) {
+                    case TASK -> createTask(item);
+                    case EPIC -> createEpic((Epic) item);
+                    case SUBTASK -> createSubtask((Subtask) item);
+                }
+            }
+            case UPDATE -> {
+                switch (operation.getTaskType()) {
+                    case TASK -> updateTask(item);
+                    case EPIC -> updateEpic((Epic) item);
+                    case SUBTASK -> updateSubtask((Subtask) item);
+                }
+            }
+            case DELETE -> {
+                switch (operation.getTaskType()) {
+                    case TASK -> deleteTask(operation.getId());
+                    case EPIC -> deleteEpic(operation.getId());
+                    case SUBTASK -> deleteSubtask(operation.getId());
+                }
+            }
+        }
+    }
+
+    private Integer generateId() {
+        int id = store.getNextId();
+        store.setNextId(id + 1);
+        return id;
+    }
+}
@@ -1,6 +1,11 @@
 package service.managers;
 
+import enums.Status;
 import model.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -13,6 +18,22 @@ public interface TaskManager {
 
     List<Subtask> getAllSubtasks();
 
+    /* Методы постраничного получения задач, эпиков и подзадач в порядке id.
+    cursor - курсор из предыдущей страницы (null для первой), limit - размер страницы
+     */
+    Page<Task> getTasksPage(String cursor, int limit);
+
+    Page<Epic> getEpicsPage(String cursor, int limit);
+
+    Page<Subtask> getSubtasksPage(String cursor, int limit);
+
+    // Методы получения задач, эпиков и подзадач с указанным статусом
+    List<Task> getTasksByStatus(Status status);
+
+    List<Epic> getEpicsByStatus(Status status);
+
+    List<Subtask> getSubtasksByStatus(Status status);
+
     //Методы для удаления всех задач, эпиков и подзадач
     void deleteAllTasks();
 
@@ -56,4 +77,42 @@ public interface TaskManager {
 
     // Метод получения отсортированного списка задач по приоритету
     List<Task> getPrioritizedTasks();
+
+    /* Метод получения задач расписания, пересекающихся с окном [from, to), в порядке приоритета.
+    Граница null означает отсутствие ограничения
+     */
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to);
+
+    /* Метод поиска ближайших свободных промежутков расписания после момента after,
+    в которые помещается задача продолжительностью duration; возвращается не более limit промежутков
+     */
+    List<TimeSlot> findFreeSlots(LocalDateTime after, Duration duration, int limit);
+
+    /* Метод полнотекстового поиска по названию и описанию задач, эпиков и подзадач.
+    Результаты упорядочены по релевантности; offset и limit задают страницу выдачи
+     */
+    List<Task> search(String query, int offset, int limit);
+
+    /* Метод пакетного изменения: операции создания, обновления и удаления применяются по порядку все вместе
+    либо ни одна. Пакет проверяется целиком до применения, пересечения по времени - один раз для всего пакета.
+    Подзадача пакета может ссылаться только на уже существующий эпик, а не на эпик, создаваемый тем же пакетом
+     */
+    void applyBatch(List<Operation> operations);
+
+    /* Методы получения неизменяемых представлений хранилищ без копирования в список.
+    Используются для потоковой отдачи больших ответов; представление отражает последующие изменения менеджера.
+    Обходить представление параллельно с изменениями можно, только если менеджер потокобезопасен
+     */
+    Collection<Task> viewAllTasks();
+
+    Collection<Epic> viewAllEpics();
+
+    Collection<Subtask> viewAllSubtasks();
+
+    Collection<Task> viewPrioritizedTasks();
+
+    /* Метод сообщает, можно ли вызывать менеджер из нескольких потоков одновременно,
+    в том числе обходить его представления во время изменений
+     */
+    boolean isThreadSafe();
 }
\ No newline at end of file
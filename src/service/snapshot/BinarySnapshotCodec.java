@@ -0,0 +1,342 @@
+package service.snapshot;
+
+import enums.Status;
+import enums.TaskType;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Компактный двоичный снимок. Файл начинается с сигнатуры MAGIC, затем идут записи:
+ * тип и статус - порядковые номера перечислений, id и epicId - varint, время начала - минуты от эпохи
+ * (zigzag varint) с необязательным остатком в наносекундах, продолжительность - varint минут,
+ * строки - varint длины (0 для null) и байты UTF-8, не длиннее MAX_STRING_LENGTH байт, чтобы поврежденная длина
+ * не заставляла выделять гигабайты памяти. После маркера конца записаны число записей
+ * и CRC32 всех предыдущих байт. Чтение и запись идут через собственный буфер, без разбора текста.
+ */
+
+public class BinarySnapshotCodec implements SnapshotCodec {
+
+    public static final byte[] MAGIC = {'K', 'B', 'S', 1};
+
+    private static final int END = 0xFF;
+    private static final int HAS_START = 1;
+    private static final int HAS_NANOS = 2;
+    private static final int HAS_DURATION = 4;
+    private static final long NANOS_PER_MINUTE = 60_000_000_000L;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_STRING_LENGTH = 1 << 24;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    @Override
+    public void write(OutputStream output, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks)
+            throws IOException {
+        Encoder encoder = new Encoder(output);
+        encoder.bytes(MAGIC);
+        for (Task task : tasks) {
+            encoder.record(task);
+        }
+        for (Epic epic : epics) {
+            encoder.record(epic);
+        }
+        for (Subtask subtask : subtasks) {
+            encoder.record(subtask);
+        }
+        encoder.ensure(1);
+        encoder.buffer[encoder.position++] = (byte) END;
+        encoder.flush();
+
+        int records = tasks.size() + epics.size() + subtasks.size();
+        output.write(new byte[]{
+                (byte) (records >>> 24), (byte) (records >>> 16), (byte) (records >>> 8), (byte) records});
+        int checksum = (int) encoder.checksum.getValue();
+        output.write(new byte[]{
+                (byte) (checksum >>> 24), (byte) (checksum >>> 16), (byte) (checksum >>> 8), (byte) checksum});
+    }
+
+    @Override
+    public List<Task> read(InputStream input) throws IOException {
+        Decoder decoder = new Decoder(input);
+        byte[] magic = decoder.bytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalArgumentException("Файл не является двоичным снимком");
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        int kind;
+        while ((kind = decoder.unsignedByte()) != END) {
+            tasks.add(decoder.record(kind));
+        }
+
+        long checksum = decoder.checksum();
+        int records = decoder.int32();
+        int expected = decoder.int32();
+        if (records != tasks.size() || (int) checksum != expected) {
+            throw new IllegalArgumentException("Контрольная сумма не совпадает");
+        }
+        if (!decoder.atEnd()) {
+            throw new IllegalArgumentException("Данные после контрольной суммы");
+        }
+        return tasks;
+    }
+
+    // Буфер записи: байты уходят в поток блоками, контрольная сумма считается по тем же блокам
+    private static final class Encoder {
+
+        private final OutputStream output;
+        private final CRC32 checksum = new CRC32();
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+
+        Encoder(OutputStream output) {
+            this.output = output;
+        }
+
+        void record(Task task) throws IOException {
+            TaskType type = task.getTaskType();
+            Status status = task.getStatus() != null ? task.getStatus() : Status.NEW;
+            LocalDateTime start = task.getStartTime();
+            long minute = 0;
+            long nanos = 0;
+            int flags = 0;
+            if (start != null) {
+                long second = start.toEpochSecond(ZoneOffset.UTC);
+                minute = Math.floorDiv(second, 60);
+                nanos = Math.floorMod(second, 60) * 1_000_000_000L + start.getNano();
+                flags |= HAS_START | (nanos != 0 ? HAS_NANOS : 0);
+            }
+            if (task.getDuration() != null) {
+                flags |= HAS_DURATION;
+            }
+
+            ensure(3);
+            buffer[position++] = (byte) type.ordinal();
+            varLong(task.getId());
+            ensure(2);
+            buffer[position++] = (byte) status.ordinal();
+            buffer[position++] = (byte) flags;
+            if (task instanceof Subtask subtask) {
+                varLong(subtask.getEpicId());
+            }
+            if (start != null) {
+                varLong((minute << 1) ^ (minute >> 63));
+                if (nanos != 0) {
+                    varLong(nanos);
+                }
+            }
+            if (task.getDuration() != null) {
+                varLong(task.getDuration().toMinutes());
+            }
+            string(task.getTitle());
+            string(task.getDescription());
+        }
+
+        void varLong(long value) throws IOException {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void string(String value) throws IOException {
+            if (value == null) {
+                varLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_STRING_LENGTH) {
+                throw new IllegalArgumentException("Строка длиннее " + MAX_STRING_LENGTH + " байт не записывается");
+            }
+            varLong(bytes.length + 1L);
+            bytes(bytes);
+        }
+
+        void bytes(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length) {
+                flush();
+                checksum.update(bytes);
+                output.write(bytes);
+                return;
+            }
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void ensure(int length) throws IOException {
+            if (position + length > buffer.length) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            checksum.update(buffer, 0, position);
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /* Буфер чтения: прочитанные байты попадают в контрольную сумму при сдвиге буфера,
+    поэтому после маркера конца сумма охватывает ровно данные до него
+     */
+    private static final class Decoder {
+
+        private final InputStream input;
+        private final CRC32 checksum = new CRC32();
+        private byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        Decoder(InputStream input) {
+            this.input = input;
+        }
+
+        Task record(int kind) throws IOException {
+            if (kind >= TYPES.length) {
+                throw new IllegalArgumentException("Неизвестный тип записи: " + kind);
+            }
+            TaskType type = TYPES[kind];
+            int id = varInt();
+            int statusIndex = unsignedByte();
+            if (statusIndex >= STATUSES.length) {
+                throw new IllegalArgumentException("Неизвестный статус записи: " + statusIndex);
+            }
+            Status status = STATUSES[statusIndex];
+            int flags = unsignedByte();
+            Integer epicId = type == TaskType.SUBTASK ? varInt() : null;
+
+            LocalDateTime start = null;
+            if ((flags & HAS_START) != 0) {
+                long zigzag = varLong();
+                long minute = (zigzag >>> 1) ^ -(zigzag & 1);
+                long nanos = (flags & HAS_NANOS) != 0 ? varLong() : 0;
+                if (nanos < 0 || nanos >= NANOS_PER_MINUTE) {
+                    throw new IllegalArgumentException("Неверное время начала записи " + id);
+                }
+                start = LocalDateTime.ofEpochSecond(minute * 60 + nanos / 1_000_000_000L,
+                        (int) (nanos % 1_000_000_000L), ZoneOffset.UTC);
+            }
+            Duration duration = (flags & HAS_DURATION) != 0 ? Duration.ofMinutes(varLong()) : null;
+            String title = string();
+            String description = string();
+
+            return switch (type) {
+                case TASK -> new Task(id, title, description, status, start, duration);
+                case EPIC -> {
+                    Epic epic = new Epic(id, title, description, status);
+                    epic.setStartTime(start);
+                    epic.setDuration(duration);
+                    epic.setEndTime(start != null && duration != null ? start.plus(duration) : null);
+                    yield epic;
+                }
+                case SUBTASK -> new Subtask(id, title, description, status, start, duration, epicId);
+            };
+        }
+
+        int unsignedByte() throws IOException {
+            ensure(1);
+            return buffer[position++] & 0xFF;
+        }
+
+        int varInt() throws IOException {
+            long value = varLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Слишком большое значение id: " + value);
+            }
+            return (int) value;
+        }
+
+        long varLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int current = unsignedByte();
+                value |= (long) (current & 0x7F) << shift;
+                if ((current & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Неверная кодировка числа");
+        }
+
+        String string() throws IOException {
+            long length = varLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > MAX_STRING_LENGTH) {
+                throw new IllegalArgumentException("Неверная длина строки: " + length);
+            }
+            int size = (int) length;
+            ensure(size);
+            String value = new String(buffer, position, size, StandardCharsets.UTF_8);
+            position += size;
+            return value;
+        }
+
+        byte[] bytes(int length) throws IOException {
+            ensure(length);
+            byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        int int32() throws IOException {
+            ensure(4);
+            int value = (buffer[position] & 0xFF) << 24 | (buffer[position + 1] & 0xFF) << 16
+                    | (buffer[position + 2] & 0xFF) << 8 | buffer[position + 3] & 0xFF;
+            position += 4;
+            return value;
+        }
+
+        // Контрольная сумма всех байт, прочитанных до текущей позиции
+        long checksum() {
+            checksum.update(buffer, 0, position);
+            compactTo(position);
+            return checksum.getValue();
+        }
+
+        boolean atEnd() throws IOException {
+            return position == limit && input.read() < 0;
+        }
+
+        // Буфер сдвигается, пока в нем не окажется length непрочитанных байт
+        private void ensure(int length) throws IOException {
+            if (limit - position >= length) {
+                return;
+            }
+            checksum.update(buffer, 0, position);
+            compactTo(position);
+            if (length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, length);
+            }
+            while (limit < length) {
+                int read = input.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    throw new IllegalArgumentException("Снимок обрывается");
+                }
+                limit += read;
+            }
+        }
+
+        private void compactTo(int from) {
+            System.arraycopy(buffer, from, buffer, 0, limit - from);
+            limit -= from;
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package service.snapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Checksum;
+
+/**
+ * Потоковое чтение CSV (RFC 4180) прямо из буфера байт UTF-8.
+ * Разделители (запятая, кавычка, перевод строки) - символы ASCII, поэтому поля размечаются в буфере
+ * без декодирования всей строки; в String декодируется только содержимое поля. Поле в кавычках может
+ * содержать запятые и переводы строк, кавычка внутри него удваивается. Строка может заканчиваться на \n или \r\n.
+ * Массив полей переиспользуется от записи к записи: значения действительны до следующего вызова next().
+ * В нестрогом режиме кавычка внутри поля без кавычек считается обычным символом: так читаются файлы
+ * прежнего формата, где поля записывались как есть, без экранирования.
+ */
+
+public class CsvReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream input;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int limit;
+    private int position;
+    private boolean eof;
+
+    private String[] fields = new String[8];
+    private String[] shifted = new String[8];
+    private int size;
+    private int recordStart;
+    private int recordEnd;
+    private byte[] unquoted = new byte[256];
+    private boolean lenient;
+
+    public CsvReader(InputStream input) {
+        this.input = input;
+    }
+
+    /* Метод читает следующую запись; возвращает false в конце потока.
+    Незакрытые кавычки и символы после закрывающей кавычки считаются ошибкой формата (IllegalArgumentException)
+     */
+    public boolean next() throws IOException {
+        recordStart = position;
+        if (position == limit && !fill()) {
+            return false;
+        }
+
+        size = 0;
+        while (true) {
+            if (position == limit && !fill()) {
+                // Запись закончилась запятой в конце файла: последнее поле пустое
+                addField(position, position, false);
+                recordEnd = position;
+                return true;
+            }
+            if (buffer[position] == '"') {
+                if (readQuoted()) {
+                    return true;
+                }
+            } else if (readPlain()) {
+                return true;
+            }
+        }
+    }
+
+    // Нестрогий режим для файлов прежнего формата; можно включить после чтения заголовка
+    public void setLenient(boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    // Число полей текущей записи
+    public int size() {
+        return size;
+    }
+
+    public String field(int index) {
+        if (index >= size) {
+            throw new IllegalArgumentException("Нет поля с номером " + index);
+        }
+        return fields[index];
+    }
+
+    /* Поля текущей записи начиная с from: массив переиспользуется, поля после последнего равны null.
+    Сдвинутые поля копируются в отдельный переиспользуемый массив, так что новых массивов не создается
+     */
+    public String[] fields(int from) {
+        if (from == 0) {
+            return fields;
+        }
+        if (shifted.length < fields.length) {
+            shifted = new String[fields.length];
+        }
+        int count = Math.max(size - from, 0);
+        System.arraycopy(fields, from, shifted, 0, count);
+        Arrays.fill(shifted, count, shifted.length, null);
+        return shifted;
+    }
+
+    // Пустая строка файла: одна запись из единственного пустого поля
+    public boolean isEmptyLine() {
+        return size == 1 && fields[0].isEmpty();
+    }
+
+    // Учет исходных байт текущей записи (вместе с переводом строки) в контрольной сумме
+    public void updateChecksum(Checksum checksum) {
+        checksum.update(buffer, recordStart, recordEnd - recordStart);
+    }
+
+    // Поле без кавычек: до запятой или конца строки; возвращает true, если запись закончилась
+    private boolean readPlain() throws IOException {
+        int start = position;
+        while (true) {
+            if (position == limit) {
+                int offset = position - start;
+                if (!fill()) {
+                    addField(position - offset, position, false);
+                    recordEnd = position;
+                    return true;
+                }
+                start = position - offset;
+            }
+            byte current = buffer[position];
+            if (current == ',') {
+                addField(start, position, false);
+                position++;
+                return false;
+            }
+            if (current == '\n') {
+                int end = position > start && buffer[position - 1] == '\r' ? position - 1 : position;
+                addField(start, end, false);
+                position++;
+                recordEnd = position;
+                return true;
+            }
+            if (current == '"' && !lenient) {
+                throw new IllegalArgumentException("Кавычка внутри поля без кавычек");
+            }
+            position++;
+        }
+    }
+
+    // Поле в кавычках: удвоенная кавычка означает саму кавычку; возвращает true, если запись закончилась
+    private boolean readQuoted() throws IOException {
+        position++;
+        int start = position;
+        boolean escaped = false;
+        while (true) {
+            if (position == limit) {
+                int offset = position - start;
+                if (!fill()) {
+                    throw new IllegalArgumentException("Незакрытые кавычки в поле");
+                }
+                start = position - offset;
+            }
+            if (buffer[position] != '"') {
+                position++;
+                continue;
+            }
+
+            // Кавычка: либо удвоенная внутри поля, либо закрывающая
+            if (position + 1 == limit) {
+                int offset = position - start;
+                fill();
+                start = position - offset;
+            }
+            if (position + 1 < limit && buffer[position + 1] == '"') {
+                escaped = true;
+                position += 2;
+                continue;
+            }
+
+            addField(start, position, escaped);
+            position++;
+            if (position == limit && !fill()) {
+                recordEnd = position;
+                return true;
+            }
+            byte following = buffer[position];
+            if (following == ',') {
+                position++;
+                return false;
+            }
+            if (following == '\r') {
+                if (position + 1 == limit) {
+                    fill();
+                }
+                if (position + 1 < limit && buffer[position + 1] == '\n') {
+                    position++;
+                    following = '\n';
+                }
+            }
+            if (following == '\n') {
+                position++;
+                recordEnd = position;
+                return true;
+            }
+            throw new IllegalArgumentException("Лишние символы после закрывающей кавычки");
+        }
+    }
+
+    private void addField(int start, int end, boolean escaped) {
+        if (size == fields.length) {
+            fields = Arrays.copyOf(fields, size * 2);
+        }
+        fields[size++] = escaped
+                ? unescape(start, end)
+                : new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    // Удвоенные кавычки заменяются одинарными во вспомогательном буфере
+    private String unescape(int start, int end) {
+        if (unquoted.length < end - start) {
+            unquoted = new byte[end - start];
+        }
+        int length = 0;
+        for (int index = start; index < end; index++) {
+            unquoted[length++] = buffer[index];
+            if (buffer[index] == '"') {
+                index++;
+            }
+        }
+        return new String(unquoted, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /* Дочитывание потока в конец буфера. Когда буфер заполнен, прочитанные записи перед текущей
+    сдвигаются в начало буфера; если текущая запись заняла весь буфер, он увеличивается вдвое
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (limit == buffer.length) {
+            if (recordStart > 0) {
+                int shift = recordStart;
+                System.arraycopy(buffer, shift, buffer, 0, limit - shift);
+                limit -= shift;
+                position -= shift;
+                recordStart = 0;
+                recordEnd = 0;
+            } else {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        int read = input.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
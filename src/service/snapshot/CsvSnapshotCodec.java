@@ -0,0 +1,291 @@
+package service.snapshot;
+
+import enums.Status;
+import enums.TaskType;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+
+import static model.Epic.parseEpicFromString;
+import static model.Subtask.parseSubtaskFromString;
+import static model.Task.parseTaskFromString;
+
+/**
+ * Снимок в формате CSV: строка заголовка с отметкой версии, по строке на задачу, последней строкой -
+ * контрольная сумма CRC32 всех предыдущих байт и число записей ("#checksum,<crc32>,<records>").
+ * Снимок с отметкой версии без строки контрольной суммы считается обрезанным и отклоняется;
+ * без проверки принимаются только файлы прежнего формата, в заголовке которых отметки нет.
+ * Поля с запятыми, кавычками и переводами строк записываются в кавычках по RFC 4180, чтение - через CsvReader.
+ */
+
+public class CsvSnapshotCodec implements SnapshotCodec {
+
+    public static final String HEADER = "id,type,title,description,status,epic,startTime,duration";
+    // Отметка формата с обязательной контрольной суммой: последний столбец строки заголовка
+    public static final String VERSION_MARKER = "#v2";
+    private static final String FOOTER = "#checksum";
+    private static final int COLUMNS = 8;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
+
+    @Override
+    public void write(OutputStream output, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks)
+            throws IOException {
+        CRC32 checksum = new CRC32();
+        writeLine(output, checksum, HEADER + "," + VERSION_MARKER);
+        for (Task task : tasks) {
+            writeLine(output, checksum, formatLine(task));
+        }
+        for (Epic epic : epics) {
+            writeLine(output, checksum, formatLine(epic));
+        }
+        for (Subtask subtask : subtasks) {
+            writeLine(output, checksum, formatLine(subtask));
+        }
+        int records = tasks.size() + epics.size() + subtasks.size();
+        String footer = FOOTER + "," + Long.toHexString(checksum.getValue()) + "," + records + "\n";
+        output.write(footer.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public List<Task> read(InputStream input) throws IOException {
+        CsvReader reader = new CsvReader(input);
+        CRC32 checksum = new CRC32();
+        List<Task> tasks = new ArrayList<>();
+        String footer = null;
+        boolean versioned = false;
+        if (reader.next()) {
+            reader.updateChecksum(checksum);
+            versioned = reader.field(reader.size() - 1).equals(VERSION_MARKER);
+            // Файл без версии записан прежним форматом, где кавычки в тексте не экранировались
+            reader.setLenient(!versioned);
+        }
+
+        while (reader.next()) {
+            if (footer != null) {
+                if (!reader.isEmptyLine()) {
+                    throw new IllegalArgumentException("Данные после контрольной суммы");
+                }
+            } else if (reader.field(0).equals(FOOTER)) {
+                footer = reader.size() == 3 ? reader.field(1) + "," + reader.field(2) : "";
+            } else {
+                reader.updateChecksum(checksum);
+                if (!reader.isEmptyLine()) {
+                    tasks.add(parseRecord(reader, 0));
+                }
+            }
+        }
+
+        if (versioned && footer == null) {
+            throw new IllegalArgumentException("Нет строки контрольной суммы: снимок обрезан");
+        }
+        if (footer != null && !footer.equals(Long.toHexString(checksum.getValue()) + "," + tasks.size())) {
+            throw new IllegalArgumentException("Контрольная сумма не совпадает");
+        }
+        return tasks;
+    }
+
+    /* Параллельное чтение снимка, целиком загруженного в data. Один последовательный проход по байтам
+    находит границы записей (перевод строки вне кавычек), строку контрольной суммы и считает CRC32;
+    затем область записей делится на фрагменты по границам записей, которые разбираются параллельно в pool.
+    Результаты фрагментов склеиваются в исходном порядке. Файл прежнего формата без версии читается
+    последовательно: неэкранированные кавычки в его тексте не позволяют искать границы записей по кавычкам
+     */
+    public List<Task> readParallel(byte[] data, ForkJoinPool pool) {
+        if (!isVersioned(data)) {
+            try {
+                return read(new ByteArrayInputStream(data));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int chunks = Math.max(1,
+                Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, data.length / MIN_CHUNK_SIZE));
+        long chunkSize = data.length / chunks + 1;
+
+        List<Integer> bounds = new ArrayList<>();
+        int headerEnd = -1;
+        int lastRecord = 0;
+        int recordStart = 0;
+        boolean quoted = false;
+        long nextBound = chunkSize;
+        for (int index = 0; index < data.length; index++) {
+            byte current = data[index];
+            if (current == '"') {
+                quoted = !quoted;
+            } else if (current == '\n' && !quoted) {
+                if (index > recordStart && !(index == recordStart + 1 && data[recordStart] == '\r')) {
+                    lastRecord = recordStart;
+                }
+                recordStart = index + 1;
+                if (headerEnd < 0) {
+                    headerEnd = recordStart;
+                } else if (recordStart >= nextBound) {
+                    bounds.add(recordStart);
+                    nextBound = recordStart + chunkSize;
+                }
+            }
+        }
+        if (recordStart < data.length) {
+            lastRecord = recordStart;
+        }
+
+        // Строка контрольной суммы - последняя непустая запись файла
+        if (headerEnd < 0 || !startsWith(data, lastRecord, FOOTER + ",")) {
+            throw new IllegalArgumentException("Нет строки контрольной суммы: снимок обрезан");
+        }
+        int dataEnd = lastRecord;
+        bounds.removeIf(bound -> bound >= dataEnd);
+        bounds.addFirst(Math.min(headerEnd, dataEnd));
+        bounds.add(dataEnd);
+
+        List<ForkJoinTask<List<Task>>> parts = new ArrayList<>();
+        for (int chunk = 0; chunk + 1 < bounds.size(); chunk++) {
+            int from = bounds.get(chunk);
+            int to = bounds.get(chunk + 1);
+            parts.add(pool.submit(() -> parseChunk(data, from, to)));
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(data, 0, dataEnd);
+
+        List<Task> tasks = new ArrayList<>();
+        for (ForkJoinTask<List<Task>> part : parts) {
+            tasks.addAll(part.join());
+        }
+
+        String footer = new String(data, dataEnd, data.length - dataEnd, StandardCharsets.UTF_8).strip();
+        String expected = FOOTER + "," + Long.toHexString(checksum.getValue()) + "," + tasks.size();
+        if (!footer.equals(expected)) {
+            throw new IllegalArgumentException("Контрольная сумма не совпадает");
+        }
+        return tasks;
+    }
+
+    // Разбор фрагмента [from, to), начинающегося и заканчивающегося на границе записи
+    private static List<Task> parseChunk(byte[] data, int from, int to) {
+        CsvReader reader = new CsvReader(new ByteArrayInputStream(data, from, to - from));
+        List<Task> tasks = new ArrayList<>();
+        try {
+            while (reader.next()) {
+                if (!reader.isEmptyLine()) {
+                    tasks.add(parseRecord(reader, 0));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tasks;
+    }
+
+    // Заголовок - первая строка файла, в ней нет кавычек
+    private static boolean isVersioned(byte[] data) {
+        int end = 0;
+        while (end < data.length && data[end] != '\n') {
+            end++;
+        }
+        return new String(data, 0, end, StandardCharsets.UTF_8).strip().endsWith("," + VERSION_MARKER);
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String prefix) {
+        byte[] expected = prefix.getBytes(StandardCharsets.US_ASCII);
+        return data.length - offset >= expected.length
+                && Arrays.equals(data, offset, offset + expected.length, expected, 0, expected.length);
+    }
+
+    /* Метод создает задачу из полей текущей записи, начиная с поля from, через фабрики parse*FromString.
+    Фабрикам передается переиспользуемый массив полей читателя
+     */
+    public static Task parseRecord(CsvReader reader, int from) {
+        if (reader.size() - from < COLUMNS) {
+            throw new IllegalArgumentException("Неверное число полей в записи: " + (reader.size() - from));
+        }
+
+        String[] words = reader.fields(from);
+        try {
+            TaskType type = TaskType.valueOf(words[1]);
+            return switch (type) {
+                case TASK -> parseTaskFromString(words);
+                case EPIC -> parseEpicFromString(words);
+                case SUBTASK -> parseSubtaskFromString(words);
+            };
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Ошибка парсинга записи с id " + words[0], e);
+        }
+    }
+
+    // Метод создания задачи из одной строки CSV
+    public static Task parseLine(String value) {
+        CsvReader reader = new CsvReader(new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8)));
+        try {
+            if (!reader.next()) {
+                throw new IllegalArgumentException("Пустая строка");
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Ошибка чтения строки: " + value, e);
+        }
+        return parseRecord(reader, 0);
+    }
+
+    /* Строка CSV задачи в порядке столбцов HEADER. Поле с запятой, кавычкой или переводом строки
+    заключается в кавычки, кавычки внутри него удваиваются
+     */
+    public static String formatLine(Task task) {
+        StringBuilder line = new StringBuilder(64);
+        line.append(task.getId()).append(',').append(task.getTaskType()).append(',');
+        appendField(line, task.getTitle());
+        line.append(',');
+        appendField(line, task.getDescription());
+        line.append(',')
+                .append(task.getStatus() != null ? task.getStatus() : Status.NEW).append(',')
+                .append(task instanceof Subtask subtask ? subtask.getEpicId().toString() : "").append(',')
+                .append(task.getStartTime() != null
+                        ? task.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "").append(',')
+                .append(task.getDuration() != null ? task.getDuration().toMinutes() : 0);
+        return line.toString();
+    }
+
+    private static void appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quoted = false;
+        for (int index = 0; index < value.length() && !quoted; index++) {
+            char current = value.charAt(index);
+            quoted = current == ',' || current == '"' || current == '\n' || current == '\r';
+        }
+        if (!quoted) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int index = 0; index < value.length(); index++) {
+            char current = value.charAt(index);
+            if (current == '"') {
+                line.append('"');
+            }
+            line.append(current);
+        }
+        line.append('"');
+    }
+
+    private static void writeLine(OutputStream output, CRC32 checksum, String line) throws IOException {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        checksum.update(bytes);
+        output.write(bytes);
+    }
+}
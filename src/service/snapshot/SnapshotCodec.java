@@ -0,0 +1,25 @@
+package service.snapshot;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Формат файла снимка FileBackedTaskManager.
+ * Кодек сам дописывает в конец снимка контрольную сумму и сам проверяет ее при чтении;
+ * поврежденный снимок отклоняется исключением IllegalArgumentException.
+ */
+
+public interface SnapshotCodec {
+
+    // Метод записывает задачи, эпики и подзадачи в поток в указанном порядке
+    void write(OutputStream output, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks) throws IOException;
+
+    // Метод читает все записи снимка за один проход, проверяя контрольную сумму
+    List<Task> read(InputStream input) throws IOException;
+}
@@ -0,0 +1,35 @@
+package service.snapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Выбор формата снимка: при записи - по расширению файла (.bin - двоичный, иначе CSV),
+ * при чтении - по сигнатуре в начале файла, поэтому ранее записанные снимки читаются в любом случае.
+ */
+
+public final class SnapshotCodecs {
+
+    public static final String BINARY_EXTENSION = ".bin";
+
+    private static final SnapshotCodec CSV = new CsvSnapshotCodec();
+    private static final SnapshotCodec BINARY = new BinarySnapshotCodec();
+
+    private SnapshotCodecs() {
+    }
+
+    public static SnapshotCodec forFile(File file) {
+        return file.getName().endsWith(BINARY_EXTENSION) ? BINARY : CSV;
+    }
+
+    // Поток должен поддерживать mark/reset: сигнатура читается и возвращается обратно
+    public static SnapshotCodec detect(InputStream input) throws IOException {
+        byte[] magic = BinarySnapshotCodec.MAGIC;
+        input.mark(magic.length);
+        byte[] head = input.readNBytes(magic.length);
+        input.reset();
+        return Arrays.equals(head, magic) ? BINARY : CSV;
+    }
+}
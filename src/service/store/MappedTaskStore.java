@@ -0,0 +1,708 @@
+package service.store;
+
+import enums.Status;
+import enums.TaskType;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import service.exeptions.ManagerReadException;
+import service.exeptions.ManagerSaveException;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Хранилище задач в отображаемых в память файлах (FileChannel.map).
+ * Основной файл - заголовок и записи фиксированной длины RECORD_SIZE, по одной на задачу, эпик или подзадачу;
+ * строки (название и описание) лежат в отдельной куче строк - файле с суффиксом .strings, запись хранит
+ * смещение и длину строки в UTF-8. Записи добавляются в порядке возрастания id, поэтому поиск по id -
+ * двоичный поиск по файлу без индекса в памяти. Удаленная запись остается на месте со снятым флагом LIVE.
+ * Подзадачи эпика связаны в список через номера записей: эпик хранит первую и последнюю, подзадача - следующую.
+ * Объекты Task создаются только при чтении записи (materialize) и хранилищем не удерживаются.
+ * Изменения видны в файле сразу после записи в отображение; force() сбрасывает их на диск.
+ * Измененные строки дописываются в конец кучи; место прежних значений и строк удаленных записей
+ * освобождает compactStrings(), которое переписывает живые строки подряд.
+ * Ограничения: каждый файл отображается одним буфером с адресацией int, поэтому в хранилище помещается
+ * не более MAX_RECORDS (около 26,8 млн) записей, включая удаленные, а куча строк не превышает 2 ГБ;
+ * при превышении запись завершается ManagerSaveException.
+ */
+
+public class MappedTaskStore implements Closeable {
+
+    public static final int NO_SLOT = -1;
+    public static final String STRINGS_SUFFIX = ".strings";
+    public static final String COMPACT_SUFFIX = ".compact";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int MAGIC = 0x4B424D31;
+    private static final int HEAP_MAGIC = 0x4B424831;
+    private static final int COMPACT_MAGIC = 0x4B424331;
+    private static final int HEADER_SIZE = 32;
+    private static final int HEAP_HEADER_SIZE = 16;
+    private static final int COMPACT_HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 80;
+    public static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+    private static final int INITIAL_RECORDS = 1024;
+    private static final int INITIAL_HEAP = 64 * 1024;
+
+    // Поля заголовка основного файла
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_RECORD_SIZE = 4;
+    private static final int HEADER_COUNT = 8;
+    private static final int HEADER_NEXT_ID = 12;
+    private static final int HEAP_USED = 8;
+
+    // Поля записи
+    private static final int ID = 0;
+    private static final int TYPE = 4;
+    private static final int STATUS = 5;
+    private static final int FLAGS = 6;
+    private static final int EPIC_ID = 8;
+    private static final int NEXT = 12;
+    private static final int FIRST = 16;
+    private static final int LAST = 20;
+    private static final int START_SECONDS = 24;
+    private static final int START_NANOS = 32;
+    private static final int DURATION_NANOS = 36;
+    private static final int DURATION_SECONDS = 40;
+    private static final int TITLE_OFFSET = 48;
+    private static final int TITLE_LENGTH = 56;
+    private static final int DESCRIPTION_LENGTH = 60;
+    private static final int DESCRIPTION_OFFSET = 64;
+
+    private static final int LIVE = 1;
+    private static final int HAS_START = 2;
+    private static final int HAS_DURATION = 4;
+    private static final int NANOS_PER_SECOND = 1_000_000_000;
+
+    private static final byte[] EMPTY_RECORD = new byte[RECORD_SIZE];
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final File file;
+    private final FileChannel records;
+    private final FileChannel heap;
+    private MappedByteBuffer recordMap;
+    private MappedByteBuffer heapMap;
+    private int count;
+    private long heapUsed;
+
+    // Открывает хранилище в file и file.strings; отсутствующие файлы создаются пустыми
+    public MappedTaskStore(File file) {
+        this.file = file;
+        boolean exists = file.exists() && file.length() > 0;
+        try {
+            records = open(file);
+            heap = open(new File(file.getPath() + STRINGS_SUFFIX));
+            if (exists) {
+                recordMap = records.map(FileChannel.MapMode.READ_WRITE, 0, records.size());
+                heapMap = heap.map(FileChannel.MapMode.READ_WRITE, 0, heap.size());
+            } else {
+                recordMap = records.map(FileChannel.MapMode.READ_WRITE, 0,
+                        HEADER_SIZE + (long) INITIAL_RECORDS * RECORD_SIZE);
+                heapMap = heap.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_HEAP);
+                recordMap.putInt(HEADER_MAGIC, MAGIC);
+                recordMap.putInt(HEADER_RECORD_SIZE, RECORD_SIZE);
+                recordMap.putInt(HEADER_NEXT_ID, 1);
+                heapMap.putInt(HEADER_MAGIC, HEAP_MAGIC);
+                heapMap.putLong(HEAP_USED, HEAP_HEADER_SIZE);
+            }
+        } catch (IOException e) {
+            throw new ManagerReadException("Не удалось открыть хранилище " + file + ": " + e.getMessage());
+        }
+
+        if (recordMap.capacity() < HEADER_SIZE || recordMap.getInt(HEADER_MAGIC) != MAGIC
+                || recordMap.getInt(HEADER_RECORD_SIZE) != RECORD_SIZE
+                || heapMap.capacity() < HEAP_HEADER_SIZE || heapMap.getInt(HEADER_MAGIC) != HEAP_MAGIC) {
+            closeChannels();
+            throw new ManagerReadException("Файл не является хранилищем задач: " + file);
+        }
+        count = recordMap.getInt(HEADER_COUNT);
+        heapUsed = heapMap.getLong(HEAP_USED);
+        if (count < 0 || HEADER_SIZE + (long) count * RECORD_SIZE > recordMap.capacity()
+                || heapUsed < HEAP_HEADER_SIZE || heapUsed > heapMap.capacity()) {
+            closeChannels();
+            throw new ManagerReadException("Хранилище задач повреждено: " + file);
+        }
+
+        // Сжатие кучи, прерванное после записи образа, завершается повторным копированием образа
+        File image = new File(file.getPath() + COMPACT_SUFFIX);
+        new File(image.getPath() + TEMP_SUFFIX).delete();
+        if (image.exists()) {
+            try {
+                applyImage(image);
+            } catch (IOException | IllegalStateException e) {
+                closeChannels();
+                throw new ManagerReadException("Не удалось завершить сжатие хранилища " + file + ": "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    // Число записей, включая удаленные; номера записей - от 0 до size() - 1
+    public int size() {
+        return count;
+    }
+
+    public int getNextId() {
+        return recordMap.getInt(HEADER_NEXT_ID);
+    }
+
+    public void setNextId(int nextId) {
+        recordMap.putInt(HEADER_NEXT_ID, nextId);
+    }
+
+    /* Метод дописывает запись задачи с уже назначенным id и возвращает ее номер.
+    id должен быть больше id всех записей, иначе нарушится порядок для двоичного поиска
+     */
+    public int append(Task task) {
+        if (count > 0 && task.getId() <= id(count - 1)) {
+            throw new IllegalArgumentException("id записи должен возрастать: " + task.getId());
+        }
+        if (count == MAX_RECORDS) {
+            throw new ManagerSaveException("Превышено максимальное число записей хранилища: " + MAX_RECORDS);
+        }
+        ensureRecords(count + 1);
+
+        int slot = count;
+        int base = offset(slot);
+        recordMap.put(base, EMPTY_RECORD, 0, RECORD_SIZE);
+        recordMap.putInt(base + ID, task.getId());
+        recordMap.put(base + TYPE, (byte) task.getTaskType().ordinal());
+        recordMap.putInt(base + EPIC_ID, task instanceof Subtask subtask ? subtask.getEpicId() : 0);
+        recordMap.putInt(base + NEXT, NO_SLOT);
+        recordMap.putInt(base + FIRST, NO_SLOT);
+        recordMap.putInt(base + LAST, NO_SLOT);
+        recordMap.put(base + FLAGS, (byte) LIVE);
+        writeFields(slot, task);
+
+        // Счетчик записей увеличивается последним: до этого запись не видна при повторном открытии
+        count++;
+        recordMap.putInt(HEADER_COUNT, count);
+        return slot;
+    }
+
+    // Метод перезаписывает статус, время и строки записи; связи с эпиком не меняются
+    public void update(int slot, Task task) {
+        writeFields(slot, task);
+    }
+
+    // Двоичный поиск записи по id; возвращает номер записи (в том числе удаленной) или NO_SLOT
+    public int find(int id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = id(middle);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return NO_SLOT;
+    }
+
+    // Номер первой записи с id больше заданного (для постраничного обхода)
+    public int firstAfter(int id) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (id(middle) <= id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Методы чтения полей записи без создания объектов
+    public int id(int slot) {
+        return recordMap.getInt(offset(slot) + ID);
+    }
+
+    public TaskType type(int slot) {
+        return TYPES[recordMap.get(offset(slot) + TYPE)];
+    }
+
+    public Status status(int slot) {
+        return STATUSES[recordMap.get(offset(slot) + STATUS)];
+    }
+
+    public boolean isLive(int slot) {
+        return (flags(slot) & LIVE) != 0;
+    }
+
+    public boolean isLive(int slot, TaskType type) {
+        return isLive(slot) && type(slot) == type;
+    }
+
+    public boolean hasStartTime(int slot) {
+        return (flags(slot) & HAS_START) != 0;
+    }
+
+    // Задача занимает интервал времени: заданы и время начала, и продолжительность
+    public boolean isScheduled(int slot) {
+        return (flags(slot) & (HAS_START | HAS_DURATION)) == (HAS_START | HAS_DURATION);
+    }
+
+    public int epicId(int slot) {
+        return recordMap.getInt(offset(slot) + EPIC_ID);
+    }
+
+    public LocalDateTime startTime(int slot) {
+        int base = offset(slot);
+        if ((recordMap.get(base + FLAGS) & HAS_START) == 0) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(recordMap.getLong(base + START_SECONDS),
+                recordMap.getInt(base + START_NANOS), ZoneOffset.UTC);
+    }
+
+    public Duration duration(int slot) {
+        int base = offset(slot);
+        if ((recordMap.get(base + FLAGS) & HAS_DURATION) == 0) {
+            return null;
+        }
+        return Duration.ofSeconds(recordMap.getLong(base + DURATION_SECONDS), recordMap.getInt(base + DURATION_NANOS));
+    }
+
+    public String title(int slot) {
+        int base = offset(slot);
+        return readString(recordMap.getLong(base + TITLE_OFFSET), recordMap.getInt(base + TITLE_LENGTH));
+    }
+
+    public String description(int slot) {
+        int base = offset(slot);
+        return readString(recordMap.getLong(base + DESCRIPTION_OFFSET), recordMap.getInt(base + DESCRIPTION_LENGTH));
+    }
+
+    /* Проверка пересечения интервала записи с интервалом [start, end), заданным секундами и наносекундами
+    от начала эпохи (UTC). Сравнение идет по полям записи без создания объектов времени
+     */
+    public boolean overlaps(int slot, long startSeconds, int startNanos, long endSeconds, int endNanos) {
+        int base = offset(slot);
+        long seconds = recordMap.getLong(base + START_SECONDS);
+        int nanos = recordMap.getInt(base + START_NANOS);
+        if (compare(seconds, nanos, endSeconds, endNanos) >= 0) {
+            return false;
+        }
+        long slotEndSeconds = seconds + recordMap.getLong(base + DURATION_SECONDS);
+        int slotEndNanos = nanos + recordMap.getInt(base + DURATION_NANOS);
+        if (slotEndNanos >= NANOS_PER_SECOND) {
+            slotEndSeconds++;
+            slotEndNanos -= NANOS_PER_SECOND;
+        }
+        return compare(slotEndSeconds, slotEndNanos, startSeconds, startNanos) > 0;
+    }
+
+    /* Границы интервала записи в целых секундах от начала эпохи (UTC), округленные наружу: начало вниз,
+    конец вверх. У записи без продолжительности конец совпадает с началом
+     */
+    public long startSeconds(int slot) {
+        return recordMap.getLong(offset(slot) + START_SECONDS);
+    }
+
+    public long endSeconds(int slot) {
+        int base = offset(slot);
+        long seconds = recordMap.getLong(base + START_SECONDS);
+        if ((recordMap.get(base + FLAGS) & HAS_DURATION) == 0) {
+            return seconds;
+        }
+        long nanos = (long) recordMap.getInt(base + START_NANOS) + recordMap.getInt(base + DURATION_NANOS);
+        long roundUp = (nanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+        return seconds + recordMap.getLong(base + DURATION_SECONDS) + roundUp;
+    }
+
+    // Занятый размер кучи строк в байтах, включая заголовок
+    public long heapUsed() {
+        return heapUsed;
+    }
+
+    // Методы изменения отдельных полей (используются для удаления и пересчета эпиков)
+    public void delete(int slot) {
+        int base = offset(slot);
+        recordMap.put(base + FLAGS, (byte) (recordMap.get(base + FLAGS) & ~LIVE));
+    }
+
+    public void setStatus(int slot, Status status) {
+        recordMap.put(offset(slot) + STATUS, (byte) status.ordinal());
+    }
+
+    public void setSchedule(int slot, LocalDateTime startTime, Duration duration) {
+        int base = offset(slot);
+        int flags = recordMap.get(base + FLAGS) & ~(HAS_START | HAS_DURATION);
+        if (startTime != null) {
+            flags |= HAS_START;
+            recordMap.putLong(base + START_SECONDS, startTime.toEpochSecond(ZoneOffset.UTC));
+            recordMap.putInt(base + START_NANOS, startTime.getNano());
+        }
+        if (duration != null) {
+            flags |= HAS_DURATION;
+            recordMap.putLong(base + DURATION_SECONDS, duration.getSeconds());
+            recordMap.putInt(base + DURATION_NANOS, duration.getNano());
+        }
+        recordMap.put(base + FLAGS, (byte) flags);
+    }
+
+    // Методы списка подзадач эпика
+    public void linkSubtask(int epicSlot, int subtaskSlot) {
+        int epicBase = offset(epicSlot);
+        int last = recordMap.getInt(epicBase + LAST);
+        recordMap.putInt(offset(subtaskSlot) + NEXT, NO_SLOT);
+        recordMap.putInt(offset(subtaskSlot) + EPIC_ID, id(epicSlot));
+        if (last == NO_SLOT) {
+            recordMap.putInt(epicBase + FIRST, subtaskSlot);
+        } else {
+            recordMap.putInt(offset(last) + NEXT, subtaskSlot);
+        }
+        recordMap.putInt(epicBase + LAST, subtaskSlot);
+    }
+
+    public void unlinkSubtask(int epicSlot, int subtaskSlot) {
+        int epicBase = offset(epicSlot);
+        int previous = NO_SLOT;
+        int current = recordMap.getInt(epicBase + FIRST);
+        while (current != NO_SLOT && current != subtaskSlot) {
+            previous = current;
+            current = next(current);
+        }
+        if (current == NO_SLOT) {
+            return;
+        }
+
+        int following = next(subtaskSlot);
+        if (previous == NO_SLOT) {
+            recordMap.putInt(epicBase + FIRST, following);
+        } else {
+            recordMap.putInt(offset(previous) + NEXT, following);
+        }
+        if (recordMap.getInt(epicBase + LAST) == subtaskSlot) {
+            recordMap.putInt(epicBase + LAST, previous);
+        }
+        recordMap.putInt(offset(subtaskSlot) + NEXT, NO_SLOT);
+    }
+
+    public void clearSubtasks(int epicSlot) {
+        int epicBase = offset(epicSlot);
+        recordMap.putInt(epicBase + FIRST, NO_SLOT);
+        recordMap.putInt(epicBase + LAST, NO_SLOT);
+    }
+
+    // Номера записей подзадач эпика в порядке добавления
+    public int[] subtaskSlots(int epicSlot) {
+        int[] slots = new int[8];
+        int size = 0;
+        for (int slot = recordMap.getInt(offset(epicSlot) + FIRST); slot != NO_SLOT; slot = next(slot)) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+        return Arrays.copyOf(slots, size);
+    }
+
+    // Метод создает объект задачи по записи; эпик получает список id своих подзадач
+    public Task materialize(int slot) {
+        int id = id(slot);
+        return switch (type(slot)) {
+            case TASK -> new Task(id, title(slot), description(slot), status(slot), startTime(slot), duration(slot));
+            case EPIC -> materializeEpic(slot);
+            case SUBTASK -> new Subtask(id, title(slot), description(slot), status(slot), startTime(slot),
+                    duration(slot), epicId(slot));
+        };
+    }
+
+    /* Сжатие кучи строк: строки живых записей переписываются подряд, прежние значения измененных строк
+    и строки удаленных записей отбрасываются. Записи с новыми смещениями и новая куча сначала целиком
+    пишутся в образ (временный файл, сброс на диск и атомарное переименование в file.compact), затем образ
+    копируется на место записей и кучи и удаляется. Если копирование прервано, его повторяет следующее
+    открытие хранилища. Размер файла кучи не уменьшается: освобожденное место занимают новые строки.
+    Возвращает число освобожденных байт кучи
+     */
+    public long compactStrings() {
+        File image = new File(file.getPath() + COMPACT_SUFFIX);
+        File temp = new File(image.getPath() + TEMP_SUFFIX);
+        long used = compactedHeapSize();
+
+        try (FileOutputStream output = new FileOutputStream(temp)) {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output));
+            writeImage(data, used);
+            data.flush();
+            output.getFD().sync();
+        } catch (IOException e) {
+            temp.delete();
+            throw new ManagerSaveException("Ошибка при записи образа сжатия: " + e.getMessage());
+        }
+
+        long freed = heapUsed - used;
+        try {
+            Files.move(temp.toPath(), image.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            applyImage(image);
+        } catch (IOException | IllegalStateException e) {
+            throw new ManagerSaveException("Ошибка при сжатии хранилища: " + e.getMessage());
+        }
+        return freed;
+    }
+
+    // Сброс изменений отображения на диск; метод final, потому что вызывается из конструктора через applyImage
+    public final void force() {
+        recordMap.force();
+        heapMap.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+        closeChannels();
+    }
+
+    private Epic materializeEpic(int slot) {
+        Epic epic = new Epic(id(slot), title(slot), description(slot), status(slot));
+        LocalDateTime startTime = startTime(slot);
+        Duration duration = duration(slot);
+        epic.setStartTime(startTime);
+        epic.setDuration(duration);
+        epic.setEndTime(startTime != null && duration != null ? startTime.plus(duration) : null);
+
+        List<Integer> subtaskIds = new ArrayList<>();
+        for (int subtaskSlot : subtaskSlots(slot)) {
+            subtaskIds.add(id(subtaskSlot));
+        }
+        epic.setSubtasksId(subtaskIds);
+        return epic;
+    }
+
+    private void writeFields(int slot, Task task) {
+        int base = offset(slot);
+        Status status = task.getStatus() != null ? task.getStatus() : Status.NEW;
+        recordMap.put(base + STATUS, (byte) status.ordinal());
+        setSchedule(slot, task.getStartTime(), task.getDuration());
+        writeString(base + TITLE_OFFSET, base + TITLE_LENGTH, title(slot, base), task.getTitle());
+        writeString(base + DESCRIPTION_OFFSET, base + DESCRIPTION_LENGTH, description(slot, base),
+                task.getDescription());
+    }
+
+    // Строка дописывается в кучу, только если она изменилась
+    private void writeString(int offsetField, int lengthField, String current, String value) {
+        if (value == null) {
+            recordMap.putInt(lengthField, -1);
+            return;
+        }
+        if (value.equals(current)) {
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureHeap(heapUsed + bytes.length);
+        heapMap.put((int) heapUsed, bytes);
+        recordMap.putLong(offsetField, heapUsed);
+        recordMap.putInt(lengthField, bytes.length);
+        heapUsed += bytes.length;
+        heapMap.putLong(HEAP_USED, heapUsed);
+    }
+
+    // Текущие строки новой записи еще не заданы: нулевая длина без смещения означает отсутствие значения
+    private String title(int slot, int base) {
+        return recordMap.getLong(base + TITLE_OFFSET) == 0 ? null : title(slot);
+    }
+
+    private String description(int slot, int base) {
+        return recordMap.getLong(base + DESCRIPTION_OFFSET) == 0 ? null : description(slot);
+    }
+
+    // Размер кучи после сжатия: заголовок и строки живых записей
+    private long compactedHeapSize() {
+        long used = HEAP_HEADER_SIZE;
+        for (int slot = 0; slot < count; slot++) {
+            if (isLive(slot)) {
+                int base = offset(slot);
+                used += storedLength(base + TITLE_OFFSET, base + TITLE_LENGTH);
+                used += storedLength(base + DESCRIPTION_OFFSET, base + DESCRIPTION_LENGTH);
+            }
+        }
+        return used;
+    }
+
+    /* Образ сжатия: заголовок (признак, число записей, размер новой кучи), заголовок и записи основного файла
+    с новыми смещениями строк, затем строки новой кучи в том же порядке записей
+     */
+    private void writeImage(DataOutputStream data, long used) throws IOException {
+        data.writeInt(COMPACT_MAGIC);
+        data.writeInt(count);
+        data.writeLong(used);
+
+        byte[] header = new byte[HEADER_SIZE];
+        recordMap.get(0, header);
+        data.write(header);
+        byte[] record = new byte[RECORD_SIZE];
+        ByteBuffer fields = ByteBuffer.wrap(record);
+        long position = HEAP_HEADER_SIZE;
+        for (int slot = 0; slot < count; slot++) {
+            recordMap.get(offset(slot), record);
+            boolean live = isLive(slot);
+            position = relocate(fields, TITLE_OFFSET, TITLE_LENGTH, live, position);
+            position = relocate(fields, DESCRIPTION_OFFSET, DESCRIPTION_LENGTH, live, position);
+            data.write(record);
+        }
+
+        for (int slot = 0; slot < count; slot++) {
+            if (isLive(slot)) {
+                int base = offset(slot);
+                data.write(storedBytes(base + TITLE_OFFSET, base + TITLE_LENGTH));
+                data.write(storedBytes(base + DESCRIPTION_OFFSET, base + DESCRIPTION_LENGTH));
+            }
+        }
+    }
+
+    // Новое смещение строки в копии записи; у удаленной записи строка сбрасывается в отсутствующую
+    private static long relocate(ByteBuffer fields, int offsetField, int lengthField, boolean live, long position) {
+        int length = fields.getInt(lengthField);
+        if (!live || length < 0 || fields.getLong(offsetField) == 0) {
+            if (!live) {
+                fields.putLong(offsetField, 0);
+                fields.putInt(lengthField, -1);
+            }
+            return position;
+        }
+        fields.putLong(offsetField, position);
+        return position + length;
+    }
+
+    // Копирование образа сжатия на место записей и кучи; повторное копирование того же образа безопасно
+    private void applyImage(File image) throws IOException {
+        long used;
+        try (FileChannel channel = FileChannel.open(image.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(COMPACT_HEADER_SIZE);
+            readFully(channel, header, 0);
+            int imageCount = header.getInt(4);
+            used = header.getLong(8);
+            long recordsLength = HEADER_SIZE + (long) imageCount * RECORD_SIZE;
+            if (header.getInt(0) != COMPACT_MAGIC || imageCount != count || used < HEAP_HEADER_SIZE
+                    || used > heapMap.capacity()
+                    || channel.size() != COMPACT_HEADER_SIZE + recordsLength + used - HEAP_HEADER_SIZE) {
+                throw new IllegalStateException("образ сжатия поврежден: " + image);
+            }
+
+            readFully(channel, recordMap.slice(0, (int) recordsLength), COMPACT_HEADER_SIZE);
+            readFully(channel, heapMap.slice(HEAP_HEADER_SIZE, (int) (used - HEAP_HEADER_SIZE)),
+                    COMPACT_HEADER_SIZE + recordsLength);
+        }
+        heapUsed = used;
+        heapMap.putLong(HEAP_USED, heapUsed);
+        force();
+        Files.delete(image.toPath());
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, current);
+            if (read < 0) {
+                throw new EOFException("неожиданный конец образа сжатия");
+            }
+            current += read;
+        }
+    }
+
+    // Длина строки, хранящейся в куче (отсутствующая строка места не занимает)
+    private int storedLength(int offsetField, int lengthField) {
+        int length = recordMap.getInt(lengthField);
+        return length < 0 || recordMap.getLong(offsetField) == 0 ? 0 : length;
+    }
+
+    private byte[] storedBytes(int offsetField, int lengthField) {
+        byte[] bytes = new byte[storedLength(offsetField, lengthField)];
+        heapMap.get((int) recordMap.getLong(offsetField), bytes);
+        return bytes;
+    }
+
+    private String readString(long offset, int length) {
+        if (length < 0 || offset == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        heapMap.get((int) offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int next(int slot) {
+        return recordMap.getInt(offset(slot) + NEXT);
+    }
+
+    private int flags(int slot) {
+        return recordMap.get(offset(slot) + FLAGS);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private static int compare(long seconds, int nanos, long otherSeconds, int otherNanos) {
+        int bySeconds = Long.compare(seconds, otherSeconds);
+        return bySeconds != 0 ? bySeconds : Integer.compare(nanos, otherNanos);
+    }
+
+    // Методы расширения файлов: отображение пересоздается с удвоенным размером
+    private void ensureRecords(int recordCount) {
+        long required = HEADER_SIZE + (long) recordCount * RECORD_SIZE;
+        if (required > recordMap.capacity()) {
+            recordMap = remap(records, required, recordMap.capacity());
+        }
+    }
+
+    private void ensureHeap(long required) {
+        if (required > heapMap.capacity()) {
+            heapMap = remap(heap, required, heapMap.capacity());
+        }
+    }
+
+    private static MappedByteBuffer remap(FileChannel channel, long required, long current) {
+        long size = Math.max(required, current * 2);
+        if (required > Integer.MAX_VALUE) {
+            throw new ManagerSaveException("Превышен максимальный размер файла хранилища");
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(size, Integer.MAX_VALUE));
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при расширении хранилища: " + e.getMessage());
+        }
+    }
+
+    private void closeChannels() {
+        try {
+            records.close();
+            heap.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при закрытии хранилища: " + e.getMessage());
+        }
+    }
+
+    private static FileChannel open(File file) throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,74 @@
+package http;
+
+import enums.Status;
+import model.Epic;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BatchHandlerTest extends HttpTaskManagerTestBase {
+
+    // Проверка применения пакета операций (код ответа 201)
+    @Test
+    public void testApplyBatch() throws IOException, InterruptedException {
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpic(epic);
+        Task removed = new Task("Удаляемая", "Описание");
+        taskManager.createTask(removed);
+
+        String body = "[{\"operation\":\"create\",\"type\":\"TASK\",\"item\":"
+                + "{\"title\":\"Задача\",\"description\":\"Описание\",\"status\":\"NEW\","
+                + "\"startTime\":\"2025-01-01T10:00:00\",\"duration\":\"PT1H\"}},"
+                + "{\"operation\":\"CREATE\",\"type\":\"SUBTASK\",\"item\":"
+                + "{\"title\":\"Подзадача\",\"description\":\"Описание\",\"status\":\"DONE\",\"epicId\":"
+                + epic.getId() + "}},"
+                + "{\"operation\":\"DELETE\",\"type\":\"TASK\",\"id\":" + removed.getId() + "}]";
+
+        HttpResponse<String> response = send(body);
+        assertEquals(201, response.statusCode(), "Неверный код ответа");
+        assertEquals(1, taskManager.getAllTasks().size(), "Пакет должен создать и удалить задачу");
+        assertEquals("Задача", taskManager.getAllTasks().getFirst().getTitle(), "Создана не та задача");
+        assertEquals(Status.DONE, taskManager.getEpicById(epic.getId()).getStatus(),
+                "Подзадача пакета должна попасть в эпик");
+    }
+
+    // Проверка, что пакет с пересечением отклоняется целиком (код ответа 406)
+    @Test
+    public void testRejectOverlappingBatch() throws IOException, InterruptedException {
+        taskManager.createTask(new Task("Задача", "Описание", Status.NEW,
+                LocalDateTime.of(2025, 1, 1, 10, 0), Duration.ofHours(1)));
+
+        String body = "[{\"operation\":\"CREATE\",\"type\":\"TASK\",\"item\":"
+                + "{\"title\":\"Свободная\",\"description\":\"Описание\",\"status\":\"NEW\"}},"
+                + "{\"operation\":\"CREATE\",\"type\":\"TASK\",\"item\":"
+                + "{\"title\":\"Пересекается\",\"description\":\"Описание\",\"status\":\"NEW\","
+                + "\"startTime\":\"2025-01-01T10:30:00\",\"duration\":\"PT1H\"}}]";
+
+        HttpResponse<String> response = send(body);
+        assertEquals(406, response.statusCode(), "Пакет с пересечением должен отклоняться");
+        assertEquals(1, taskManager.getAllTasks().size(), "Отклоненный пакет не должен ничего создавать");
+    }
+
+    // Проверка, что операция неизвестного типа отклоняется (код ответа 400)
+    @Test
+    public void testRejectUnknownOperation() throws IOException, InterruptedException {
+        HttpResponse<String> response = send("[{\"operation\":\"MOVE\",\"type\":\"TASK\",\"id\":1}]");
+        assertEquals(400, response.statusCode(), "Неизвестная операция должна отклоняться");
+    }
+
+    private HttpResponse<String> send(String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
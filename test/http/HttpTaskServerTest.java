@@ -1,13 +1,21 @@
 package http;
 
+import enums.ExecutorMode;
 import service.HttpTaskServer;
 import service.managers.Managers;
 import service.managers.TaskManager;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class HttpTaskServerTest {
 
@@ -18,4 +26,57 @@ public class HttpTaskServerTest {
 
         assertNotNull(server, "Сервер должен был быть проинициализированным");
     }
+
+    // Проверка параллельной обработки запросов в пуле виртуальных потоков
+    @Test
+    public void shouldServeConcurrentRequestsOnVirtualThreads() throws IOException {
+        checkConcurrentRequests(ExecutorMode.VIRTUAL_THREADS, 0);
+    }
+
+    // Проверка параллельной обработки запросов в ограниченном пуле платформенных потоков
+    @Test
+    public void shouldServeConcurrentRequestsOnFixedPool() throws IOException {
+        checkConcurrentRequests(ExecutorMode.FIXED_POOL, 4);
+    }
+
+    @Test
+    public void shouldRejectEmptyFixedPool() {
+        assertThrows(IllegalArgumentException.class, () -> new HttpTaskServer(Managers.getConcurrent(),
+                0, 0, ExecutorMode.FIXED_POOL, 0), "Пул без потоков должен быть отклонен");
+    }
+
+    // Проверка, что непотокобезопасный менеджер не запускается в многопоточных режимах
+    @Test
+    public void shouldRejectUnsafeManagerInMultithreadedModes() {
+        assertThrows(IllegalArgumentException.class, () -> new HttpTaskServer(Managers.getDefault(),
+                0, 0, ExecutorMode.VIRTUAL_THREADS, 0), "Виртуальные потоки требуют потокобезопасного менеджера");
+        assertThrows(IllegalArgumentException.class, () -> new HttpTaskServer(Managers.getDefault(),
+                0, 0, ExecutorMode.FIXED_POOL, 4), "Пул потоков требует потокобезопасного менеджера");
+        assertNotNull(new HttpTaskServer(Managers.getDefault(), 0, 0, ExecutorMode.DISPATCHER_THREAD, 0),
+                "В одном потоке-диспетчере подходит любой менеджер");
+    }
+
+    private void checkConcurrentRequests(ExecutorMode mode, int poolSize) throws IOException {
+        TaskManager taskManager = Managers.getConcurrent();
+        HttpTaskServer server = new HttpTaskServer(taskManager, 0, 64, mode, poolSize);
+        server.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create("http://localhost:" + server.getPort() + "/tasks");
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                String json = "{\"title\":\"Задача " + i + "\",\"description\":\"Описание\"}";
+                HttpRequest request = HttpRequest.newBuilder()
+                        .uri(uri)
+                        .POST(HttpRequest.BodyPublishers.ofString(json))
+                        .build();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            responses.forEach(response -> assertEquals(201, response.join().statusCode(),
+                    "Неверный код ответа при создании"));
+            assertEquals(50, taskManager.getAllTasks().size(), "Все задачи должны быть созданы");
+        } finally {
+            server.stop();
+        }
+    }
 }
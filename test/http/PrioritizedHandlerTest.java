@@ -3,6 +3,7 @@ package http;
 import com.google.gson.reflect.TypeToken;
 import enums.Status;
 import model.Task;
+import model.TimeSlot;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
@@ -53,4 +54,67 @@ public class PrioritizedHandlerTest extends HttpTaskManagerTestBase {
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(405, response.statusCode(), "Метод PUT не поддерживается");
     }
+
+    // Проверка получения задач расписания в окне времени (код ответа 200)
+    @Test
+    public void testGetPrioritizedTasksInWindow() throws IOException, InterruptedException {
+        LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+        taskManager.createTask(new Task("Утро", "Описание", Status.NEW, day.plusHours(9), Duration.ofHours(1)));
+        taskManager.createTask(new Task("День", "Описание", Status.NEW, day.plusHours(13), Duration.ofHours(1)));
+        taskManager.createTask(new Task("Вечер", "Описание", Status.NEW, day.plusHours(19), Duration.ofHours(1)));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/prioritized?from=2025-01-01T12:00&to=2025-01-01T18:00"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "Неверный код ответа");
+        List<Task> window = gson.fromJson(response.body(), new TypeToken<List<Task>>(){}.getType());
+        assertEquals(1, window.size(), "В окно должна попасть одна задача");
+        assertEquals("День", window.getFirst().getTitle(), "В окно попала не та задача");
+    }
+
+    // Проверка, что неверный формат границы окна отклоняется (код ответа 400)
+    @Test
+    public void testGetPrioritizedTasksWithInvalidWindow() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/prioritized?from=вчера"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode(), "Неверный формат даты должен отклоняться");
+    }
+
+    // Проверка поиска свободных промежутков расписания (код ответа 200)
+    @Test
+    public void testGetFreeSlots() throws IOException, InterruptedException {
+        LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+        taskManager.createTask(new Task("Утро", "Описание", Status.NEW, day.plusHours(9), Duration.ofHours(1)));
+        taskManager.createTask(new Task("День", "Описание", Status.NEW, day.plusHours(11), Duration.ofHours(1)));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/prioritized/free-slots?duration=PT1H&after=2025-01-01T09:00&limit=1"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "Неверный код ответа");
+        List<TimeSlot> slots = gson.fromJson(response.body(), new TypeToken<List<TimeSlot>>(){}.getType());
+        assertEquals(List.of(new TimeSlot(day.plusHours(10), day.plusHours(11))), slots,
+                "Неверный свободный промежуток");
+    }
+
+    // Проверка, что поиск без продолжительности отклоняется (код ответа 400)
+    @Test
+    public void testGetFreeSlotsWithoutDuration() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/prioritized/free-slots"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode(), "Продолжительность обязательна");
+    }
 }
@@ -0,0 +1,51 @@
+package http;
+
+import com.google.gson.reflect.TypeToken;
+import model.Epic;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SearchHandlerTest extends HttpTaskManagerTestBase {
+
+    // Проверка поиска по ключевому слову с постраничной выдачей (код ответа 200)
+    @Test
+    public void testSearch() throws IOException, InterruptedException {
+        taskManager.createTask(new Task("Купить молоко", "Зайти в магазин"));
+        taskManager.createTask(new Task("Молоко и хлеб", "Молоко обязательно"));
+        taskManager.createEpic(new Epic("Переезд", "Упаковать вещи"));
+
+        String query = URLEncoder.encode("молоко", StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/search?q=" + query + "&limit=1"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "Неверный код ответа");
+        List<Task> found = gson.fromJson(response.body(), new TypeToken<List<Task>>(){}.getType());
+        assertEquals(1, found.size(), "Размер страницы должен ограничиваться");
+        assertEquals("Молоко и хлеб", found.getFirst().getTitle(), "Первой должна быть самая релевантная задача");
+    }
+
+    // Проверка, что запрос без строки поиска отклоняется (код ответа 400)
+    @Test
+    public void testSearchWithoutQuery() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/search"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode(), "Строка поиска обязательна");
+    }
+}
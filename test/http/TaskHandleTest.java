@@ -131,6 +131,27 @@ public class TaskHandleTest extends HttpTaskManagerTestBase {
         assertEquals("Задача 4", tasks.get(1).getTitle(), "Некорректное имя задачи");
     }
 
+    // Проверка потоковой отдачи большого списка задач (ответ передается по частям)
+    @Test
+    public void testStreamLargeTaskList() throws IOException, InterruptedException {
+        for (int i = 0; i < 5000; i++) {
+            taskManager.createTask(new Task("Задача " + i, "Описание задачи " + i));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        List<Task> tasks = gson.fromJson(response.body(), new TypeToken<List<Task>>(){}.getType());
+
+        assertEquals(200, response.statusCode(), "Неверный код ответа при получении всех задач");
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty(),
+                "Список должен передаваться без заранее известной длины");
+        assertEquals(5000, tasks.size(), "Некорректное количество задач");
+    }
+
     // Проверка получения задачи по ID (код ответа 200)
     @Test
     public void testGetTaskById() throws IOException, InterruptedException {
@@ -272,4 +293,65 @@ public class TaskHandleTest extends HttpTaskManagerTestBase {
         HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
         assertEquals(400, response.statusCode());
     }
-}
\ No newline at end of file
+
+    // Проверка фильтрации задач по статусу (код ответа 200)
+    @Test
+    void testGetTasksByStatus() throws IOException, InterruptedException {
+        taskManager.createTask(new Task("Новая", "Описание"));
+        Task done = new Task("Выполненная", "Описание");
+        taskManager.createTask(done);
+        taskManager.updateTask(new Task(done.getId(), "Выполненная", "Описание", Status.DONE));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks?status=done"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "Неверный код ответа");
+        List<Task> tasks = gson.fromJson(response.body(), new TypeToken<List<Task>>(){}.getType());
+        assertEquals(1, tasks.size(), "Должна вернуться одна задача");
+        assertEquals("Выполненная", tasks.getFirst().getTitle(), "Вернулась не та задача");
+    }
+
+    // Проверка, что неизвестный статус отклоняется (код ответа 400)
+    @Test
+    void testGetTasksByUnknownStatus() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks?status=LATER"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode(), "Неизвестный статус должен отклоняться");
+    }
+
+    // Проверка постраничного получения задач с курсором в заголовке (код ответа 200)
+    @Test
+    void testGetTasksPage() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            taskManager.createTask(new Task("Задача " + i, "Описание"));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks?limit=2"))
+                .GET()
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), "Неверный код ответа");
+        List<Task> firstPage = gson.fromJson(response.body(), new TypeToken<List<Task>>(){}.getType());
+        assertEquals(2, firstPage.size(), "Неверный размер первой страницы");
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElse(null);
+        assertNotNull(cursor, "Должен передаваться курсор следующей страницы");
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/tasks?limit=2&cursor=" + cursor))
+                .GET()
+                .build();
+        response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        List<Task> secondPage = gson.fromJson(response.body(), new TypeToken<List<Task>>(){}.getType());
+        assertEquals(1, secondPage.size(), "Неверный размер второй страницы");
+        assertEquals("Задача 2", secondPage.getFirst().getTitle(), "Неверная задача на второй странице");
+        assertTrue(response.headers().firstValue("X-Next-Cursor").isEmpty(), "Последняя страница без курсора");
+    }
+}
@@ -3,6 +3,10 @@ package model;
 import enums.Status;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class EpicTest {
@@ -15,4 +19,53 @@ class EpicTest {
     public void tasksWithEqualIdShouldBeEqual() {
         assertEquals(epic1, epic2, "Наследники класса task.Task с одинаковым id должны быть равны!");
     }
-}
\ No newline at end of file
+
+    // Проверка пересчета статуса и времени эпика по агрегатам подзадач
+    @Test
+    public void shouldRecalculateEpicFromSubtaskStates() {
+        Epic epic = new Epic(1, "Эпик", "Описание эпика");
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Subtask first = new Subtask(2, "Подзадача 1", "Описание", Status.DONE,
+                start, Duration.ofMinutes(30), 1);
+        Subtask second = new Subtask(3, "Подзадача 2", "Описание", Status.DONE,
+                start.plusHours(2), Duration.ofMinutes(60), 1);
+
+        epic.applySubtask(first);
+        epic.applySubtask(second);
+        assertEquals(Status.DONE, epic.getStatus(), "Статус эпика должен быть DONE");
+        assertEquals(start, epic.getStartTime(), "Начало эпика должно совпадать с первой подзадачей");
+        assertEquals(start.plusHours(3), epic.getEndTime(), "Конец эпика должен совпадать с последней подзадачей");
+        assertEquals(Duration.ofHours(3), epic.getDuration(), "Неверная продолжительность эпика");
+
+        // Изменение объекта подзадачи на месте не должно ломать вычитание прежнего вклада
+        second.setStatus(Status.NEW);
+        second.setStartTime(start.plusHours(1));
+        epic.applySubtask(second);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus(), "Статус эпика должен быть IN_PROGRESS");
+        assertEquals(start.plusHours(2), epic.getEndTime(), "Конец эпика должен пересчитаться");
+
+        epic.withdrawSubtask(first.getId());
+        assertEquals(Status.NEW, epic.getStatus(), "Статус эпика должен быть NEW");
+        assertEquals(start.plusHours(1), epic.getStartTime(), "Начало эпика должно пересчитаться");
+
+        epic.withdrawSubtask(second.getId());
+        assertNull(epic.getStartTime(), "У эпика без подзадач не должно быть времени начала");
+        assertEquals(Duration.ZERO, epic.getDuration(), "У эпика без подзадач нулевая продолжительность");
+    }
+
+    // Проверка списка подзадач: повторное добавление игнорируется, удаление сохраняет порядок остальных
+    @Test
+    public void shouldKeepSubtaskIdsUniqueInInsertionOrder() {
+        Epic epic = new Epic(1, "Эпик", "Описание эпика");
+        epic.addSubtask(4);
+        epic.addSubtask(2);
+        epic.addSubtask(4);
+        epic.addSubtask(3);
+
+        assertEquals(List.of(4, 2, 3), epic.getSubtasksId(), "Подзадача не должна добавляться дважды");
+        epic.deleteSubtaskById(2);
+        assertEquals(List.of(4, 3), epic.getSubtasksId(), "Удаление должно сохранять порядок");
+        assertThrows(UnsupportedOperationException.class, () -> epic.getSubtasksId().add(5),
+                "Список подзадач изменяется только методами эпика");
+    }
+}
@@ -0,0 +1,86 @@
+package service;
+
+import enums.Status;
+import model.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.managers.ArrayHistoryManager;
+import service.managers.InMemoryHistoryManager;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrayHistoryManagerTest {
+
+    private ArrayHistoryManager historyManager;
+
+    @BeforeEach
+    public void beforeEach() {
+        historyManager = new ArrayHistoryManager();
+    }
+
+    // Проверка порядка задач и переноса повторно просмотренной задачи в конец
+    @Test
+    public void shouldMoveTaskToEndWhenReadded() {
+        Task task1 = new Task(1, "Задача 1", "Описание задачи 1", Status.NEW);
+        Task task2 = new Task(2, "Задача 2", "Описание задачи 2", Status.NEW);
+        Task task3 = new Task(3, "Задача 3", "Описание задачи 3", Status.NEW);
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task3);
+        historyManager.add(task1);
+        assertEquals(List.of(task2, task3, task1), historyManager.getHistory(), "Порядок в истории неверный!");
+    }
+
+    // Проверка удаления задач из начала, середины и конца истории
+    @Test
+    public void shouldRemoveTasksFromAnyPosition() {
+        for (int i = 1; i <= 5; i++) {
+            historyManager.add(new Task(i, "Задача " + i, "Описание", Status.NEW));
+        }
+        historyManager.remove(1);
+        historyManager.remove(3);
+        historyManager.remove(5);
+        historyManager.remove(42);
+        assertEquals(List.of(2, 4), historyManager.getHistory().stream().map(Task::getId).toList(),
+                "В истории должны остаться задачи 2 и 4!");
+    }
+
+    // Проверка вытеснения самой давно просмотренной задачи при переполнении истории
+    @Test
+    public void shouldEvictLeastRecentlyViewedWhenFull() {
+        historyManager = new ArrayHistoryManager(2);
+        Task task1 = new Task(1, "Задача 1", "Описание задачи 1", Status.NEW);
+        Task task2 = new Task(2, "Задача 2", "Описание задачи 2", Status.NEW);
+        Task task3 = new Task(3, "Задача 3", "Описание задачи 3", Status.NEW);
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task1);
+        historyManager.add(task3);
+        assertEquals(List.of(task1, task3), historyManager.getHistory(),
+                "Должна быть вытеснена давно просмотренная задача 2!");
+    }
+
+    // Проверка, что на случайной последовательности операций история совпадает со списочной реализацией
+    @Test
+    public void shouldMatchLinkedHistoryOnRandomOperations() {
+        historyManager = new ArrayHistoryManager(100);
+        InMemoryHistoryManager expected = new InMemoryHistoryManager(100, null);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                historyManager.remove(id);
+                expected.remove(id);
+            } else {
+                Task task = new Task(id, "Задача " + id, "Описание", Status.NEW);
+                historyManager.add(task);
+                expected.add(task);
+            }
+        }
+        assertEquals(expected.getHistory(), historyManager.getHistory(), "Истории должны совпадать!");
+    }
+}
@@ -0,0 +1,169 @@
+package service;
+
+import enums.Status;
+import model.*;
+import org.junit.jupiter.api.Test;
+import service.exeptions.NotFoundException;
+import service.exeptions.TimeOverlapException;
+import service.managers.ConcurrentTaskManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    private static final int THREADS = 8;
+
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Проверка, что подзадачи разных эпиков корректно создаются и пересчитывают эпики из нескольких потоков
+    @Test
+    public void shouldEditDifferentEpicsInParallel() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Epic epic = new Epic("Эпик " + i, "Описание эпика");
+            taskManager.createEpic(epic);
+            epics.add(epic);
+        }
+
+        runInParallel(thread -> {
+            Epic epic = epics.get(thread);
+            for (int i = 0; i < 200; i++) {
+                Subtask subtask = new Subtask("Подзадача " + i, "Описание", epic.getId());
+                taskManager.createSubtask(subtask);
+                taskManager.updateSubtask(new Subtask(subtask.getId(), subtask.getTitle(),
+                        subtask.getDescription(), Status.DONE, epic.getId()));
+            }
+        });
+
+        assertEquals(THREADS * 200, taskManager.getAllSubtasks().size(), "Потеряны подзадачи");
+        for (Epic epic : epics) {
+            assertEquals(200, taskManager.getSubtaskByEpic(epic.getId()).size(), "Неверное число подзадач эпика");
+            assertEquals(Status.DONE, epic.getStatus(), "Статус эпика должен быть DONE");
+        }
+    }
+
+    // Проверка, что при параллельном создании задач с одинаковым временем добавится только одна
+    @Test
+    public void shouldKeepOverlapGuaranteeUnderContention() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        AtomicInteger rejected = new AtomicInteger();
+
+        runInParallel(thread -> {
+            try {
+                taskManager.createTask(new Task("Задача " + thread, "Описание", start, Duration.ofMinutes(30)));
+            } catch (TimeOverlapException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, taskManager.getPrioritizedTasks().size(), "Должна добавиться только одна задача");
+        assertEquals(THREADS - 1, rejected.get(), "Остальные задачи должны пересекаться по времени");
+    }
+
+    // Проверка, что удаление подзадачи не теряется, когда параллельное обновление заменяет ее объект
+    @Test
+    public void shouldDeleteSubtasksReplacedByConcurrentUpdates() throws Exception {
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        taskManager.createEpic(epic);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Subtask subtask = new Subtask("Подзадача " + i, "Описание", epic.getId());
+            taskManager.createSubtask(subtask);
+            ids.add(subtask.getId());
+        }
+
+        runInParallel(thread -> {
+            for (Integer id : ids) {
+                if (thread % 2 == 0) {
+                    taskManager.updateSubtask(new Subtask(id, "Обновлена", "Описание", Status.DONE, epic.getId()));
+                } else {
+                    taskManager.deleteSubtask(id);
+                }
+            }
+        });
+
+        assertTrue(taskManager.getAllSubtasks().isEmpty(), "Подзадачи должны быть удалены");
+        assertTrue(taskManager.getEpicById(epic.getId()).getSubtasksId().isEmpty(),
+                "В эпике не должно остаться удаленных подзадач");
+        assertEquals(Status.NEW, epic.getStatus(), "Статус эпика без подзадач должен быть NEW");
+    }
+
+    // Проверка, что удаление задачи без времени не отменяется параллельным обновлением и чтением
+    @Test
+    public void shouldDeleteTasksReplacedByConcurrentUpdates() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Task task = new Task("Задача " + i, "Описание");
+            taskManager.createTask(task);
+            ids.add(task.getId());
+        }
+
+        runInParallel(thread -> {
+            for (Integer id : ids) {
+                switch (thread % 3) {
+                    case 0 -> taskManager.updateTask(new Task(id, "Обновлена", "Описание", Status.DONE));
+                    case 1 -> taskManager.deleteTask(id);
+                    default -> {
+                        try {
+                            taskManager.getTaskById(id);
+                        } catch (NotFoundException ignored) {
+                            // Задачу уже удалили
+                        }
+                    }
+                }
+            }
+        });
+
+        assertTrue(taskManager.getAllTasks().isEmpty(), "Задачи должны быть удалены");
+        assertTrue(taskManager.getTasksByStatus(Status.DONE).isEmpty(), "В индексе статусов не должно быть задач");
+        assertTrue(taskManager.search("Обновлена", 0, 10).isEmpty(), "В поиске не должно быть удаленных задач");
+        assertTrue(taskManager.getHistory().isEmpty(), "В истории не должно быть удаленных задач");
+    }
+
+    // Проверка, что читатель получает копию эпика, не меняющуюся при добавлении подзадач
+    @Test
+    public void shouldReturnEpicCopiesToReaders() {
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        taskManager.createEpic(epic);
+        Epic copy = taskManager.getEpicById(epic.getId());
+
+        taskManager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+
+        assertTrue(copy.getSubtasksId().isEmpty(), "Копия эпика не должна меняться");
+        assertEquals(1, taskManager.getEpicById(epic.getId()).getSubtasksId().size(),
+                "Новая копия должна содержать подзадачу");
+    }
+
+    private void runInParallel(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            futures.add(executor.submit(() -> {
+                startSignal.await();
+                body.run(thread);
+                return null;
+            }));
+        }
+        startSignal.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
@@ -1,15 +1,24 @@
 package service;
 
+import enums.OperationType;
 import enums.Status;
 import model.*;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import service.exeptions.ManagerReadException;
+import service.exeptions.ManagerSaveException;
+import service.exeptions.TimeOverlapException;
 import service.managers.FileBackedTaskManager;
+import service.managers.FlushMetrics;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -42,6 +51,9 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         if (file != null && file.exists()) {
             file.delete();
         }
+        if (file != null) {
+            new File(file.getPath() + ".prev").delete();
+        }
     }
 
     @Override
@@ -138,4 +150,468 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertEquals("Добавить классы для обработки исключений", subtask.getDescription(),
                 "Подзадача должна обновить свое описание!");
     }
-}
\ No newline at end of file
+
+    // Проверка режима журнала: изменения дописываются в журнал и восстанавливаются с исходными id
+    @Test
+    public void shouldRestoreStateFromJournal() {
+        File journal = new File(file.getPath() + ".journal");
+        file.delete();
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, 100);
+
+        Task task = new Task("Задача", "Описание задачи", LocalDateTime.of(2025, 1, 1, 10, 0),
+                Duration.ofMinutes(30));
+        journaled.createTask(task);
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        journaled.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание подзадачи", epic.getId());
+        journaled.createSubtask(subtask);
+        Subtask removed = new Subtask("Удаляемая подзадача", "Описание", epic.getId());
+        journaled.createSubtask(removed);
+        journaled.updateSubtask(new Subtask(subtask.getId(), "Подзадача", "Описание подзадачи",
+                Status.DONE, epic.getId()));
+        journaled.deleteSubtask(removed.getId());
+
+        assertFalse(file.exists(), "Снимок не должен перезаписываться при каждом изменении");
+        assertTrue(journal.length() > 0, "Изменения должны попадать в журнал");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, 100);
+        assertEquals(task.getStartTime(), loaded.getTaskById(task.getId()).getStartTime(),
+                "Задача должна восстановиться с исходным id");
+        assertEquals(List.of(subtask.getId()), loaded.getEpicById(epic.getId()).getSubtasksId(),
+                "У эпика должна остаться одна подзадача");
+        assertEquals(Status.DONE, loaded.getEpicById(epic.getId()).getStatus(),
+                "Статус эпика должен пересчитаться после восстановления");
+
+        Task next = new Task("Новая задача", "Описание");
+        loaded.createTask(next);
+        assertTrue(next.getId() > removed.getId(), "Новые id не должны совпадать с восстановленными");
+        journal.delete();
+    }
+
+    // Проверка сжатия журнала: по достижении порога пишется снимок, а журнал очищается
+    @Test
+    public void shouldCompactJournalIntoSnapshot() throws IOException {
+        File journal = new File(file.getPath() + ".journal");
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, 3);
+
+        journaled.createTask(new Task("Задача 1", "Описание"));
+        journaled.createTask(new Task("Задача 2", "Описание"));
+        journaled.createTask(new Task("Задача 3", "Описание"));
+        assertEquals(0, journal.length(), "После сжатия журнал должен быть пуст");
+        assertTrue(Files.readString(file.toPath(), StandardCharsets.UTF_8).contains("Задача 3"),
+                "Снимок должен содержать все задачи");
+
+        journaled.deleteTask(1);
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, 3);
+        assertEquals(2, loaded.getAllTasks().size(), "Удаление из журнала должно примениться к снимку");
+        journal.delete();
+    }
+
+    // Проверка пакета в режиме журнала: все записи пакета дописываются вместе, отклоненный пакет не пишется
+    @Test
+    public void shouldJournalBatchTogether() throws IOException {
+        File journal = new File(file.getPath() + ".journal");
+        file.delete();
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, 100);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+        assertThrows(TimeOverlapException.class, () -> journaled.applyBatch(List.of(
+                new Operation(OperationType.CREATE, new Task("Задача 1", "Описание", start, Duration.ofHours(1))),
+                new Operation(OperationType.CREATE, new Task("Задача 2", "Описание", start, Duration.ofHours(1))))));
+        assertFalse(journal.exists(), "Отклоненный пакет не должен попадать в журнал");
+
+        journaled.applyBatch(List.of(
+                new Operation(OperationType.CREATE, new Task("Задача 1", "Описание", start, Duration.ofHours(1))),
+                new Operation(OperationType.CREATE, new Epic("Эпик", "Описание"))));
+        assertEquals(2, journalRecords(journal), "Пакет должен записать по одной записи на операцию");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, 100);
+        assertEquals(1, loaded.getAllTasks().size(), "Задача пакета должна восстановиться");
+        assertEquals(1, loaded.getAllEpics().size(), "Эпик пакета должен восстановиться");
+        journal.delete();
+    }
+
+    /* Проверка момента фиксации в режиме журнала: если после дозаписи транзакции не удалось сжатие,
+    транзакция все равно считается выполненной и не откатывается, а журнал восстанавливает ее изменения
+     */
+    @Test
+    public void shouldKeepJournaledTransactionWhenCompactionFails() throws IOException {
+        File journal = new File(file.getPath() + ".journal");
+        File blockedTemp = new File(file.getPath() + ".tmp");
+        file.delete();
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, 2);
+        assertTrue(blockedTemp.mkdir(), "Каталог на месте временного файла должен сорвать запись снимка");
+        try {
+            journaled.inTransaction(tx -> {
+                tx.createTask(new Task("Задача 1", "Описание"));
+                tx.createTask(new Task("Задача 2", "Описание"));
+            });
+            assertEquals(2, journaled.getAllTasks().size(), "Зафиксированная транзакция не должна откатываться");
+            assertEquals(2, journalRecords(journal), "Записи транзакции должны остаться в журнале");
+        } finally {
+            blockedTemp.delete();
+        }
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, 2);
+        assertEquals(2, loaded.getAllTasks().size(), "Журнал должен восстановить задачи транзакции");
+
+        journaled.createTask(new Task("Задача 3", "Описание"));
+        assertEquals(0, journal.length(), "После устранения ошибки журнал должен сжаться");
+        journal.delete();
+    }
+
+    /* Проверка сбоя посреди сжатия: снимок уже записан, а журнал еще не удален. Повторное применение журнала
+    к новому снимку воссоздало бы подзадачу удаленного позже эпика, поэтому такой журнал отбрасывается
+     */
+    @Test
+    public void shouldSkipJournalAlreadyCompactedIntoSnapshot() throws IOException {
+        File journal = new File(file.getPath() + ".journal");
+        file.delete();
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, 100);
+        Epic removed = new Epic("Удаляемый эпик", "Описание");
+        journaled.createEpic(removed);
+        journaled.createSubtask(new Subtask("Подзадача", "Описание", removed.getId()));
+        Epic kept = new Epic("Эпик", "Описание");
+        journaled.createEpic(kept);
+        journaled.deleteEpic(removed.getId());
+        byte[] beforeCompaction = Files.readAllBytes(journal.toPath());
+
+        journaled.checkEpicStatus(kept.getId());
+        assertFalse(journal.exists(), "После сжатия журнал должен быть удален");
+        Files.write(journal.toPath(), beforeCompaction);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, 100);
+        assertEquals(List.of(kept.getId()), loaded.getAllEpics().stream().map(Task::getId).toList(),
+                "Должен остаться только сохраненный эпик");
+        assertTrue(loaded.getAllSubtasks().isEmpty(), "Подзадача удаленного эпика не должна вернуться");
+
+        loaded.createTask(new Task("Задача", "Описание"));
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(file, 100);
+        assertEquals(1, reloaded.getAllTasks().size(), "Записи после отброшенного журнала должны сохраниться");
+        assertEquals(1, reloaded.getAllEpics().size(), "Эпики не должны задваиваться");
+        journal.delete();
+    }
+
+    /* Проверка предыдущего поколения в режиме журнала: оно загружается вместе с журналом, который к нему
+    относится (сбой сжатия между переименованиями), а без такого журнала поврежденный снимок отклоняется
+     */
+    @Test
+    public void shouldUsePreviousSnapshotInJournalModeOnlyWithItsJournal() throws IOException {
+        File journal = new File(file.getPath() + ".journal");
+        File previous = new File(file.getPath() + ".prev");
+        file.delete();
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, 100);
+        Epic epic = new Epic("Эпик", "Описание");
+        journaled.createEpic(epic);
+        journaled.checkEpicStatus(epic.getId());
+        journaled.createTask(new Task("Задача", "Описание"));
+
+        assertTrue(file.renameTo(previous), "Не удалось подготовить файл");
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, 100);
+        assertEquals(1, loaded.getAllTasks().size(), "Журнал предыдущего поколения должен примениться");
+        assertEquals(1, loaded.getAllEpics().size(), "Предыдущее поколение должно загрузиться");
+
+        loaded.checkEpicStatus(epic.getId());
+        loaded.checkEpicStatus(epic.getId());
+        assertFalse(journal.exists(), "После сжатия журнал должен быть удален");
+        String snapshot = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        Files.writeString(file.toPath(), snapshot.replace("Задача", "Чужая"), StandardCharsets.UTF_8);
+        assertThrows(ManagerReadException.class, () -> FileBackedTaskManager.loadFromFile(file, 100),
+                "Предыдущее поколение без своего журнала не должно загружаться");
+    }
+
+    // Проверка, что неполная последняя запись журнала отбрасывается при загрузке и не портит следующие записи
+    @Test
+    public void shouldIgnoreTornJournalTail() throws IOException {
+        File journal = new File(file.getPath() + ".journal");
+        file.delete();
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, 100);
+        journaled.createTask(new Task("Задача 1", "Описание"));
+        Files.writeString(journal.toPath(), "PUT,2,TASK,\"Оборвана", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, 100);
+        assertEquals(1, loaded.getAllTasks().size(), "Неполная запись не должна примениться");
+        loaded.createTask(new Task("Задача 2", "Описание"));
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(file, 100);
+        assertEquals(List.of("Задача 1", "Задача 2"), reloaded.getAllTasks().stream().map(Task::getTitle).toList(),
+                "Запись после отброшенного хвоста должна читаться");
+        journal.delete();
+    }
+
+    // Проверка транзакции: изменения внутри нее не пишутся на диск, при выходе снимок записывается один раз
+    @Test
+    public void shouldSaveTransactionOnceOnCommit() throws IOException {
+        String before = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+
+        manager.inTransaction(tx -> {
+            Epic newEpic = new Epic("Эпик", "Описание");
+            tx.createEpic(newEpic);
+            tx.createSubtask(new Subtask("Подзадача", "Описание", newEpic.getId()));
+            tx.inTransaction(nested -> nested.createTask(new Task("Задача", "Описание")));
+            tx.checkEpicStatus(newEpic.getId());
+            try {
+                assertEquals(before, Files.readString(file.toPath(), StandardCharsets.UTF_8),
+                        "До завершения транзакции файл не должен меняться");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(1, loaded.getAllTasks().size(), "Задача транзакции должна сохраниться");
+        assertEquals(1, loaded.getAllSubtasks().size(), "Подзадача транзакции должна сохраниться");
+    }
+
+    // Проверка отката: при исключении внутри транзакции состояние в памяти возвращается, файл не меняется
+    @Test
+    public void shouldRollbackTransactionOnFailure() throws IOException {
+        Task kept = new Task("Задача", "Описание", LocalDateTime.of(2025, 1, 1, 10, 0), Duration.ofHours(1));
+        manager.createTask(kept);
+        manager.getTaskById(kept.getId());
+        String before = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+
+        assertThrows(IllegalStateException.class, () -> manager.inTransaction(tx -> {
+            tx.deleteTask(kept.getId());
+            tx.createTask(new Task("Временная", "Описание", LocalDateTime.of(2025, 1, 1, 10, 0),
+                    Duration.ofHours(1)));
+            throw new IllegalStateException("Отмена");
+        }));
+
+        assertEquals(before, Files.readString(file.toPath(), StandardCharsets.UTF_8),
+                "Отмененная транзакция не должна записываться");
+        assertEquals(List.of(kept.getId()), manager.getAllTasks().stream().map(Task::getId).toList(),
+                "Удаленная в транзакции задача должна вернуться");
+        assertEquals(1, manager.getPrioritizedTasks().size(), "Расписание должно откатиться");
+        assertEquals(1, manager.getHistory().size(), "История просмотров должна сохраниться");
+    }
+
+    // Проверка отката эпиков и подзадач: откатываются только затронутые задачи, остальные остаются теми же объектами
+    @Test
+    public void shouldRollbackOnlyTouchedTasks() {
+        Task untouched = new Task("Задача", "Описание");
+        manager.createTask(untouched);
+        Epic first = new Epic("Эпик 1", "Описание");
+        manager.createEpic(first);
+        Epic second = new Epic("Эпик 2", "Описание");
+        manager.createEpic(second);
+        Subtask moved = new Subtask("Подзадача 1", "Описание", first.getId());
+        manager.createSubtask(moved);
+        Subtask done = new Subtask(0, "Подзадача 2", "Описание", Status.DONE, second.getId());
+        manager.createSubtask(done);
+
+        assertThrows(IllegalStateException.class, () -> manager.inTransaction(tx -> {
+            tx.updateSubtask(new Subtask(moved.getId(), "Перенесена", "Описание", Status.DONE, second.getId()));
+            tx.deleteEpic(second.getId());
+            tx.createSubtask(new Subtask("Новая", "Описание", first.getId()));
+            tx.updateEpic(new Epic(first.getId(), "Переименован", "Описание", Status.NEW));
+            throw new IllegalStateException("Отмена");
+        }));
+
+        assertSame(untouched, manager.getTaskById(untouched.getId()), "Незатронутая задача не должна копироваться");
+        Epic restoredFirst = manager.getEpicById(first.getId());
+        Epic restoredSecond = manager.getEpicById(second.getId());
+        assertEquals("Эпик 1", restoredFirst.getTitle(), "Название эпика должно откатиться");
+        assertEquals(List.of(moved.getId()), restoredFirst.getSubtasksId(), "Подзадачи эпика должны откатиться");
+        assertEquals(List.of(done.getId()), restoredSecond.getSubtasksId(), "Удаленный эпик должен вернуться");
+        assertEquals(Status.NEW, restoredFirst.getStatus(), "Статус эпика должен пересчитаться");
+        assertEquals(Status.DONE, restoredSecond.getStatus(), "Статус эпика должен пересчитаться");
+        assertEquals("Подзадача 1", manager.getSubtaskById(moved.getId()).getTitle(),
+                "Перенесенная подзадача должна вернуться");
+        assertEquals(2, manager.getAllSubtasks().size(), "Созданная подзадача должна исчезнуть");
+    }
+
+    // Проверка отката при ошибке записи: изменения транзакции не остаются в памяти
+    @Test
+    public void shouldRollbackTransactionWhenSaveFails() throws IOException {
+        File directory = Files.createTempDirectory("tasks").toFile();
+        FileBackedTaskManager broken = new FileBackedTaskManager(new File(directory, "missing/tasks.csv"));
+
+        assertThrows(ManagerSaveException.class,
+                () -> broken.inTransaction(tx -> tx.createTask(new Task("Задача", "Описание"))));
+        assertTrue(broken.getAllTasks().isEmpty(), "Несохраненная транзакция должна откатиться");
+        directory.delete();
+    }
+
+    // Проверка, что flush внутри транзакции отклоняется, а не ждет монитор, занятый этим же потоком
+    @Test
+    public void shouldRejectFlushUnderManagerMonitor() {
+        file.delete();
+        FileBackedTaskManager writeBehind = new FileBackedTaskManager(file, Duration.ofHours(1), 100);
+
+        assertThrows(IllegalStateException.class, () -> writeBehind.inTransaction(tx -> {
+            tx.createTask(new Task("Задача", "Описание"));
+            tx.flush();
+        }), "flush под монитором менеджера должен отклоняться");
+        assertTrue(writeBehind.getAllTasks().isEmpty(), "Транзакция с ошибкой должна откатиться");
+
+        writeBehind.createTask(new Task("Задача", "Описание"));
+        writeBehind.close();
+        assertEquals(1, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "После отказа запись должна работать");
+    }
+
+    // Проверка отложенной записи: изменения не пишутся в вызывающем потоке, flush и close записывают снимок
+    @Test
+    public void shouldWriteBehindOnFlushAndClose() throws IOException {
+        file.delete();
+        FileBackedTaskManager writeBehind = new FileBackedTaskManager(file, Duration.ofHours(1), 100);
+
+        writeBehind.createTask(new Task("Задача 1", "Описание"));
+        assertFalse(file.exists(), "Изменение не должно записываться сразу");
+        assertEquals(1, writeBehind.getFlushMetrics().getUnsavedChanges(), "Изменение должно ожидать записи");
+
+        writeBehind.flush();
+        assertEquals(1, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "flush должен записать снимок");
+        assertEquals(1, writeBehind.getFlushMetrics().getFlushCount(), "Должна быть одна запись");
+
+        writeBehind.createTask(new Task("Задача 2", "Описание"));
+        writeBehind.close();
+        assertEquals(2, FileBackedTaskManager.loadFromFile(file).getAllTasks().size(),
+                "close должен записать оставшиеся изменения");
+    }
+
+    // Проверка, что после неудачной записи изменения снова считаются несохраненными
+    @Test
+    public void shouldKeepChangesUnsavedWhenFlushFails() throws IOException {
+        File blocker = File.createTempFile("blocker", ".tmp");
+        blocker.deleteOnExit();
+        FileBackedTaskManager writeBehind = new FileBackedTaskManager(new File(blocker, "tasks.csv"),
+                Duration.ofHours(1), 100);
+
+        writeBehind.createTask(new Task("Задача", "Описание"));
+        assertThrows(ManagerSaveException.class, writeBehind::flush, "Запись в недоступный каталог должна упасть");
+
+        FlushMetrics metrics = writeBehind.getFlushMetrics();
+        assertEquals(1, metrics.getUnsavedChanges(), "Изменение должно остаться несохраненным");
+        assertEquals(1, metrics.getFailedFlushes(), "Неудачная запись должна учитываться");
+        assertEquals(0, metrics.getFlushCount(), "Успешных записей быть не должно");
+    }
+
+    // Проверка, что по достижении порога изменений снимок записывается фоновым потоком
+    @Test
+    public void shouldFlushInBackgroundAfterMaxPendingChanges() throws InterruptedException {
+        file.delete();
+        FileBackedTaskManager writeBehind = new FileBackedTaskManager(file, Duration.ofHours(1), 2);
+
+        writeBehind.createTask(new Task("Задача 1", "Описание"));
+        writeBehind.createTask(new Task("Задача 2", "Описание"));
+        for (int attempt = 0; attempt < 100 && writeBehind.getFlushMetrics().getFlushCount() == 0; attempt++) {
+            Thread.sleep(20);
+        }
+
+        FlushMetrics metrics = writeBehind.getFlushMetrics();
+        assertEquals(1, metrics.getFlushCount(), "Снимок должен записаться без вызова flush");
+        assertEquals(0, metrics.getUnsavedChanges(), "Несохраненных изменений не должно остаться");
+        assertTrue(metrics.getLastFlushLag().compareTo(metrics.getLastFlushDuration()) >= 0,
+                "Задержка включает длительность записи");
+        writeBehind.close();
+    }
+
+    // Проверка контрольной суммы: поврежденный снимок заменяется при загрузке предыдущим поколением
+    @Test
+    public void shouldFallBackToPreviousSnapshotOnChecksumMismatch() throws IOException {
+        File previous = new File(file.getPath() + ".prev");
+        manager.createTask(new Task("Первая", "Описание"));
+        manager.createTask(new Task("Вторая", "Описание"));
+
+        String snapshot = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        assertTrue(snapshot.lines().reduce((first, second) -> second).orElseThrow().startsWith("#checksum,"),
+                "Снимок должен заканчиваться контрольной суммой");
+        assertTrue(previous.exists(), "Прежний снимок должен сохраниться как предыдущее поколение");
+
+        Files.writeString(file.toPath(), snapshot.replace("Вторая", "Чужая"), StandardCharsets.UTF_8);
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(List.of("Первая"), loaded.getAllTasks().stream().map(Task::getTitle).toList(),
+                "Должно загрузиться предыдущее поколение");
+
+        previous.delete();
+        assertThrows(ManagerReadException.class, () -> FileBackedTaskManager.loadFromFile(file),
+                "Без предыдущего поколения поврежденный снимок должен отклоняться");
+    }
+
+    // Проверка, что снимок, обрезанный до строки контрольной суммы, не загружается частично
+    @Test
+    public void shouldFallBackToPreviousSnapshotWhenTruncated() throws IOException {
+        File previous = new File(file.getPath() + ".prev");
+        manager.createTask(new Task("Первая", "Описание"));
+        manager.createTask(new Task("Вторая", "Описание"));
+
+        String snapshot = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        Files.writeString(file.toPath(), snapshot.substring(0, snapshot.indexOf("#checksum")), StandardCharsets.UTF_8);
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(List.of("Первая"), loaded.getAllTasks().stream().map(Task::getTitle).toList(),
+                "Вместо обрезанного снимка должно загрузиться предыдущее поколение");
+
+        previous.delete();
+        assertThrows(ManagerReadException.class, () -> FileBackedTaskManager.loadFromFile(file),
+                "Без предыдущего поколения обрезанный снимок должен отклоняться");
+    }
+
+    // Проверка, что при отсутствии текущего снимка (сбой между переименованиями) загружается предыдущий
+    @Test
+    public void shouldLoadPreviousSnapshotWhenCurrentIsMissing() {
+        File previous = new File(file.getPath() + ".prev");
+        manager.createTask(new Task("Первая", "Описание"));
+        manager.createTask(new Task("Вторая", "Описание"));
+        assertTrue(file.renameTo(new File(file.getPath() + ".tmp")), "Не удалось подготовить файл");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(1, loaded.getAllTasks().size(), "Должно загрузиться предыдущее поколение");
+        previous.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    // Проверка загрузки файла прежнего формата, в тексте которого есть кавычки
+    @Test
+    public void shouldLoadLegacyFileWithQuotes() throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            writer.write("id,type,title,description,status,epic,startTime,duration\n");
+            writer.write("1,TASK,Купить 27\" монитор,Описание,NEW,,2025-01-01T12:00:00,30\n");
+            writer.write("2,EPIC,Эпик,Сказать \"да\",NEW,,,0\n");
+        }
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+
+        assertEquals("Купить 27\" монитор", loaded.getTaskById(1).getTitle(), "Кавычка должна остаться в названии");
+        assertEquals("Сказать \"да\"", loaded.getEpicById(2).getDescription(), "Кавычки должны остаться в описании");
+    }
+
+    // Проверка, что загрузка сохраняет исходные id, пересчитывает эпики и ничего не пишет на диск
+    @Test
+    public void shouldRestoreOriginalIdsWithoutWriting() throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            writer.write("id,type,title,description,status,epic,startTime,duration\n");
+            writer.write("7,TASK,Задача,Описание,NEW,,2025-01-01T12:00:00,30\n");
+            writer.write("3,EPIC,Эпик,Описание,NEW,,,0\n");
+            writer.write("5,SUBTASK,Подзадача 1,Описание,DONE,3,2025-01-01T10:00:00,60\n");
+            writer.write("9,SUBTASK,Подзадача 2,Описание,IN_PROGRESS,3,,0\n");
+        }
+        String before = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+
+        assertEquals(before, Files.readString(file.toPath(), StandardCharsets.UTF_8),
+                "Загрузка не должна перезаписывать файл");
+        assertEquals("Задача", loaded.getTaskById(7).getTitle(), "Задача должна сохранить исходный id");
+        Epic loadedEpic = loaded.getEpicById(3);
+        assertEquals(List.of(5, 9), loadedEpic.getSubtasksId(), "Эпик должен получить свои подзадачи");
+        assertEquals(Status.IN_PROGRESS, loadedEpic.getStatus(), "Статус эпика должен пересчитаться");
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), loadedEpic.getStartTime(),
+                "Время эпика должно пересчитаться");
+        assertEquals(2, loaded.getPrioritizedTasks().size(), "Задачи со временем должны попасть в приоритеты");
+
+        Task next = new Task("Новая задача", "Описание");
+        loaded.createTask(next);
+        assertEquals(10, next.getId(), "Счетчик id должен продолжиться после максимального");
+    }
+
+    // Число записей журнала без строки отпечатка снимка
+    private static long journalRecords(File journal) throws IOException {
+        return Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8).stream()
+                .filter(line -> !line.startsWith("#"))
+                .count();
+    }
+}
@@ -5,6 +5,10 @@ import org.junit.jupiter.api.*;
 import model.*;
 import service.managers.InMemoryHistoryManager;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -157,4 +161,66 @@ class InMemoryHistoryManagerTest {
         assertTrue(historyList.contains(epic1), "Эпик отсутствует в истории");
         assertTrue(historyList.contains(task1), "Задача отсутствует в истории");
     }
-}
\ No newline at end of file
+
+    // Проверка вытеснения самой давно просмотренной задачи при переполнении истории
+    @Test
+    public void shouldEvictLeastRecentlyViewedWhenFull() {
+        historyManager = new InMemoryHistoryManager(2, null);
+        Task task1 = new Task(1, "Задача 1", "Описание задачи 1", Status.NEW);
+        Task task2 = new Task(2, "Задача 2", "Описание задачи 2", Status.NEW);
+        Task task3 = new Task(3, "Задача 3", "Описание задачи 3", Status.NEW);
+        historyManager.add(task1);
+        historyManager.add(task2);
+        historyManager.add(task1);
+        historyManager.add(task3);
+        assertEquals(List.of(task1, task3), historyManager.getHistory(),
+                "Должна быть вытеснена давно просмотренная задача 2!");
+    }
+
+    // Проверка удаления просмотров старше срока хранения
+    @Test
+    public void shouldDropExpiredViews() {
+        MutableClock clock = new MutableClock();
+        historyManager = new InMemoryHistoryManager(10, Duration.ofMinutes(5), clock);
+        Task task1 = new Task(1, "Задача 1", "Описание задачи 1", Status.NEW);
+        Task task2 = new Task(2, "Задача 2", "Описание задачи 2", Status.NEW);
+        historyManager.add(task1);
+        clock.advance(Duration.ofMinutes(3));
+        historyManager.add(task2);
+        clock.advance(Duration.ofMinutes(3));
+        assertEquals(List.of(task2), historyManager.getHistory(), "Просмотр задачи 1 должен истечь!");
+        clock.advance(Duration.ofMinutes(3));
+        assertTrue(historyManager.getHistory().isEmpty(), "Все просмотры должны истечь!");
+    }
+
+    // Проверка, что нельзя создать историю с неположительной емкостью
+    @Test
+    public void shouldRejectNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryHistoryManager(0, null),
+                "Емкость истории должна быть положительной!");
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2025-01-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -3,8 +3,11 @@ package service;
 import enums.Status;
 import org.junit.jupiter.api.Test;
 import model.*;
+import service.exeptions.TimeOverlapException;
 import service.managers.InMemoryTaskManager;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -123,4 +126,90 @@ class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
         assertEquals(subtask.getDescription(), oldSubtask.getDescription(),
                 "В истории не сохранилась старая версия подзадачи!");
     }
-}
\ No newline at end of file
+
+    /* Проверка, что массовые удаления убирают задачи из поискового индекса целиком: по словам удаленных
+    задач ничего не находится, а задачи с общими словами остаются в поиске
+     */
+    @Test
+    public void bulkDeletesShouldClearSearchIndex() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Epic epic = new Epic("Эпик", "Общее описание");
+        manager.createEpic(epic);
+        for (int i = 0; i < 5; i++) {
+            manager.createTask(new Task("Задача " + i, "Общее описание"));
+            manager.createSubtask(new Subtask("Подзадача " + i, "Общее описание", epic.getId()));
+        }
+        Epic kept = new Epic("Другой эпик", "Общее описание");
+        manager.createEpic(kept);
+
+        manager.deleteAllTasks();
+        assertTrue(manager.search("задача", 0, 10).isEmpty(), "Удаленные задачи не должны находиться");
+        manager.deleteEpic(epic.getId());
+
+        assertTrue(manager.search("подзадача", 0, 10).isEmpty(), "Подзадачи удаленного эпика не должны находиться");
+        assertEquals(List.of(kept.getId()), manager.search("общее", 0, 10).stream().map(Task::getId).toList(),
+                "В поиске должен остаться только оставшийся эпик");
+        manager.deleteAllEpics();
+        assertTrue(manager.search("общее описание эпик", 0, 10).isEmpty(), "Поисковый индекс должен опустеть");
+    }
+
+    // Проверка режима сетки: пересечения определяются по занятым ячейкам, смежные задачи допустимы
+    @Test
+    public void slotGridShouldDetectOverlapsAndAllowAdjacentTasks() {
+        InMemoryTaskManager manager = new InMemoryTaskManager(Duration.ofMinutes(15));
+        LocalDateTime start = LocalDateTime.of(2025, 1, 31, 23, 0);
+        Task acrossMonths = new Task("Через границу месяца", "Описание", start, Duration.ofHours(2));
+        manager.createTask(acrossMonths);
+
+        assertThrows(TimeOverlapException.class, () -> manager.createTask(new Task("В феврале", "Описание",
+                start.plusMinutes(105), Duration.ofMinutes(15))), "Пересечение в следующем месяце не найдено");
+        manager.createTask(new Task("Сразу после", "Описание", start.plusHours(2), Duration.ofMinutes(15)));
+        manager.createTask(new Task("Сразу до", "Описание", start.minusMinutes(15), Duration.ofMinutes(15)));
+        assertEquals(3, manager.getPrioritizedTasks().size(), "Смежные задачи должны добавляться");
+
+        manager.deleteTask(acrossMonths.getId());
+        manager.createTask(new Task("На освободившемся месте", "Описание", start.plusHours(1), Duration.ofMinutes(30)));
+        assertEquals(3, manager.getPrioritizedTasks().size(), "Ячейки удаленной задачи должны освобождаться");
+    }
+
+    // Проверка режима сетки: задача, сдвинутая на месте, не пересекается со своими прежними ячейками
+    @Test
+    public void slotGridShouldUpdateTaskChangedInPlace() {
+        InMemoryTaskManager manager = new InMemoryTaskManager(Duration.ofMinutes(15));
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task task = new Task("Задача", "Описание", start, Duration.ofHours(1));
+        manager.createTask(task);
+        manager.createTask(new Task("Соседняя", "Описание", start.plusHours(2), Duration.ofMinutes(15)));
+
+        task.setStartTime(start.plusMinutes(30));
+        manager.updateTask(task);
+        manager.createTask(new Task("На прежнем месте", "Описание", start, Duration.ofMinutes(30)));
+        assertEquals(3, manager.getPrioritizedTasks().size(), "Прежние ячейки задачи должны освободиться");
+
+        task.setStartTime(start.plusMinutes(90));
+        manager.updateTask(task);
+        assertThrows(TimeOverlapException.class, () -> manager.createTask(new Task("Пересечение", "Описание",
+                start.plusMinutes(45), Duration.ofMinutes(15))), "Обновление с пересечением не должно снимать бронь");
+    }
+
+    // Проверка режима сетки: время, не совпадающее с границами ячеек, отклоняется
+    @Test
+    public void slotGridShouldRejectMisalignedTasks() {
+        InMemoryTaskManager manager = new InMemoryTaskManager(Duration.ofMinutes(15));
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> manager.createTask(new Task("Задача", "Описание",
+                start.plusMinutes(5), Duration.ofMinutes(15))), "Начало вне сетки должно отклоняться");
+        assertThrows(IllegalArgumentException.class, () -> manager.createTask(new Task("Задача", "Описание",
+                start, Duration.ofMinutes(20))), "Продолжительность вне сетки должна отклоняться");
+        assertThrows(IllegalArgumentException.class, () -> new InMemoryTaskManager(Duration.ofMinutes(7)),
+                "Шаг сетки должен делить сутки");
+
+        Task task = new Task("Задача", "Описание", start, Duration.ofMinutes(15));
+        manager.createTask(task);
+        manager.updateTask(new Task(task.getId(), "Задача", "Описание", Status.NEW, start.plusMinutes(1),
+                Duration.ofMinutes(15)));
+        assertEquals(start, manager.getPrioritizedTasks().getFirst().getStartTime(),
+                "Обновление вне сетки не должно применяться");
+    }
+}
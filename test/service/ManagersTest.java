@@ -1,10 +1,15 @@
 package service;
 
 import org.junit.jupiter.api.Test;
+import model.Task;
+import service.managers.ConcurrentTaskManager;
 import service.managers.HistoryManager;
+import service.managers.InMemoryTaskManager;
 import service.managers.Managers;
 import service.managers.TaskManager;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ManagersTest {
@@ -19,4 +24,29 @@ class ManagersTest {
         assertNotNull(historyManager, "Экземпляр класса Managers должен быть проинициализирован и" +
                 " готов к работе");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getConcurrentShouldReturnThreadSafeManager() {
+        assertInstanceOf(ConcurrentTaskManager.class, Managers.getConcurrent(),
+                "Должен возвращаться потокобезопасный менеджер");
+    }
+
+    // Проверка, что история по умолчанию не ограничена, а ограниченная передается в конструктор менеджера
+    @Test
+    public void boundedHistoryShouldBePassedToManager() {
+        TaskManager unbounded = Managers.getDefault();
+        TaskManager bounded = new InMemoryTaskManager(Managers.getBoundedHistory(1, Duration.ofHours(1)));
+        for (int i = 0; i < 100; i++) {
+            Task task = new Task("Задача " + i, "Описание задачи");
+            unbounded.createTask(task);
+            unbounded.getTaskById(task.getId());
+        }
+        bounded.createTask(new Task("Задача 1", "Описание задачи 1"));
+        bounded.createTask(new Task("Задача 2", "Описание задачи 2"));
+        bounded.getTaskById(1);
+        bounded.getTaskById(2);
+
+        assertEquals(100, unbounded.getHistory().size(), "История по умолчанию не должна ограничиваться");
+        assertEquals(1, bounded.getHistory().size(), "История должна быть ограничена емкостью");
+    }
+}
@@ -0,0 +1,284 @@
+package service;
+
+import enums.Status;
+import model.Epic;
+import model.Page;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import service.exeptions.ManagerReadException;
+import service.exeptions.TimeOverlapException;
+import service.managers.InMemoryTaskManager;
+import service.managers.MappedTaskManager;
+import service.store.MappedTaskStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTaskManagerTest extends TaskManagerTest<MappedTaskManager> {
+
+    private File file;
+
+    @Override
+    protected MappedTaskManager createTaskManager() {
+        try {
+            file = File.createTempFile("tasks", ".store");
+            return new MappedTaskManager(file);
+        } catch (IOException e) {
+            throw new RuntimeException("Не удалось создать временный файл", e);
+        }
+    }
+
+    // Закрытие менеджера и удаление файлов хранилища после каждого теста
+    @AfterEach
+    public void cleanUp() {
+        taskManager.close();
+        file.delete();
+        new File(file.getPath() + MappedTaskStore.STRINGS_SUFFIX).delete();
+    }
+
+    /* Общие проверки пересчета эпика опираются на объект, переданный в менеджер. Этот менеджер объекты
+    не удерживает, поэтому те же проверки выполняются по эпику, прочитанному из хранилища
+     */
+    @Override
+    @Test
+    public void shouldCheckEpicStatusCalculation() {
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание подзадачи 1", epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание подзадачи 2", epic.getId());
+        taskManager.createSubtask(subtask1);
+        taskManager.createSubtask(subtask2);
+        assertEquals(Status.NEW, storedEpic(epic).getStatus(), "Статус эпика должен быть NEW");
+
+        subtask1.setStatus(Status.DONE);
+        subtask2.setStatus(Status.DONE);
+        taskManager.updateSubtask(subtask1);
+        taskManager.updateSubtask(subtask2);
+        assertEquals(Status.DONE, storedEpic(epic).getStatus(), "Статус эпика должен быть DONE");
+
+        subtask1.setStatus(Status.NEW);
+        taskManager.updateSubtask(subtask1);
+        assertEquals(Status.IN_PROGRESS, storedEpic(epic).getStatus(), "Статус эпика должен быть IN_PROGRESS");
+    }
+
+    @Override
+    @Test
+    public void shouldCalculateEpicTimeFromSubtasks() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        taskManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание", start, Duration.ofMinutes(30), epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание", start.plusHours(1),
+                Duration.ofMinutes(30), epic.getId());
+        taskManager.createSubtask(subtask1);
+        taskManager.createSubtask(subtask2);
+        assertEquals(start, storedEpic(epic).getStartTime(), "Неверное время начала эпика");
+        assertEquals(start.plusMinutes(90), storedEpic(epic).getEndTime(), "Неверное время окончания эпика");
+        assertEquals(Duration.ofMinutes(90), storedEpic(epic).getDuration(), "Неверная продолжительность эпика");
+
+        taskManager.updateSubtask(new Subtask(subtask2.getId(), "Подзадача 2", "Описание", Status.DONE,
+                start.plusHours(2), Duration.ofMinutes(30), epic.getId()));
+        assertEquals(start.plusMinutes(150), storedEpic(epic).getEndTime(), "Время окончания эпика должно обновиться");
+
+        taskManager.deleteSubtask(subtask1.getId());
+        assertEquals(start.plusHours(2), storedEpic(epic).getStartTime(), "Время начала эпика должно обновиться");
+        assertEquals(Status.DONE, storedEpic(epic).getStatus(), "Статус эпика должен быть DONE");
+        assertTrue(taskManager.getHistory().isEmpty(), "Удаление подзадачи не должно попадать в историю");
+    }
+
+    // Проверка, что доска открывается заново из файлов со всеми полями, подзадачами эпиков и счетчиком id
+    @Test
+    public void shouldReopenStoreWithoutLoading() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        Task task = new Task("Задача", "Описание, с запятой", Status.IN_PROGRESS, start, Duration.ofMinutes(30));
+        taskManager.createTask(task);
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        taskManager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание подзадачи", start.plusHours(1), Duration.ofHours(1),
+                epic.getId());
+        subtask.setStatus(Status.DONE);
+        taskManager.createSubtask(subtask);
+        taskManager.close();
+
+        taskManager = new MappedTaskManager(file);
+        assertEquals(task.toString(), taskManager.getTaskById(task.getId()).toString(), "Задача изменилась");
+        assertEquals(subtask.toString(), taskManager.getSubtaskById(subtask.getId()).toString(),
+                "Подзадача изменилась");
+        Epic restored = taskManager.getEpicById(epic.getId());
+        assertEquals(Status.DONE, restored.getStatus(), "Статус эпика не сохранен");
+        assertEquals(List.of(subtask.getId()), restored.getSubtasksId(), "Подзадачи эпика не сохранены");
+        assertEquals(start.plusHours(2), restored.getEndTime(), "Время эпика не сохранено");
+
+        Task next = new Task("Новая", "Описание");
+        taskManager.createTask(next);
+        assertEquals(subtask.getId() + 1, next.getId(), "Счетчик id не сохранен");
+    }
+
+    // Проверка переноса доски из менеджера в памяти: записи, связи эпиков и агрегаты совпадают с исходными
+    @Test
+    public void shouldImportBoardFromAnotherManager() {
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        source.createTask(new Task("Задача", "Описание", Status.NEW, start, Duration.ofMinutes(30)));
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        source.createEpic(epic);
+        source.createSubtask(new Subtask("Подзадача", "Описание", start.plusHours(1), Duration.ofHours(1),
+                epic.getId()));
+        taskManager.close();
+        file.delete();
+        new File(file.getPath() + MappedTaskStore.STRINGS_SUFFIX).delete();
+
+        taskManager = MappedTaskManager.importFrom(source, file);
+        assertEquals(source.getAllTasks().toString(), taskManager.getAllTasks().toString(), "Задачи не перенесены");
+        assertEquals(source.getAllEpics().toString(), taskManager.getAllEpics().toString(), "Эпики не перенесены");
+        assertEquals(source.getAllSubtasks().toString(), taskManager.getAllSubtasks().toString(),
+                "Подзадачи не перенесены");
+        assertEquals(epic.getSubtasksId(), taskManager.getEpicById(epic.getId()).getSubtasksId(),
+                "Подзадачи эпика не связаны");
+        assertThrows(TimeOverlapException.class, () -> taskManager.createTask(
+                new Task("Пересечение", "Описание", Status.NEW, start, Duration.ofMinutes(10))),
+                "Перенесенное расписание должно учитываться при проверке пересечений");
+    }
+
+    // Проверка, что объекты создаются при каждом чтении и не меняют хранилище без обновления
+    @Test
+    public void shouldMaterializeDetachedCopies() {
+        Task task = new Task("Задача", "Описание");
+        taskManager.createTask(task);
+
+        Task first = taskManager.getTaskById(task.getId());
+        first.setTitle("Изменено без обновления");
+        assertNotSame(first, taskManager.getTaskById(task.getId()), "Объект не должен удерживаться менеджером");
+        assertEquals("Задача", taskManager.getTaskById(task.getId()).getTitle(), "Хранилище изменилось без обновления");
+
+        taskManager.updateTask(first);
+        assertEquals("Изменено без обновления", taskManager.getTaskById(task.getId()).getTitle(),
+                "Обновление не записано");
+    }
+
+    // Проверка постраничного обхода с пропуском удаленных записей и записей другого типа
+    @Test
+    public void shouldPageOverLiveRecordsOnly() {
+        for (int i = 0; i < 5; i++) {
+            taskManager.createTask(new Task("Задача " + i, "Описание"));
+            taskManager.createEpic(new Epic("Эпик " + i, "Описание"));
+        }
+        taskManager.deleteTask(3);
+
+        Page<Task> first = taskManager.getTasksPage(null, 2);
+        Page<Task> second = taskManager.getTasksPage(first.getNextCursor(), 2);
+        assertEquals(List.of(1, 5), first.getItems().stream().map(Task::getId).toList(), "Неверная первая страница");
+        assertEquals(List.of(7, 9), second.getItems().stream().map(Task::getId).toList(), "Неверная вторая страница");
+        assertNull(second.getNextCursor(), "Вторая страница должна быть последней");
+    }
+
+    // Проверка, что индекс расписания строится при открытии и следует за изменениями, удалениями и переносами
+    @Test
+    public void shouldCheckOverlapsByScheduleIndexAfterReopen() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+        Task first = new Task("Первая", "Описание", Status.NEW, start, Duration.ofMinutes(30));
+        Task second = new Task("Вторая", "Описание", Status.NEW, start.plusHours(1), Duration.ofMinutes(30));
+        taskManager.createTask(first);
+        taskManager.createTask(second);
+        taskManager.close();
+
+        taskManager = new MappedTaskManager(file);
+        assertThrows(TimeOverlapException.class, () -> taskManager.createTask(new Task("Пересечение", "Описание",
+                Status.NEW, start.plusMinutes(29), Duration.ofMinutes(10))), "Пересечение после открытия не найдено");
+        Task adjacent = new Task("Смежная", "Описание", Status.NEW, start.plusMinutes(30), Duration.ofMinutes(30));
+        taskManager.createTask(adjacent);
+
+        taskManager.updateTask(new Task(first.getId(), "Первая", "Описание", Status.NEW, start.plusHours(3),
+                Duration.ofMinutes(30)));
+        taskManager.createTask(new Task("На месте первой", "Описание", Status.NEW, start, Duration.ofMinutes(30)));
+        taskManager.deleteTask(second.getId());
+        taskManager.createTask(new Task("На месте второй", "Описание", Status.NEW, start.plusHours(1),
+                Duration.ofMinutes(30)));
+
+        Task subSecond = new Task("Доли секунды", "Описание", Status.NEW, start.plusHours(2).plusNanos(500),
+                Duration.ofNanos(100));
+        taskManager.createTask(subSecond);
+        assertThrows(TimeOverlapException.class, () -> taskManager.createTask(new Task("В ту же секунду",
+                "Описание", Status.NEW, start.plusHours(2).plusNanos(550), Duration.ofNanos(10))),
+                "Пересечение внутри секунды не найдено");
+        taskManager.createTask(new Task("Раньше в ту же секунду", "Описание", Status.NEW, start.plusHours(2),
+                Duration.ofNanos(500)));
+
+        List<LocalDateTime> starts = taskManager.getPrioritizedTasks().stream().map(Task::getStartTime).toList();
+        assertEquals(List.of(start, start.plusMinutes(30), start.plusHours(1), start.plusHours(2),
+                start.plusHours(2).plusNanos(500), start.plusHours(3)), starts, "Неверный порядок расписания");
+    }
+
+    // Проверка, что создание задач не перебирает все записи: расписание из десятков тысяч задач в обратном порядке
+    @Test
+    public void shouldNotScanAllRecordsOnCreate() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        assertTimeout(Duration.ofSeconds(2), () -> {
+            for (int i = 50_000; i > 0; i--) {
+                taskManager.createTask(new Task("Задача " + i, "Описание", Status.NEW, start.plusMinutes(10L * i),
+                        Duration.ofMinutes(10)));
+            }
+        }, "Создание задач с проверкой пересечений слишком медленное");
+        assertThrows(TimeOverlapException.class, () -> taskManager.createTask(new Task("Пересечение", "Описание",
+                Status.NEW, start.plusMinutes(255), Duration.ofMinutes(10))), "Пересечение не найдено");
+        assertEquals(50_000, taskManager.getPrioritizedTasks().size(), "Неверный размер расписания");
+    }
+
+    // Проверка сжатия кучи строк: прежние значения и строки удаленных записей освобождаются, текст сохраняется
+    @Test
+    public void shouldCompactStringHeap() {
+        Task task = new Task("Задача", "Описание");
+        taskManager.createTask(task);
+        Task removed = new Task("Удаляемая", "Описание удаляемой");
+        taskManager.createTask(removed);
+        for (int i = 0; i < 100; i++) {
+            taskManager.updateTask(new Task(task.getId(), "Название " + i, "Описание " + i, Status.NEW));
+        }
+        taskManager.deleteTask(removed.getId());
+        assertEquals(List.of(task.getId()), taskManager.search("название", 0, 10).stream().map(Task::getId)
+                .toList(), "Поиск должен видеть последнее название");
+
+        assertTrue(taskManager.compactStrings() > 0, "Сжатие должно освободить место");
+        assertEquals(0, taskManager.compactStrings(), "Повторное сжатие не должно ничего освобождать");
+        assertFalse(new File(file.getPath() + MappedTaskStore.COMPACT_SUFFIX).exists(),
+                "Образ сжатия должен быть удален");
+        taskManager.updateTask(new Task(task.getId(), "После сжатия", "Описание 99", Status.NEW));
+        taskManager.close();
+
+        taskManager = new MappedTaskManager(file);
+        Task restored = taskManager.getTaskById(task.getId());
+        assertEquals("После сжатия", restored.getTitle(), "Название не сохранено");
+        assertEquals("Описание 99", restored.getDescription(), "Описание не сохранено");
+        assertTrue(taskManager.search("удаляемая", 0, 10).isEmpty(), "Удаленная задача не должна находиться");
+    }
+
+    // Проверка, что файл другого формата не открывается
+    @Test
+    public void shouldRejectForeignFile() throws IOException {
+        File foreign = File.createTempFile("tasks", ".csv");
+        try {
+            Files.writeString(foreign.toPath(), "id,type,title,description,status,epic,startTime,duration\n");
+            assertThrows(ManagerReadException.class, () -> new MappedTaskManager(foreign),
+                    "Файл CSV не является хранилищем");
+        } finally {
+            foreign.delete();
+            new File(foreign.getPath() + MappedTaskStore.STRINGS_SUFFIX).delete();
+        }
+    }
+
+    // Эпик из хранилища без записи в историю просмотров
+    private Epic storedEpic(Epic epic) {
+        return taskManager.getAllEpics().stream()
+                .filter(stored -> stored.getId().equals(epic.getId()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,308 @@
+package service;
+
+import enums.Status;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import service.exeptions.ManagerReadException;
+import service.managers.FileBackedTaskManager;
+import service.snapshot.BinarySnapshotCodec;
+import service.snapshot.CsvReader;
+import service.snapshot.CsvSnapshotCodec;
+import service.snapshot.SnapshotCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotCodecTest {
+
+    private File file;
+
+    @AfterEach
+    public void cleanUp() {
+        if (file != null) {
+            file.delete();
+            new File(file.getPath() + ".prev").delete();
+        }
+    }
+
+    // Проверка, что двоичный снимок восстанавливает все поля без потерь, включая секунды и пустые значения
+    @Test
+    public void shouldRoundTripBinarySnapshot() throws IOException {
+        Task task = new Task(1, "Задача", "Описание, с запятой", Status.IN_PROGRESS,
+                LocalDateTime.of(2025, 1, 1, 9, 30, 15, 500), Duration.ofMinutes(45));
+        Task untimed = new Task(2, "Без времени", null, Status.NEW, null, null);
+        Epic epic = new Epic(3, "Эпик", "Описание эпика", Status.NEW);
+        Subtask subtask = new Subtask(4, "Подзадача", "Описание", Status.DONE,
+                LocalDateTime.of(1969, 12, 31, 23, 0), Duration.ofHours(2), 3);
+
+        List<Task> restored = roundTrip(new BinarySnapshotCodec(), List.of(task, untimed), List.of(epic),
+                List.of(subtask));
+
+        assertEquals(4, restored.size(), "Восстановлены не все записи");
+        assertEquals(List.of(task.toString(), untimed.toString(), epic.toString(), subtask.toString()),
+                restored.stream().map(Task::toString).toList(), "Записи восстановлены с искажениями");
+        assertEquals(task.getStartTime(), restored.getFirst().getStartTime(), "Потеряна точность времени начала");
+        assertNull(restored.get(1).getDescription(), "Пустое описание должно остаться пустым");
+        assertEquals(3, ((Subtask) restored.get(3)).getEpicId(), "Потерян эпик подзадачи");
+    }
+
+    // Проверка, что поврежденный двоичный снимок отклоняется
+    @Test
+    public void shouldRejectCorruptedBinarySnapshot() throws IOException {
+        SnapshotCodec codec = new BinarySnapshotCodec();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.write(output, List.of(new Task(1, "Задача", "Описание", Status.NEW)), List.of(), List.of());
+        byte[] bytes = output.toByteArray();
+        bytes[8] ^= 0x01;
+
+        assertThrows(IllegalArgumentException.class, () -> codec.read(new ByteArrayInputStream(bytes)),
+                "Поврежденный снимок должен отклоняться");
+    }
+
+    // Проверка, что поврежденная длина строки отклоняется, а не приводит к выделению гигабайт памяти
+    @Test
+    public void shouldRejectHugeStringLengthInBinarySnapshot() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.writeBytes(BinarySnapshotCodec.MAGIC);
+        output.writeBytes(new byte[]{0, 1, 0, 0, (byte) 0xF0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07});
+        byte[] bytes = output.toByteArray();
+
+        assertThrows(IllegalArgumentException.class, () -> new BinarySnapshotCodec().read(
+                new ByteArrayInputStream(bytes)), "Слишком длинная строка должна отклоняться");
+    }
+
+    // Проверка, что у эпика из двоичного снимка восстанавливается время окончания
+    @Test
+    public void shouldRestoreEpicEndTimeFromBinarySnapshot() throws IOException {
+        Epic epic = new Epic(1, "Эпик", "Описание эпика", Status.NEW);
+        epic.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        epic.setDuration(Duration.ofHours(2));
+
+        List<Task> restored = roundTrip(new BinarySnapshotCodec(), List.of(), List.of(epic), List.of());
+
+        assertEquals(LocalDateTime.of(2025, 1, 1, 12, 0), restored.getFirst().getEndTime(),
+                "Время окончания эпика не восстановлено");
+    }
+
+    // Проверка, что менеджер с файлом .bin пишет двоичный снимок, который меньше CSV, и загружается из него
+    @Test
+    public void shouldSaveAndLoadBinarySnapshotByExtension() throws IOException {
+        file = File.createTempFile("tasks", ".bin");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        manager.createEpic(epic);
+        for (int i = 0; i < 20; i++) {
+            manager.createSubtask(new Subtask("Подзадача " + i, "Описание подзадачи",
+                    LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(i), Duration.ofMinutes(30), epic.getId()));
+        }
+
+        byte[] head = Files.readAllBytes(file.toPath());
+        assertArrayEquals(BinarySnapshotCodec.MAGIC, Arrays.copyOf(head, 4),
+                "Снимок записан не в двоичном виде");
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        new CsvSnapshotCodec().write(csv, new ArrayList<>(manager.viewAllTasks()),
+                new ArrayList<>(manager.viewAllEpics()), new ArrayList<>(manager.viewAllSubtasks()));
+        assertTrue(head.length < csv.size(), "Двоичный снимок должен быть компактнее CSV");
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(manager.viewAllSubtasks().stream().map(Task::toString).toList(),
+                loaded.viewAllSubtasks().stream().map(Task::toString).toList(), "Подзадачи загружены с искажениями");
+        assertEquals(epic.getStatus(), loaded.getEpicById(epic.getId()).getStatus(), "Статус эпика не совпадает");
+    }
+
+    // Проверка, что двоичный снимок без предыдущего поколения с неверной суммой не загружается
+    @Test
+    public void shouldFailToLoadCorruptedBinaryFile() throws IOException {
+        file = File.createTempFile("tasks", ".bin");
+        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        manager.createTask(new Task("Задача", "Описание"));
+        new File(file.getPath() + ".prev").delete();
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(file.toPath(), bytes);
+
+        assertThrows(ManagerReadException.class, () -> FileBackedTaskManager.loadFromFile(file),
+                "Поврежденный снимок не должен загружаться");
+    }
+
+    // Проверка, что запятые, кавычки и переводы строк в названии и описании переживают запись в CSV
+    @Test
+    public void shouldRoundTripCsvWithSpecialCharacters() throws IOException {
+        Task task = new Task(1, "Задача, с \"кавычками\"", "Строка 1\nСтрока 2,\r\nконец", Status.NEW,
+                LocalDateTime.of(2025, 1, 1, 9, 0), Duration.ofMinutes(30));
+        Epic epic = new Epic(2, "\"", ",", Status.NEW);
+        Subtask subtask = new Subtask(3, "Подзадача", "", Status.DONE, null, null, 2);
+
+        List<Task> restored = roundTrip(new CsvSnapshotCodec(), List.of(task), List.of(epic), List.of(subtask));
+
+        assertEquals(3, restored.size(), "Восстановлены не все записи");
+        assertEquals(task.getTitle(), restored.get(0).getTitle(), "Название с запятой и кавычками искажено");
+        assertEquals(task.getDescription(), restored.get(0).getDescription(), "Описание с переводами строк искажено");
+        assertEquals("\"", restored.get(1).getTitle(), "Одиночная кавычка искажена");
+        assertEquals(",", restored.get(1).getDescription(), "Одиночная запятая искажена");
+        assertEquals(2, ((Subtask) restored.get(2)).getEpicId(), "Потерян эпик подзадачи");
+    }
+
+    // Проверка чтения CSV: CRLF, поле в кавычках длиннее буфера чтения, повторное использование массива полей
+    @Test
+    public void shouldReadQuotedFieldsAcrossBufferBoundaries() throws IOException {
+        String longValue = "a,\"b\"\n".repeat(20_000);
+        String escaped = "\"" + longValue.replace("\"", "\"\"") + "\"";
+        String csv = "1,2,3\r\n" + escaped + ",x\r\n\nlast";
+        CsvReader reader = new CsvReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(reader.next(), "Первая запись не прочитана");
+        assertEquals(3, reader.size(), "Неверное число полей");
+        String[] fields = reader.fields(0);
+        assertEquals("3", reader.field(2), "CRLF должен отделяться от поля");
+
+        assertTrue(reader.next(), "Вторая запись не прочитана");
+        assertEquals(longValue, reader.field(0), "Длинное поле в кавычках искажено");
+        assertEquals("x", reader.field(1), "Поле после длинного искажено");
+        assertSame(fields, reader.fields(0), "Массив полей должен переиспользоваться");
+
+        assertTrue(reader.next() && reader.isEmptyLine(), "Пустая строка не распознана");
+        assertTrue(reader.next(), "Последняя строка без перевода строки не прочитана");
+        assertEquals("last", reader.field(0), "Неверное значение последней строки");
+        assertFalse(reader.next(), "Записей больше нет");
+    }
+
+    // Проверка, что незакрытые кавычки и символы после закрывающей кавычки отклоняются
+    @Test
+    public void shouldRejectMalformedQuotes() {
+        for (String csv : List.of("\"незакрыто", "\"поле\"лишнее,1", "поле\"внутри")) {
+            CsvReader reader = new CsvReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+            assertThrows(IllegalArgumentException.class, reader::next, "Некорректная строка принята: " + csv);
+        }
+    }
+
+    // Проверка, что журнал с переводами строк и запятыми в полях восстанавливается
+    @Test
+    public void shouldReplayJournalWithMultilineFields() throws IOException {
+        file = File.createTempFile("tasks", ".csv");
+        file.delete();
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, 100);
+        Task task = new Task("Задача, важная", "Первая строка\nвторая строка");
+        manager.createTask(task);
+        task.setDescription("Описание с \"кавычками\"");
+        manager.updateTask(task);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, 100);
+        new File(file.getPath() + ".journal").delete();
+        assertEquals(task.getTitle(), loaded.getTaskById(task.getId()).getTitle(), "Название искажено");
+        assertEquals(task.getDescription(), loaded.getTaskById(task.getId()).getDescription(),
+                "Описание искажено");
+    }
+
+    // Проверка, что параллельное чтение по фрагментам дает те же записи, что и последовательное
+    @Test
+    public void shouldReadCsvInParallelChunks() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        List<Subtask> subtasks = new ArrayList<>();
+        Epic epic = new Epic(1, "Эпик", "Описание эпика", Status.NEW);
+        for (int i = 2; i < 20_000; i += 2) {
+            tasks.add(new Task(i, "Задача, " + i, "Строка 1\nСтрока \"2\"", Status.NEW,
+                    LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(i), Duration.ofMinutes(1)));
+            subtasks.add(new Subtask(i + 1, "Подзадача " + i, "Описание", Status.DONE, null, null, 1));
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        CsvSnapshotCodec codec = new CsvSnapshotCodec();
+        codec.write(output, tasks, List.of(epic), subtasks);
+        byte[] bytes = output.toByteArray();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Task> sequential = codec.read(new ByteArrayInputStream(bytes));
+            List<Task> parallel = codec.readParallel(bytes, pool);
+            assertEquals(sequential.stream().map(Task::toString).toList(),
+                    parallel.stream().map(Task::toString).toList(), "Параллельное чтение дало другие записи");
+            assertEquals(tasks.getFirst().getDescription(), parallel.getFirst().getDescription(),
+                    "Описание с переводом строки искажено");
+
+            byte[] corrupted = new String(bytes, StandardCharsets.UTF_8).replace("Задача, 10000", "Задача, 10001")
+                    .getBytes(StandardCharsets.UTF_8);
+            assertThrows(IllegalArgumentException.class, () -> codec.readParallel(corrupted, pool),
+                    "Снимок с неверной суммой должен отклоняться");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Проверка, что снимок без строки контрольной суммы читается параллельно целиком
+    @Test
+    public void shouldReadCsvWithoutFooterInParallel() {
+        String csv = CsvSnapshotCodec.HEADER + "\n"
+                + CsvSnapshotCodec.formatLine(new Task(1, "Задача", "Описание", Status.NEW)) + "\n\n"
+                + CsvSnapshotCodec.formatLine(new Epic(2, "Эпик", "Описание", Status.NEW));
+
+        List<Task> restored = new CsvSnapshotCodec().readParallel(csv.getBytes(StandardCharsets.UTF_8),
+                ForkJoinPool.commonPool());
+        assertEquals(List.of(1, 2), restored.stream().map(Task::getId).toList(), "Прочитаны не все записи");
+    }
+
+    // Проверка, что снимок с отметкой версии без строки контрольной суммы отклоняется, а прежний формат читается
+    @Test
+    public void shouldRejectTruncatedVersionedCsv() throws IOException {
+        CsvSnapshotCodec codec = new CsvSnapshotCodec();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.write(output, List.of(new Task(1, "Задача", "Описание", Status.NEW),
+                new Task(2, "Задача", "Описание", Status.NEW)), List.of(), List.of());
+        String snapshot = output.toString(StandardCharsets.UTF_8);
+        assertTrue(snapshot.startsWith(CsvSnapshotCodec.HEADER + "," + CsvSnapshotCodec.VERSION_MARKER),
+                "Заголовок должен содержать отметку версии");
+
+        byte[] truncated = snapshot.substring(0, snapshot.indexOf("#checksum")).getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> codec.read(new ByteArrayInputStream(truncated)),
+                "Обрезанный снимок не должен читаться");
+        assertThrows(IllegalArgumentException.class, () -> codec.readParallel(truncated, ForkJoinPool.commonPool()),
+                "Обрезанный снимок не должен читаться параллельно");
+
+        byte[] legacy = (CsvSnapshotCodec.HEADER + "\n" + CsvSnapshotCodec.formatLine(
+                new Task(1, "Задача", "Описание", Status.NEW)) + "\n").getBytes(StandardCharsets.UTF_8);
+        assertEquals(1, codec.read(new ByteArrayInputStream(legacy)).size(), "Прежний формат должен читаться");
+    }
+
+    // Проверка, что кавычка в тексте файла прежнего формата читается как обычный символ, а в новом - отклоняется
+    @Test
+    public void shouldTreatQuotesInLegacyCsvAsText() throws IOException {
+        String records = "1,TASK,Купить 27\" монитор,Описание,NEW,,,0\n"
+                + "2,EPIC,Эпик,Сказать \"да\",NEW,,,0\n";
+        byte[] legacy = (CsvSnapshotCodec.HEADER + "\n" + records).getBytes(StandardCharsets.UTF_8);
+        CsvSnapshotCodec codec = new CsvSnapshotCodec();
+
+        for (List<Task> restored : List.of(codec.read(new ByteArrayInputStream(legacy)),
+                codec.readParallel(legacy, ForkJoinPool.commonPool()))) {
+            assertEquals("Купить 27\" монитор", restored.get(0).getTitle(), "Кавычка должна остаться в названии");
+            assertEquals("Сказать \"да\"", restored.get(1).getDescription(), "Кавычки должны остаться в описании");
+        }
+
+        byte[] versioned = (CsvSnapshotCodec.HEADER + "," + CsvSnapshotCodec.VERSION_MARKER + "\n" + records)
+                .getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> codec.read(new ByteArrayInputStream(versioned)),
+                "В новом формате кавычка без экранирования - ошибка");
+    }
+
+    private static List<Task> roundTrip(SnapshotCodec codec, List<Task> tasks, List<Epic> epics,
+                                        List<Subtask> subtasks) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codec.write(output, tasks, epics, subtasks);
+        return codec.read(new ByteArrayInputStream(output.toByteArray()));
+    }
+}
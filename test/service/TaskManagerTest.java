@@ -1,6 +1,8 @@
 package service;
 
+import enums.OperationType;
 import enums.Status;
+import enums.TaskType;
 import model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,6 +11,7 @@ import service.managers.TaskManager;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -98,6 +101,32 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(Status.IN_PROGRESS, epic.getStatus(), "Статус эпика должен быть IN_PROGRESS");
     }
 
+    // Проверка пересчета времени эпика при создании, обновлении и удалении подзадач
+    @Test
+    public void shouldCalculateEpicTimeFromSubtasks() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        taskManager.createEpic(epic);
+
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание", start, Duration.ofMinutes(30), epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание", start.plusHours(1),
+                Duration.ofMinutes(30), epic.getId());
+        taskManager.createSubtask(subtask1);
+        taskManager.createSubtask(subtask2);
+        assertEquals(start, epic.getStartTime(), "Неверное время начала эпика");
+        assertEquals(start.plusMinutes(90), epic.getEndTime(), "Неверное время окончания эпика");
+        assertEquals(Duration.ofMinutes(90), epic.getDuration(), "Неверная продолжительность эпика");
+
+        taskManager.updateSubtask(new Subtask(subtask2.getId(), "Подзадача 2", "Описание", Status.DONE,
+                start.plusHours(2), Duration.ofMinutes(30), epic.getId()));
+        assertEquals(start.plusMinutes(150), epic.getEndTime(), "Время окончания эпика должно обновиться");
+
+        taskManager.deleteSubtask(subtask1.getId());
+        assertEquals(start.plusHours(2), epic.getStartTime(), "Время начала эпика должно обновиться");
+        assertEquals(Status.DONE, epic.getStatus(), "Статус эпика должен быть DONE");
+        assertTrue(taskManager.getHistory().isEmpty(), "Удаление подзадачи не должно попадать в историю");
+    }
+
     // Общая проверка, что задачи не конфликтуют друг с другом по времени
     @Test
     public void shouldCheckTimeConflict() {
@@ -116,6 +145,53 @@ public abstract class TaskManagerTest<T extends TaskManager> {
                 "Должно быть исключение при конфликте времени");
     }
 
+    // Проверка, что задачи, идущие встык, не считаются пересекающимися
+    @Test
+    public void shouldAllowAdjacentTasks() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+        Task task1 = new Task("Задача 1", "Описание задачи 1", start, Duration.ofMinutes(30));
+        Task task2 = new Task("Задача 2", "Описание задачи 2", start.plusMinutes(30), Duration.ofMinutes(30));
+        Task task3 = new Task("Задача 3", "Описание задачи 3", start.minusMinutes(30), Duration.ofMinutes(30));
+
+        taskManager.createTask(task1);
+        taskManager.createTask(task2);
+        taskManager.createTask(task3);
+        assertEquals(List.of(task3, task1, task2), taskManager.getPrioritizedTasks(),
+                "Задачи встык должны быть добавлены в порядке времени начала");
+    }
+
+    // Проверка пересечения с задачей, которая начинается раньше и заканчивается внутри новой
+    @Test
+    public void shouldDetectOverlapWithEarlierNeighbour() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+        taskManager.createTask(new Task("Длинная задача", "Описание", start, Duration.ofHours(3)));
+        taskManager.createTask(new Task("Следующая задача", "Описание", start.plusHours(4), Duration.ofHours(1)));
+
+        Task inside = new Task("Внутренняя задача", "Описание", start.plusHours(1), Duration.ofMinutes(10));
+        Task covering = new Task("Охватывающая задача", "Описание", start.minusHours(1), Duration.ofHours(6));
+        Task between = new Task("Задача в окне", "Описание", start.plusHours(3), Duration.ofHours(1));
+
+        assertThrows(TimeOverlapException.class, () -> taskManager.createTask(inside),
+                "Задача внутри существующей должна пересекаться");
+        assertThrows(TimeOverlapException.class, () -> taskManager.createTask(covering),
+                "Задача, охватывающая существующие, должна пересекаться");
+        taskManager.createTask(between);
+        assertEquals(3, taskManager.getPrioritizedTasks().size(), "Задача в свободном окне должна добавиться");
+    }
+
+    // Проверка, что задачи с одинаковым временем начала и без продолжительности не теряются
+    @Test
+    public void shouldKeepTasksWithEqualStartTime() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+        taskManager.createTask(new Task("Задача 1", "Описание", start, null));
+        taskManager.createTask(new Task("Задача 2", "Описание", start, null));
+        assertEquals(2, taskManager.getPrioritizedTasks().size(),
+                "Задачи с одинаковым временем начала должны храниться раздельно");
+    }
+
     //Общие проверки, что задачи всех типов удаляются по id
     @Test
     public void checkDeleteTaskById() {
@@ -268,4 +344,274 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertFalse(epic.getSubtasksId().contains(subtask),
                 "Эпик не должен содержать ID удаленной подзадачи");
     }
+
+    // Проверка, что удаление эпика убирает из списка приоритетов все его подзадачи и только их
+    @Test
+    public void deleteEpicShouldRemoveAllItsSubtasksFromPrioritized() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Epic removed = new Epic("Удаляемый эпик", "Описание эпика");
+        Epic kept = new Epic("Эпик", "Описание эпика");
+        taskManager.createEpic(removed);
+        taskManager.createEpic(kept);
+        for (int i = 0; i < 100; i++) {
+            Integer epicId = i % 10 == 0 ? kept.getId() : removed.getId();
+            taskManager.createSubtask(new Subtask("Подзадача " + i, "Описание",
+                    start.plusHours(i), Duration.ofMinutes(30), epicId));
+        }
+        Task task = new Task("Задача", "Описание", start.minusHours(1), Duration.ofMinutes(30));
+        taskManager.createTask(task);
+
+        taskManager.deleteEpic(removed.getId());
+
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertEquals(11, prioritized.size(), "Должны остаться задача и 10 подзадач второго эпика");
+        assertEquals(task, prioritized.getFirst(), "Порядок по времени должен сохраниться");
+        assertTrue(prioritized.stream().skip(1).allMatch(item -> item instanceof Subtask subtask
+                && subtask.getEpicId().equals(kept.getId())), "Остались подзадачи удаленного эпика");
+    }
+
+    // Проверка, что задача удаляется из списка приоритетов, даже если ее время изменили в обход менеджера
+    @Test
+    public void deleteAllTasksShouldRemoveTasksWithChangedStartTime() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task task = new Task("Задача", "Описание", start, Duration.ofMinutes(30));
+        taskManager.createTask(task);
+        task.setStartTime(start.plusDays(1));
+
+        taskManager.deleteAllTasks();
+
+        assertTrue(taskManager.getPrioritizedTasks().isEmpty(), "Список приоритетов должен быть пуст");
+    }
+
+    // Проверка, что задачу можно изменить на месте и затем обновить: прежний интервал освобождается
+    @Test
+    public void shouldUpdateTaskChangedInPlace() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task task = new Task("Задача", "Описание", start, Duration.ofMinutes(30));
+        taskManager.createTask(task);
+
+        Task stored = taskManager.getTaskById(task.getId());
+        stored.setStartTime(start.plusMinutes(10));
+        taskManager.updateTask(stored);
+
+        assertEquals(start.plusMinutes(10), taskManager.getTaskById(task.getId()).getStartTime(),
+                "Сдвиг задачи не должен считаться пересечением с ее прежним интервалом");
+        assertEquals(1, taskManager.getPrioritizedTasks().size(), "В списке приоритетов должна остаться одна запись");
+        assertDoesNotThrow(() -> taskManager.createTask(new Task("Новая", "Описание", start, Duration.ofMinutes(10))),
+                "Прежний интервал задачи должен освободиться");
+        assertThrows(TimeOverlapException.class, () -> taskManager.createTask(
+                new Task("Пересечение", "Описание", start.plusMinutes(30), Duration.ofMinutes(10))),
+                "Новый интервал задачи должен учитываться");
+    }
+
+    // Проверка выборки задач расписания, пересекающихся с окном времени
+    @Test
+    public void shouldReturnTasksOverlappingWindow() {
+        LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Task before = new Task("До окна", "Описание", day.plusHours(6), Duration.ofHours(1));
+        Task covering = new Task("Начата до окна", "Описание", day.plusHours(9), Duration.ofHours(2));
+        Task inside = new Task("В окне", "Описание", day.plusHours(12), Duration.ofMinutes(30));
+        Task atEnd = new Task("С концом окна", "Описание", day.plusHours(14), Duration.ofHours(1));
+        List.of(before, covering, inside, atEnd).forEach(taskManager::createTask);
+        taskManager.createTask(new Task("Без времени", "Описание"));
+
+        assertEquals(List.of(covering, inside), taskManager.getPrioritizedTasks(day.plusHours(10), day.plusHours(14)),
+                "Неверный состав окна");
+        assertEquals(List.of(inside, atEnd), taskManager.getPrioritizedTasks(day.plusHours(11), null),
+                "Окно без конца должно включать все последующие задачи");
+        assertEquals(List.of(before), taskManager.getPrioritizedTasks(null, day.plusHours(9)),
+                "Окно без начала должно включать все предыдущие задачи");
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.getPrioritizedTasks(day.plusHours(1), day), "Окно с концом раньше начала");
+    }
+
+    // Проверка поиска свободных промежутков расписания нужной продолжительности
+    @Test
+    public void shouldFindFreeSlotsLongEnough() {
+        LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+        taskManager.createTask(new Task("Идет в начале поиска", "Описание", day.plusHours(8), Duration.ofHours(2)));
+        taskManager.createTask(new Task("Короткое окно", "Описание", day.plusHours(10).plusMinutes(20),
+                Duration.ofHours(1)));
+        taskManager.createTask(new Task("Длинное окно", "Описание", day.plusHours(13), Duration.ofHours(1)));
+        taskManager.createTask(new Task("Без продолжительности", "Описание", day.plusHours(15), null));
+
+        List<TimeSlot> slots = taskManager.findFreeSlots(day.plusHours(9), Duration.ofMinutes(30), 5);
+
+        assertEquals(List.of(new TimeSlot(day.plusHours(11).plusMinutes(20), day.plusHours(13)),
+                new TimeSlot(day.plusHours(14), null)), slots, "Неверные свободные промежутки");
+        assertEquals(1, taskManager.findFreeSlots(day.plusHours(9), Duration.ofMinutes(30), 1).size(),
+                "Число промежутков должно ограничиваться");
+        assertThrows(IllegalArgumentException.class,
+                () -> taskManager.findFreeSlots(day, Duration.ZERO, 1), "Нулевая продолжительность");
+    }
+
+    // Проверка, что выборка по статусу отражает создание, обновление, удаление и пересчет эпиков
+    @Test
+    public void shouldListItemsByStatus() {
+        Task task = new Task("Задача", "Описание задачи");
+        taskManager.createTask(task);
+        Epic epic = new Epic("Эпик", "Описание эпика");
+        taskManager.createEpic(epic);
+        Subtask subtask = new Subtask("Подзадача", "Описание подзадачи", epic.getId());
+        taskManager.createSubtask(subtask);
+
+        assertEquals(List.of(task), taskManager.getTasksByStatus(Status.NEW), "Новая задача не найдена");
+        assertEquals(List.of(epic), taskManager.getEpicsByStatus(Status.NEW), "Новый эпик не найден");
+
+        taskManager.updateTask(new Task(task.getId(), "Задача", "Описание задачи", Status.DONE));
+        taskManager.updateSubtask(new Subtask(subtask.getId(), "Подзадача", "Описание подзадачи",
+                Status.IN_PROGRESS, epic.getId()));
+
+        assertTrue(taskManager.getTasksByStatus(Status.NEW).isEmpty(), "Задача должна уйти из статуса NEW");
+        assertEquals(1, taskManager.getTasksByStatus(Status.DONE).size(), "Задача должна перейти в DONE");
+        assertEquals(List.of(subtask), taskManager.getSubtasksByStatus(Status.IN_PROGRESS),
+                "Подзадача должна перейти в IN_PROGRESS");
+        assertEquals(List.of(epic), taskManager.getEpicsByStatus(Status.IN_PROGRESS),
+                "Статус эпика должен пересчитаться");
+
+        taskManager.deleteSubtask(subtask.getId());
+        assertTrue(taskManager.getSubtasksByStatus(Status.IN_PROGRESS).isEmpty(), "Подзадача удалена");
+        assertEquals(List.of(epic), taskManager.getEpicsByStatus(Status.NEW), "Пустой эпик должен быть NEW");
+
+        taskManager.deleteAllTasks();
+        assertTrue(taskManager.getTasksByStatus(Status.DONE).isEmpty(), "Задачи удалены");
+    }
+
+    // Проверка полнотекстового поиска: ранжирование, постраничная выдача и обновление индекса
+    @Test
+    public void shouldSearchByTitleAndDescription() {
+        Task report = new Task("Отчет за квартал", "Собрать отчет и отправить отчет руководителю");
+        taskManager.createTask(report);
+        Epic release = new Epic("Релиз", "Подготовить отчет о релизе");
+        taskManager.createEpic(release);
+        Subtask tests = new Subtask("Тесты", "Прогнать тесты перед релизом", release.getId());
+        taskManager.createSubtask(tests);
+
+        assertEquals(List.of(report, release), taskManager.search("ОТЧЕТ", 0, 10),
+                "Задача с частым словом должна быть выше");
+        assertEquals(List.of(release), taskManager.search("отчет", 1, 10), "Неверная вторая страница");
+        assertEquals(List.of(tests), taskManager.search("тесты", 0, 10), "Подзадача не найдена");
+
+        taskManager.updateTask(new Task(report.getId(), "Планирование", "Составить план", Status.NEW));
+        taskManager.deleteSubtask(tests.getId());
+        assertEquals(List.of(release), taskManager.search("отчет тесты", 0, 10),
+                "Индекс должен отражать обновление и удаление");
+        assertTrue(taskManager.search("несуществующее", 0, 10).isEmpty(), "Поиск не должен ничего находить");
+    }
+
+    // Проверка постраничного обхода задач по курсору
+    @Test
+    public void shouldPageTasksByCursor() {
+        for (int i = 0; i < 5; i++) {
+            taskManager.createTask(new Task("Задача " + i, "Описание"));
+        }
+
+        Page<Task> first = taskManager.getTasksPage(null, 2);
+        Page<Task> second = taskManager.getTasksPage(first.getNextCursor(), 2);
+        Page<Task> last = taskManager.getTasksPage(second.getNextCursor(), 2);
+
+        List<Task> all = taskManager.getAllTasks();
+        assertEquals(all.subList(0, 2), first.getItems(), "Неверная первая страница");
+        assertEquals(all.subList(2, 4), second.getItems(), "Неверная вторая страница");
+        assertEquals(all.subList(4, 5), last.getItems(), "Неверная последняя страница");
+        assertNull(last.getNextCursor(), "У последней страницы не должно быть курсора");
+        assertThrows(IllegalArgumentException.class, () -> taskManager.getTasksPage("мусор", 2),
+                "Неверный курсор должен отклоняться");
+    }
+
+    // Проверка, что удаленные задачи и подзадачи удаленного эпика не попадают в страницы
+    @Test
+    public void shouldNotPageDeletedItems() {
+        Task kept = new Task("Задача", "Описание");
+        Task deleted = new Task("Удаляемая", "Описание");
+        taskManager.createTask(kept);
+        taskManager.createTask(deleted);
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpic(epic);
+        taskManager.createSubtask(new Subtask("Подзадача", "Описание", epic.getId()));
+
+        taskManager.deleteTask(deleted.getId());
+        taskManager.deleteEpic(epic.getId());
+
+        assertEquals(List.of(kept), taskManager.getTasksPage(null, 10).getItems(), "Удаленная задача в странице");
+        assertTrue(taskManager.getEpicsPage(null, 10).getItems().isEmpty(), "Удаленный эпик в странице");
+        assertTrue(taskManager.getSubtasksPage(null, 10).getItems().isEmpty(), "Подзадача удаленного эпика в странице");
+    }
+
+    // Проверка пакета: задачи меняются временем, удаленное время сразу занимается новой задачей
+    @Test
+    public void shouldApplyBatchValidatedAsWhole() {
+        LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Task first = new Task("Первая", "Описание", Status.NEW, day.plusHours(10), Duration.ofHours(1));
+        Task second = new Task("Вторая", "Описание", Status.NEW, day.plusHours(11), Duration.ofHours(1));
+        Task removed = new Task("Удаляемая", "Описание", Status.NEW, day.plusHours(12), Duration.ofHours(1));
+        taskManager.createTask(first);
+        taskManager.createTask(second);
+        taskManager.createTask(removed);
+        Epic epic = new Epic("Эпик", "Описание");
+        taskManager.createEpic(epic);
+
+        Subtask subtask = new Subtask("Подзадача", "Описание", day.plusHours(12), Duration.ofHours(1), epic.getId());
+        subtask.setStatus(Status.DONE);
+        taskManager.applyBatch(List.of(
+                new Operation(OperationType.UPDATE, new Task(first.getId(), "Первая", "Описание", Status.NEW,
+                        day.plusHours(11), Duration.ofHours(1))),
+                new Operation(OperationType.UPDATE, new Task(second.getId(), "Вторая", "Описание", Status.NEW,
+                        day.plusHours(10), Duration.ofHours(1))),
+                new Operation(OperationType.CREATE, subtask),
+                new Operation(OperationType.DELETE, TaskType.TASK, removed.getId())));
+
+        assertEquals(List.of(second.getId(), first.getId(), subtask.getId()),
+                taskManager.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                "Расписание должно отражать весь пакет");
+        assertEquals(Status.DONE, taskManager.getEpicById(epic.getId()).getStatus(),
+                "Эпик должен учесть подзадачу из пакета");
+        assertEquals(2, taskManager.getAllTasks().size(), "Удаление из пакета должно примениться");
+    }
+
+    // Проверка, что при пересечении внутри пакета не применяется ни одна операция
+    @Test
+    public void shouldRejectWholeBatchOnOverlap() {
+        LocalDateTime day = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Task existing = new Task("Задача", "Описание", Status.NEW, day.plusHours(9), Duration.ofHours(1));
+        taskManager.createTask(existing);
+
+        List<Operation> overlapping = List.of(
+                new Operation(OperationType.DELETE, TaskType.TASK, existing.getId()),
+                new Operation(OperationType.CREATE, new Task("Новая 1", "Описание", Status.NEW,
+                        day.plusHours(12), Duration.ofHours(1))),
+                new Operation(OperationType.CREATE, new Task("Новая 2", "Описание", Status.NEW,
+                        day.plusHours(12).plusMinutes(30), Duration.ofHours(1))));
+        assertThrows(TimeOverlapException.class, () -> taskManager.applyBatch(overlapping),
+                "Пересечение задач пакета должно отклоняться");
+        assertEquals(List.of(existing), taskManager.getAllTasks(), "Отклоненный пакет не должен ничего менять");
+
+        List<Operation> repeated = List.of(
+                new Operation(OperationType.DELETE, TaskType.TASK, existing.getId()),
+                new Operation(OperationType.DELETE, TaskType.TASK, existing.getId()));
+        assertThrows(IllegalArgumentException.class, () -> taskManager.applyBatch(repeated),
+                "Повторное изменение задачи в пакете должно отклоняться");
+        assertEquals(List.of(existing), taskManager.getAllTasks(), "Отклоненный пакет не должен ничего менять");
+    }
+
+    // Проверка, что пересечения пакета не зависят от порядка операций, в том числе для задач нулевой длины
+    @Test
+    public void shouldCheckBatchOverlapsRegardlessOfOrder() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Operation longTask = new Operation(OperationType.CREATE, new Task("Длинная", "Описание", Status.NEW,
+                start, Duration.ofHours(4)));
+        Operation emptyTask = new Operation(OperationType.CREATE, new Task("Отметка", "Описание", Status.NEW,
+                start, Duration.ZERO));
+        Operation innerTask = new Operation(OperationType.CREATE, new Task("Внутренняя", "Описание", Status.NEW,
+                start.plusHours(2), Duration.ofHours(1)));
+
+        assertThrows(TimeOverlapException.class, () -> taskManager.applyBatch(List.of(longTask, emptyTask, innerTask)),
+                "Задача внутри длинной должна отклоняться");
+        assertThrows(TimeOverlapException.class, () -> taskManager.applyBatch(List.of(emptyTask, longTask, innerTask)),
+                "Задача внутри длинной должна отклоняться при любом порядке");
+        assertTrue(taskManager.getAllTasks().isEmpty(), "Отклоненный пакет не должен ничего менять");
+
+        taskManager.applyBatch(List.of(longTask, emptyTask));
+        assertEquals(2, taskManager.getAllTasks().size(), "Задача нулевой длины в начале другой не пересекается");
+    }
 }